@@ -9,6 +9,7 @@ plugins {
 
 // Project dependencies versions (in alphabetical order).
 val iTextPdfVersion = "9.1.0"
+val jmhVersion = "1.37"
 val junitVersion = "5.12.2"
 val log4jVersion = "2.24.3"
 
@@ -34,6 +35,9 @@ val libraryDirName = "library"
 val testsDir = "$workDir/$testsDirName"
 val distDir = "${layout.buildDirectory.get()}/distribution"
 val autoDocDir = "$distDir/autodoc"
+val jmhReportDir = "${layout.buildDirectory.get()}/reports/jmh"
+val cdsTrainingDir = "${layout.buildDirectory.get()}/cds-training"
+val cdsArchiveName = "${project.extra["APP_NAME"]}.jsa"
 
 // Configure project source and compilation directories.
 sourceSets {
@@ -49,6 +53,20 @@ sourceSets {
             java.destinationDirectory.set(file(testsDir))
         }
     }
+    // Performance benchmarks (JMH). They are not part of the distribution.
+    create("jmh") {
+        java {
+            java.setSrcDirs(listOf("source/jmh/java"))
+        }
+        compileClasspath += main.get().output
+        runtimeClasspath += main.get().output
+    }
+}
+configurations["jmhImplementation"].extendsFrom(configurations.implementation.get())
+configurations["jmhRuntimeOnly"].extendsFrom(configurations.runtimeOnly.get())
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
 }
 
 // Define custom build tasks.
@@ -70,6 +88,30 @@ tasks.register("checkEnv") {
     }
 }
 
+tasks.register<JavaExec>("jmh") {
+    description = "Run the performance benchmarks (results in build/reports/jmh)"
+    group = "verification"
+
+    // Additional JMH arguments can be passed like: -PjmhArgs="-wi 1 -i 3 Normaliz"
+    val jmhArgs = (project.findProperty("jmhArgs") as String?) ?: ""
+    val resultFile = "$jmhReportDir/results-${project.extra["APP_VERSION"]}.json"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    workingDir = projectDir
+    args = listOf("-rf", "json", "-rff", resultFile) + jmhArgs.split(" ").filter { it.isNotBlank() }
+    doFirst {
+        file(jmhReportDir).mkdirs()
+    }
+}
+
+tasks.register<JavaExec>("memoryFootprint") {
+    description = "Measure the memory needed per annotation (annotation objects vs compact list)"
+    group = "verification"
+
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dsk.anotex.core.AnnotationMemoryFootprint")
+}
+
 tasks.register<Copy>("dist") {
     description = "Create project distribution"
 
@@ -88,9 +130,52 @@ tasks.register<Copy>("dist") {
         exclude(testsDirName, "testing")
         into(libraryDirName) {
             from(project.configurations.runtimeClasspath)
+            // The class data sharing archive can be created only from jar files.
+            from(tasks.jar)
         }
         includeEmptyDirs = true
     }
+    finalizedBy("cdsArchive")
+}
+
+tasks.register<Copy>("cdsTrainingFiles") {
+    description = "Prepare the documents for the class data sharing training run"
+
+    destinationDir = file(cdsTrainingDir)
+    from("$workDir/testing") {
+        include("*.pdf")
+    }
+}
+
+tasks.register<Exec>("cdsArchive") {
+    description = "Create class data sharing archive of the distribution (faster startup)"
+    dependsOn("dist", "cdsTrainingFiles")
+
+    // The training run loads the classes, used by typical extraction. They are written to the archive
+    // on exit. The launcher uses the same class path (the archive is ignored if it does not match).
+    val appDir = "$distDir/${project.extra["APP_NAME"]}"
+    val java = "${System.getProperty("java.home")}/bin/java"
+    workingDir = file(appDir)
+    // The warnings about the classes, which cannot be archived, are not interesting.
+    commandLine(java, "-XX:ArchiveClassesAtExit=$libraryDirName/$cdsArchiveName", "-Xlog:cds=off",
+        "-cp", "$libraryDirName/*", "dsk.anotex.ConsoleRunner", "-batch", cdsTrainingDir, "-threads", "1")
+    doFirst {
+        // Remove the outputs of previous training run.
+        fileTree(cdsTrainingDir) { include("*.md") }.forEach { it.delete() }
+    }
+}
+
+tasks.register<JavaExec>("startupBenchmark") {
+    description = "Compare the distribution startup time without and with class data sharing archive"
+    group = "verification"
+    dependsOn("cdsArchive")
+
+    // The number of runs can be passed like: -PstartupRuns=20
+    val runs = (project.findProperty("startupRuns") as String?) ?: "10"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dsk.anotex.StartupBenchmark")
+    args = listOf("$distDir/${project.extra["APP_NAME"]}", "$workDir/testing/Test_Pdf_3.pdf", runs,
+        "$jmhReportDir/startup-${project.extra["APP_VERSION"]}.txt")
 }
 
 // Customize project build tasks.
@@ -112,6 +197,11 @@ tasks {
         useJUnitPlatform()
     }
 
+    check {
+        // Keep the benchmarks compilable (they are executed only on demand, with the 'jmh' task).
+        dependsOn("jmhClasses")
+    }
+
     jar {
         archiveBaseName.set(project.extra["APP_NAME"] as String)
         manifest {
@@ -0,0 +1,152 @@
+package dsk.anotex;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup benchmark of the distribution. It runs the single document extraction in new JVM (like the
+ * program launcher does) many times and measures the time to the first output (the annotations are
+ * written) and the total time. The runs without and with the class data sharing archive of the
+ * distribution are compared. JMH is not used, since the measured thing is the JVM startup itself.
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>StartupBenchmark &lt;distributionDir&gt; &lt;inputFile&gt; [runs] [reportFile]</pre>
+ */
+public class StartupBenchmark {
+    protected static final String MAIN_CLASS = "dsk.anotex.ConsoleRunner";
+    protected static final String OUTPUT_MESSAGE = "Annotations extracted to:";
+    protected static final int WARMUP_RUNS = 2;
+
+    protected File distDir;
+    protected String inputFile;
+    protected int runs;
+
+    /**
+     * Constructor with specified parameters.
+     * @param distDir Application distribution directory.
+     * @param inputFile Input document.
+     * @param runs Number of measured runs (per variant).
+     */
+    public StartupBenchmark(File distDir, String inputFile, int runs) {
+        super();
+        this.distDir = distDir;
+        this.inputFile = new File(inputFile).getAbsolutePath();
+        this.runs = runs;
+    }
+
+    /**
+     * Execute the benchmark.
+     * @return The report.
+     */
+    public String execute() {
+        String java = System.getProperty("java.home") + "/bin/java";
+        String archive = "library/" + Constants.APP_NAME + ".jsa";
+        if (!new File(distDir, archive).isFile()) {
+            String message = String.format("Class data sharing archive '%s' does not exist", archive);
+            throw new IllegalArgumentException(message);
+        }
+        String cp = "program" + File.pathSeparator + "library/*";
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Startup time of '%s' (%d runs)%n", new File(inputFile).getName(), runs));
+        report.append(String.format("%-30s %15s %15s%n", "Variant", "First output ms", "Total ms"));
+        measure("default", report, java, "-cp", cp);
+        measure("class data sharing archive", report, java, "-XX:SharedArchiveFile=" + archive,
+            "-cp", "library/*");
+        return report.toString();
+    }
+
+    /**
+     * Measure single variant of the program start.
+     * @param name Variant name.
+     * @param report Where to append the result.
+     * @param command JVM command (without the main class and the arguments).
+     */
+    protected void measure(String name, StringBuilder report, String... command) {
+        List<String> args = new ArrayList<>(Arrays.asList(command));
+        File outputFile = new File(System.getProperty("java.io.tmpdir"), "startup-benchmark.md");
+        args.addAll(List.of(MAIN_CLASS, "-input", inputFile, "-output", outputFile.getPath()));
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(args);
+        } //
+        long[] firstOutput = new long[runs];
+        long[] total = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] times = run(args);
+            firstOutput[i] = times[0];
+            total[i] = times[1];
+        } //
+        report.append(String.format("%-30s %15.1f %15.1f%n", name, median(firstOutput) / 1e6,
+            median(total) / 1e6));
+        outputFile.delete();
+    }
+
+    /**
+     * Run the program once.
+     * @param args Command line.
+     * @return Time to the first output and total time (in nanoseconds).
+     */
+    protected long[] run(List<String> args) {
+        long startTime = System.nanoTime();
+        long firstOutput = -1;
+        try {
+            Process process = new ProcessBuilder(args)
+                .directory(distDir)
+                .redirectErrorStream(true)
+                .start();
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if ((firstOutput < 0) && line.startsWith(OUTPUT_MESSAGE)) {
+                        firstOutput = System.nanoTime() - startTime;
+                    }
+                } //
+            }
+            if ((process.waitFor() != 0) || (firstOutput < 0)) {
+                throw new IllegalStateException("Extraction failed: " + String.join(" ", args));
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return new long[] {firstOutput, System.nanoTime() - startTime};
+    }
+
+    protected static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Execution entry point.
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: StartupBenchmark <distributionDir> <inputFile> [runs] [reportFile]");
+            return;
+        }
+        int runs = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        String report = new StartupBenchmark(new File(args[0]), args[1], runs).execute();
+        System.out.print(report);
+        if (args.length > 3) {
+            File reportFile = new File(args[3]);
+            reportFile.getAbsoluteFile().getParentFile().mkdirs();
+            Files.writeString(reportFile.toPath(), report, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package dsk.anotex.core;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Memory footprint of the annotation lists. It measures the retained heap per annotation for list of
+ * annotation objects (the former document model) and for {@link AnnotationList}. JMH is not used,
+ * since the measured thing is the heap occupancy, not time.
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>AnnotationMemoryFootprint [annotations] [textLength]</pre>
+ */
+public class AnnotationMemoryFootprint {
+    protected static final String[] WORDS = {
+        "annotation", "book", "chapter", "document", "highlight", "idea", "knowledge", "of", "the", "and",
+    };
+
+    protected int count;
+    protected int textLength;
+
+    /**
+     * Constructor with specified parameters.
+     * @param count Number of annotations.
+     * @param textLength Average annotation text length.
+     */
+    public AnnotationMemoryFootprint(int count, int textLength) {
+        super();
+        this.count = count;
+        this.textLength = textLength;
+    }
+
+    /**
+     * Execute the measurement.
+     * @return The report.
+     */
+    public String execute() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Memory per annotation (%d annotations, text length %d)%n", count,
+            textLength));
+        report.append(String.format("%-30s %12s %12s%n", "List", "Bytes", "Without text"));
+        // The text alone (as compact UTF-8 bytes).
+        long textBytes = 0;
+        for (Annotation annotation : createList(LinkedList::new)) {
+            textBytes += annotation.getText().length();
+        } //
+        measure("LinkedList<Annotation>", () -> createList(LinkedList::new), textBytes, report);
+        measure("AnnotationList", () -> {
+            AnnotationList list = (AnnotationList) createList(AnnotationList::new);
+            list.trimToSize();
+            return list;
+        }, textBytes, report);
+        return report.toString();
+    }
+
+    /**
+     * Measure single list implementation.
+     * @param name List name.
+     * @param factory Creator of the filled list.
+     * @param textBytes Total length of the texts.
+     * @param report Where to append the result.
+     */
+    protected void measure(String name, Supplier<List<Annotation>> factory, long textBytes,
+            StringBuilder report) {
+        long before = usedMemory();
+        List<Annotation> list = factory.get();
+        long bytes = usedMemory() - before;
+        report.append(String.format("%-30s %12.1f %12.1f%n", name, (double) bytes / list.size(),
+            (double) (bytes - textBytes) / list.size()));
+    }
+
+    /**
+     * Create list of annotations, as the importer does.
+     * @param factory Creator of empty list.
+     * @return The filled list.
+     */
+    protected List<Annotation> createList(Supplier<List<Annotation>> factory) {
+        List<Annotation> list = factory.get();
+        Random random = new Random(3);
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            while (text.length() < textLength) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            } //
+            Annotation annotation = new Annotation(text.toString().trim());
+            annotation.setType(AnnotationType.HIGHLIGHT);
+            annotation.setPage(1 + i / 10);
+            annotation.setRectangle(random.nextFloat() * 500, random.nextFloat() * 800, 400, 12);
+            list.add(annotation);
+        } //
+        return list;
+    }
+
+    protected static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        } //
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Execution entry point.
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 500000;
+        int textLength = (args.length > 1) ? Integer.parseInt(args[1]) : 80;
+        System.out.print(new AnnotationMemoryFootprint(count, textLength).execute());
+    }
+}
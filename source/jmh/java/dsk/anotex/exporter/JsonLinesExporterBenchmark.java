@@ -0,0 +1,84 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JSON Lines export of large (synthetic) annotated documents. The output is encoded
+ * to UTF-8 (like for the output file), and 'writeOutput' writes the same output text as baseline - the
+ * export should not be much slower than the writing of its result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonLinesExporterBenchmark {
+    @Param({"1000", "100000"})
+    public int annotationCount;
+
+    protected JsonLinesExporter exporter;
+    protected AnnotatedDocument document;
+    protected String text;
+
+    @Setup
+    public void setup() {
+        exporter = new JsonLinesExporter();
+        document = new AnnotatedDocument();
+        document.setTitle("Synthetic document");
+        document.setSubject("Benchmark");
+        document.setPageCount(annotationCount / 10 + 1);
+        for (int i = 0; i < annotationCount; i++) {
+            Annotation annotation = new Annotation("Highlighted sentence number " + i
+                + ", long enough to look like the real annotation text.");
+            annotation.setType(AnnotationType.HIGHLIGHT);
+            annotation.setPage(1 + i / 10);
+            annotation.setRectangle(72, 700 - (i % 10) * 60.5f, 451.3f, 11.8f);
+            document.getAnnotations().add(annotation);
+        } //
+        StringWriter output = new StringWriter();
+        exporter.export(document, new HashMap<>(), output);
+        text = output.toString();
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        Writer output = createOutput();
+        exporter.export(document, new HashMap<>(), output);
+        output.flush();
+    }
+
+    @Benchmark
+    public void writeOutput() throws IOException {
+        Writer output = createOutput();
+        output.write(text);
+        output.flush();
+    }
+
+    protected Writer createOutput() {
+        return new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8));
+    }
+}
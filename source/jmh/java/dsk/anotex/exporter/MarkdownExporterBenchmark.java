@@ -0,0 +1,70 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the Markdown export of large (synthetic) annotated documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkdownExporterBenchmark {
+    @Param({"1000", "100000"})
+    public int annotationCount;
+
+    protected MarkdownExporter exporter;
+    protected AnnotatedDocument document;
+
+    @Setup
+    public void setup() {
+        exporter = new MarkdownExporter();
+        document = new AnnotatedDocument();
+        document.setTitle("Synthetic document");
+        document.setSubject("Benchmark");
+        document.setKeywords(Arrays.asList("one", "two", "three"));
+        List<Annotation> annotations = new ArrayList<>(annotationCount);
+        for (int i = 0; i < annotationCount; i++) {
+            annotations.add(new Annotation("Highlighted sentence number " + i
+                + ", long enough to look like the real annotation text."));
+        } //
+        document.setAnnotations(annotations);
+    }
+
+    @Benchmark
+    public String convert() {
+        return exporter.convert(document);
+    }
+
+    @Benchmark
+    public void streamingExport() {
+        AnnotationListener export = exporter.createStreamingExport(new HashMap<>(), Writer.nullWriter());
+        export.documentStarted(document);
+        for (Annotation annotation : document.getAnnotations()) {
+            export.annotationFound(annotation);
+        } //
+        export.documentFinished(document);
+    }
+}
@@ -0,0 +1,63 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.exporter.BinaryExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of reading the annotations back from the binary format, compared to their extraction from
+ * the original test documents (work/testing).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryAnnotationImporterBenchmark {
+    @Param({"Test_Pdf_1", "Test_Pdf_5", "Test_Pdf_7"})
+    public String document;
+
+    protected PdfAnnotationImporter pdfImporter;
+    protected BinaryAnnotationImporter binaryImporter;
+    protected String fileName;
+    protected byte[] content;
+    protected Map<String, Object> context;
+
+    @Setup
+    public void setup() {
+        pdfImporter = new PdfAnnotationImporter();
+        binaryImporter = new BinaryAnnotationImporter();
+        fileName = new File("work/testing", document + ".pdf").getAbsolutePath();
+        context = new HashMap<>();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BinaryExporter().export(pdfImporter.readAnnotations(fileName, context), context, output);
+        content = output.toByteArray();
+    }
+
+    @Benchmark
+    public AnnotatedDocument readPdf() {
+        return pdfImporter.readAnnotations(fileName, context);
+    }
+
+    @Benchmark
+    public AnnotatedDocument readBinary() {
+        return binaryImporter.readAnnotations(content, context);
+    }
+}
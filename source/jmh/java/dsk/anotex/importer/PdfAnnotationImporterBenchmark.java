@@ -0,0 +1,54 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.Constants;
+import dsk.anotex.core.AnnotatedDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of reading annotations from the test documents (work/testing).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfAnnotationImporterBenchmark {
+    @Param({"Test_Pdf_1", "Test_Pdf_2", "Test_Pdf_3", "Test_Pdf_5", "Test_Pdf_6", "Test_Pdf_7"})
+    public String document;
+
+    @Param({Constants.EXTRACTION_PER_PAGE, Constants.EXTRACTION_PER_ANNOTATION})
+    public String extractionMode;
+
+    protected PdfAnnotationImporter importer;
+    protected String fileName;
+    protected Map<String, Object> context;
+
+    @Setup
+    public void setup() {
+        importer = new PdfAnnotationImporter();
+        fileName = new File("work/testing", document + ".pdf").getAbsolutePath();
+        context = new HashMap<>();
+        context.put(Constants.EXTRACTION_MODE, extractionMode);
+    }
+
+    @Benchmark
+    public AnnotatedDocument readAnnotations() {
+        return importer.readAnnotations(fileName, context);
+    }
+}
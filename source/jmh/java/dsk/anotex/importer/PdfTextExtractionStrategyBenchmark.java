@@ -0,0 +1,125 @@
+package dsk.anotex.importer;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.canvas.parser.filter.TextRegionEventFilter;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.FilteredTextEventListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the text extraction from dense page (many lines of small text), with many highlighted
+ * areas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfTextExtractionStrategyBenchmark {
+    protected static final int LINES = 80;
+    protected static final float FONT_SIZE = 7;
+    protected static final float LEADING = 9;
+    protected static final float MARGIN = 30;
+
+    @Param({"10", "50"})
+    public int highlightCount;
+
+    protected PdfDocument pdfDocument;
+    protected PdfPage page;
+    protected Rectangle[] areas;
+
+    @Setup
+    public void setup() throws IOException {
+        pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(createDensePage())));
+        page = pdfDocument.getPage(1);
+        // Highlight every line with some step (the areas cover single line each).
+        areas = new Rectangle[highlightCount];
+        float top = PageSize.A4.getHeight() - MARGIN;
+        for (int i = 0; i < highlightCount; i++) {
+            int line = (i * LINES / highlightCount);
+            float baseline = top - line * LEADING;
+            areas[i] = new Rectangle(MARGIN, baseline - 2, 300, LEADING);
+        } //
+    }
+
+    @TearDown
+    public void tearDown() {
+        pdfDocument.close();
+    }
+
+    @Benchmark
+    public String extractPage() {
+        PdfTextExtractionStrategy strategy = new PdfTextExtractionStrategy(page.getPageSize());
+        return PdfTextExtractor.getTextFromPage(page, strategy);
+    }
+
+    @Benchmark
+    public void extractPerAnnotation(Blackhole blackhole) {
+        for (Rectangle area : areas) {
+            PdfTextExtractionStrategy strategy = new PdfTextExtractionStrategy(area);
+            FilteredTextEventListener textFilter = new FilteredTextEventListener(strategy,
+                new TextRegionEventFilter(area));
+            blackhole.consume(PdfTextExtractor.getTextFromPage(page, textFilter));
+        } //
+    }
+
+    @Benchmark
+    public void extractPerPage(Blackhole blackhole) {
+        PdfPageGlyphs pageGlyphs = new PdfPageGlyphs(page);
+        for (Rectangle area : areas) {
+            blackhole.consume(pageGlyphs.extractText(area));
+        } //
+    }
+
+    /**
+     * Create PDF document with single page, full of small text.
+     * @return The document content.
+     */
+    protected byte[] createDensePage() {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (PdfDocument document = new PdfDocument(new PdfWriter(buf))) {
+            PdfCanvas canvas = new PdfCanvas(document.addNewPage(PageSize.A4));
+            canvas.beginText()
+                .setFontAndSize(PdfFontFactory.createFont(StandardFonts.HELVETICA), FONT_SIZE)
+                .setLeading(LEADING)
+                .moveText(MARGIN, PageSize.A4.getHeight() - MARGIN);
+            for (int i = 0; i < LINES; i++) {
+                canvas.showText(String.format("Line %d: the quick brown fox jumps over the lazy dog, then"
+                    + " it runs away from the page number %d of the document.", i, i % 7))
+                    .newlineText();
+            } //
+            canvas.endText();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.toByteArray();
+    }
+}
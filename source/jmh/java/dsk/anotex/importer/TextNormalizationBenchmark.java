@@ -0,0 +1,59 @@
+package dsk.anotex.importer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the annotation text normalization - the single pass normalizer against the reference
+ * (regular expression based) implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormalizationBenchmark {
+    // Typical texts, as returned by the extraction strategy.
+    protected static final String[] TEXTS = {
+        "e. The quick  brown fox\tjumps over\n the lazy dog. T",
+        "“Every highlighted sentence should be   extracted without the pollution characters.”",
+        "Short",
+        "a Text\twith\ttabs, because it is\taligned on both sides of the page column and it is quite long"
+            + " (as the highlights often span several lines of the text). x",
+    };
+
+    protected PdfAnnotationImporter importer;
+
+    @Setup
+    public void setup() {
+        importer = new PdfAnnotationImporter();
+    }
+
+    @Benchmark
+    public void normalizeText(Blackhole blackhole) {
+        for (String text : TEXTS) {
+            blackhole.consume(importer.normalizeText(text, true));
+        } //
+    }
+
+    @Benchmark
+    public void normalizeTextReference(Blackhole blackhole) {
+        for (String text : TEXTS) {
+            String st = importer.normalizeHighlightedText(text);
+            st = importer.stripUnwantedChunks(st);
+            blackhole.consume(importer.removePollutionChars(st));
+        } //
+    }
+}
@@ -0,0 +1,86 @@
+package dsk.anotex.index;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the index queries. The index contains generated documents (10000 documents with 50
+ * annotations of 12 words from vocabulary of 20000 words).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationIndexBenchmark {
+    protected static final int DOCUMENTS = 10000;
+    protected static final int ANNOTATIONS = 50;
+    protected static final int WORDS = 12;
+    protected static final int VOCABULARY = 20000;
+
+    // Rare term, frequent term, two terms, metadata with term and prefix.
+    @Param({"w19999", "w1", "w1 w2", "author7 w3", "w123*"})
+    public String query;
+
+    protected File dir;
+    protected AnnotationIndex index;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("index").toFile();
+        index = new AnnotationIndex(dir);
+        Random random = new Random(1);
+        for (int doc = 0; doc < DOCUMENTS; doc++) {
+            AnnotatedDocument document = new AnnotatedDocument();
+            document.setTitle("Document " + doc);
+            document.setAuthor("Author" + (doc % 100));
+            for (int i = 0; i < ANNOTATIONS; i++) {
+                StringBuilder text = new StringBuilder();
+                for (int w = 0; w < WORDS; w++) {
+                    // Skewed word frequencies (like in natural text).
+                    int word = (int) Math.min(VOCABULARY - 1, Math.abs(random.nextGaussian()) * VOCABULARY / 4);
+                    text.append('w').append(word).append(' ');
+                } //
+                Annotation annotation = new Annotation(text.toString());
+                annotation.setPage(1 + i / 5);
+                document.getAnnotations().add(annotation);
+            } //
+            index.addDocument("document" + doc + ".pdf", document);
+        } //
+        index.commit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.close();
+        for (File file : dir.listFiles()) {
+            file.delete();
+        } //
+        dir.delete();
+    }
+
+    @Benchmark
+    public List<QueryMatch> search() {
+        return index.search(query, 20);
+    }
+}
@@ -1,31 +1,56 @@
 package dsk.anotex;
 
+import dsk.anotex.cache.AnnotationCache;
 import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
 import dsk.anotex.core.FileFormat;
 import dsk.anotex.exporter.AnnotationExporter;
 import dsk.anotex.exporter.ExporterFactory;
 import dsk.anotex.importer.AnnotationImporter;
 import dsk.anotex.importer.ImporterFactory;
+import dsk.anotex.index.AnnotationIndex;
+import dsk.anotex.monitoring.DocumentExtractionEvent;
+import dsk.anotex.monitoring.Metrics;
+import dsk.anotex.util.SettingsUtil;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
 
 /**
  * Document annotation extractor.
  */
 public class AnnotationExtractor {
-    protected Map<String, FileFormat> formats;
+    // Created on first use. Use getFormats().
+    protected volatile Map<String, FileFormat> formats;
+    protected AnnotationCache cache;
+    protected AnnotationIndex index;
 
     public AnnotationExtractor() {
         super();
-        formats = getKnownFileFormats();
     }
 
     /**
@@ -37,30 +62,251 @@ public class AnnotationExtractor {
      * @return The name of the created output file.
      */
     public String extractAnnotations(String inputFile, Map<String, Object> settings, String outputFile) {
+        if (SettingsUtil.getBoolean(settings, Constants.STREAMING, false) && (cache == null) && (index == null)) {
+            return streamAnnotations(inputFile, settings, outputFile);
+        }
+
         // Extract the annotations.
-        AnnotatedDocument document = readAnnotations(inputFile);
+        AnnotatedDocument document = readAnnotations(inputFile, settings);
+        return exportAnnotations(document, inputFile, settings, outputFile);
+    }
 
-        // Get appropriate exporter.
-        String sFormat = (String) settings.get(Constants.EXPORT_FORMAT);
-        FileFormat exportFormat = FileFormat.getByName(sFormat);
-        if (sFormat == null) {
-            // Use the default export format.
-            exportFormat = getDefaultExportFormat();
+    /**
+     * Export already extracted annotations to file. If several export formats are given, the document
+     * is exported to all of them concurrently (see {@link #getOutputFiles(String, Map, String)}).
+     * @param document The annotated document.
+     * @param inputFile Input file name (the document origin).
+     * @param settings Additional export settings.
+     * @param outputFile Output file name. If null - default will be used. If the output file already
+     * exists, it will be overwritten.
+     * @return The name of the created output file (the first one, if there are several export formats).
+     */
+    public String exportAnnotations(AnnotatedDocument document, String inputFile, Map<String, Object> settings,
+            String outputFile) {
+        // Get appropriate exporters (before anything is written).
+        List<AnnotationExporter> exporters = createExporters(settings);
+        List<String> outputFiles = getOutputFiles(inputFile, settings, outputFile);
+
+        // Write the outputs.
+        if (exporters.size() == 1) {
+            exportToFile(document, settings, exporters.getFirst(), outputFiles.getFirst());
+        }
+        else {
+            exportConcurrently(document, settings, exporters, outputFiles);
         }
-        AnnotationExporter exporter = ExporterFactory.createExporter(exportFormat);
+        return outputFiles.getFirst();
+    }
 
-        // Write the output.
-        if (outputFile == null) {
-            // Use default output file.
-            outputFile = inputFile + exportFormat.getExtension();
+    /**
+     * Get the output files of the extraction - one for every export format. If the output file name is
+     * given and there are several export formats, its extension is replaced with the extension of every
+     * format (for example 'book.md' gives 'book.md' and 'book.jsonl' for Markdown and JsonLines formats).
+     * @param inputFile Input file name.
+     * @param settings Additional export settings.
+     * @param outputFile Output file name. If null - default will be used.
+     * @return The output file names (in the order of the export formats).
+     */
+    public List<String> getOutputFiles(String inputFile, Map<String, Object> settings, String outputFile) {
+        List<FileFormat> exportFormats = getExportFormats(settings);
+        List<String> outputFiles = new ArrayList<>(exportFormats.size());
+        String baseName = outputFile;
+        if ((outputFile != null) && (exportFormats.size() > 1)) {
+            String extension = getFileExtension(outputFile);
+            for (FileFormat format : exportFormats) {
+                if (format.getExtension().equals(extension)) {
+                    baseName = outputFile.substring(0, outputFile.length() - extension.length());
+                    break;
+                }
+            } //
         }
-        try (Writer output = getOutputWriter(outputFile)) {
+        for (FileFormat format : exportFormats) {
+            if (outputFile == null) {
+                // Use default output file.
+                outputFiles.add(inputFile + format.getExtension());
+            }
+            else if (exportFormats.size() == 1) {
+                outputFiles.add(outputFile);
+            }
+            else {
+                outputFiles.add(baseName + format.getExtension());
+            }
+        } //
+        return outputFiles;
+    }
+
+    /**
+     * Export annotated document to single file.
+     * @param document The annotated document.
+     * @param settings Additional export settings.
+     * @param exporter The exporter.
+     * @param outputFile Output file name.
+     */
+    protected void exportToFile(AnnotatedDocument document, Map<String, Object> settings,
+            AnnotationExporter exporter, String outputFile) {
+        long startTime = System.nanoTime();
+        long exportTime;
+        try (OutputStream output = getOutputStream(outputFile)) {
+            long exportStart = System.nanoTime();
             exporter.export(document, settings, output);
+            exportTime = System.nanoTime() - exportStart;
         }
         catch (IOException e) {
             throw new RuntimeException("Extraction error", e);
         }
-        return outputFile;
+        // The rest is opening and closing (flushing) of the output file.
+        Metrics.EXPORT.record(exportTime / 1e9);
+        Metrics.WRITE.record((System.nanoTime() - startTime - exportTime) / 1e9);
+    }
+
+    /**
+     * Export annotated document to several files at once. Every export runs in its own (virtual) thread
+     * and writes its own buffered output. If any export fails, all the outputs are deleted.
+     * @param document The annotated document.
+     * @param settings Additional export settings.
+     * @param exporters The exporters.
+     * @param outputFiles Output file names (one for every exporter).
+     */
+    protected void exportConcurrently(AnnotatedDocument document, Map<String, Object> settings,
+            List<AnnotationExporter> exporters, List<String> outputFiles) {
+        // Create the lazily initialized parts, before the document is shared by the threads.
+        document.getKeywords();
+        document.getAnnotations();
+        RuntimeException error = null;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> exports = new ArrayList<>();
+            for (int i = 1; i < exporters.size(); i++) {
+                AnnotationExporter exporter = exporters.get(i);
+                String outputFile = outputFiles.get(i);
+                exports.add(executor.submit(() -> exportToFile(document, settings, exporter, outputFile)));
+            } //
+            // The first export runs in the current thread.
+            try {
+                exportToFile(document, settings, exporters.getFirst(), outputFiles.getFirst());
+            }
+            catch (RuntimeException e) {
+                error = e;
+            }
+            for (Future<?> export : exports) {
+                try {
+                    export.get();
+                }
+                catch (ExecutionException e) {
+                    if (error == null) {
+                        error = (e.getCause() instanceof RuntimeException cause) ? cause
+                            : new RuntimeException("Extraction error", e.getCause());
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (error == null) {
+                        error = new RuntimeException("Extraction interrupted", e);
+                    }
+                }
+            } //
+        }
+        if (error != null) {
+            // Do not leave incomplete outputs.
+            for (String outputFile : outputFiles) {
+                new File(outputFile).delete();
+            } //
+            throw error;
+        }
+    }
+
+    /**
+     * Extract annotations from file and write every annotation to the output as soon as it is read.
+     * The memory usage does not depend on the number of annotations. Note that the cache and the document
+     * post-processing are not used in this mode (the complete document is never available).
+     * @param inputFile Input file name.
+     * @param settings Additional export settings.
+     * @param outputFile Output file name. If null - default will be used. If the output file already
+     * exists, it will be overwritten.
+     * @return The name of the created output file.
+     */
+    public String streamAnnotations(String inputFile, Map<String, Object> settings, String outputFile) {
+        FileFormat format = detectFileFormat(inputFile);
+        AnnotationImporter importer = ImporterFactory.createImporter(format);
+        List<AnnotationExporter> exporters = createExporters(settings);
+        List<String> outputFiles = getOutputFiles(inputFile, settings, outputFile);
+        if (!new File(inputFile).isFile()) {
+            String message = String.format("File '%s' does not exist", new File(inputFile).getName());
+            throw new IllegalArgumentException(message);
+        }
+
+        boolean completed = false;
+        List<OutputStream> outputs = new ArrayList<>(exporters.size());
+        try {
+            // Every annotation is passed to all the exports.
+            List<AnnotationListener> exports = new ArrayList<>(exporters.size());
+            for (int i = 0; i < exporters.size(); i++) {
+                OutputStream output = getOutputStream(outputFiles.get(i));
+                outputs.add(output);
+                exports.add(exporters.get(i).createStreamingExport(settings, output));
+            } //
+            importer.readAnnotations(inputFile, settings, new AnnotationListener() {
+                private int annotations;
+
+                @Override
+                public void documentStarted(AnnotatedDocument document) {
+                    for (AnnotationListener export : exports) {
+                        export.documentStarted(document);
+                    } //
+                }
+
+                @Override
+                public void annotationFound(Annotation annotation) {
+                    annotations++;
+                    for (AnnotationListener export : exports) {
+                        export.annotationFound(annotation);
+                    } //
+                }
+
+                @Override
+                public void documentFinished(AnnotatedDocument document) {
+                    for (AnnotationListener export : exports) {
+                        export.documentFinished(document);
+                    } //
+                    Metrics.recordDocument(document.getPageCount(), annotations);
+                }
+            });
+            closeOutputs(outputs);
+            completed = true;
+        }
+        finally {
+            if (!completed) {
+                try {
+                    closeOutputs(outputs);
+                }
+                catch (RuntimeException e) {
+                    // The original failure is more important.
+                }
+                // Do not leave incomplete output.
+                for (String file : outputFiles) {
+                    new File(file).delete();
+                } //
+            }
+        }
+        return outputFiles.getFirst();
+    }
+
+    /**
+     * Close output streams.
+     * @param outputs The streams.
+     */
+    protected void closeOutputs(List<OutputStream> outputs) {
+        IOException error = null;
+        for (OutputStream output : outputs) {
+            try {
+                output.close();
+            }
+            catch (IOException e) {
+                error = (error == null) ? e : error;
+            }
+        } //
+        outputs.clear();
+        if (error != null) {
+            throw new RuntimeException("Extraction error", error);
+        }
     }
 
     /**
@@ -69,13 +315,301 @@ public class AnnotationExtractor {
      * @return Document annotations.
      */
     public AnnotatedDocument readAnnotations(String fileName) {
+        return readAnnotations(fileName, new HashMap<>());
+    }
+
+    /**
+     * Read annotations from given document file.
+     * @param fileName Document file name.
+     * @param settings Additional import settings.
+     * @return Document annotations.
+     */
+    public AnnotatedDocument readAnnotations(String fileName, Map<String, Object> settings) {
+        DocumentExtractionEvent event = new DocumentExtractionEvent();
+        event.begin();
+        AnnotatedDocument document = null;
+        if ((cache != null) && new File(fileName).isFile()) {
+            document = cache.get(fileName, settings);
+        }
+        boolean cached = (document != null);
+        if (document == null) {
+            FileFormat format = detectFileFormat(fileName);
+            AnnotationImporter importer = ImporterFactory.createImporter(format);
+            document = importer.readAnnotations(fileName, settings);
+            postProcess(document);
+        }
+        storeDocument(fileName, settings, document, cached);
+        recordDocument(document, event, fileName, new File(fileName).length(), cached);
+        return document;
+    }
+
+    /**
+     * Read annotations from given document file and pass every annotation to listener as soon as it is
+     * read. Cached document is passed at once. Newly read document is post-processed and stored to the
+     * cache and the index when complete (before the listener is notified about the document end), but the
+     * listener receives the annotations before the post-processing.
+     * @param fileName Document file name.
+     * @param settings Additional import settings.
+     * @param listener Receiver of the annotations.
+     */
+    public void readAnnotations(String fileName, Map<String, Object> settings, AnnotationListener listener) {
+        DocumentExtractionEvent event = new DocumentExtractionEvent();
+        event.begin();
+        AnnotatedDocument cachedDocument = null;
+        if ((cache != null) && new File(fileName).isFile()) {
+            cachedDocument = cache.get(fileName, settings);
+        }
+        if (cachedDocument != null) {
+            listener.documentStarted(cachedDocument);
+            for (Annotation annotation : cachedDocument.getAnnotations()) {
+                listener.annotationFound(annotation);
+            } //
+            storeDocument(fileName, settings, cachedDocument, true);
+            recordDocument(cachedDocument, event, fileName, new File(fileName).length(), true);
+            listener.documentFinished(cachedDocument);
+            return;
+        }
         FileFormat format = detectFileFormat(fileName);
         AnnotationImporter importer = ImporterFactory.createImporter(format);
-        AnnotatedDocument document = importer.readAnnotations(fileName);
+        List<Annotation> annotations = new ArrayList<>();
+        importer.readAnnotations(fileName, settings, new AnnotationListener() {
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                listener.documentStarted(document);
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                annotations.add(annotation);
+                listener.annotationFound(annotation);
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                document.setAnnotations(annotations);
+                postProcess(document);
+                storeDocument(fileName, settings, document, false);
+                recordDocument(document, event, fileName, new File(fileName).length(), false);
+                listener.documentFinished(document);
+            }
+        });
+    }
+
+    /**
+     * Store read document to the cache (unless it comes from there) and to the index. Incomplete (degraded)
+     * document is not stored - it would be kept also after the budget is raised, and the index keeps the
+     * previous (complete) version.
+     * @param fileName Document file name.
+     * @param settings Import settings.
+     * @param document The document.
+     * @param cached Whether the document comes from the cache.
+     */
+    protected void storeDocument(String fileName, Map<String, Object> settings, AnnotatedDocument document,
+            boolean cached) {
+        if (document.isDegraded()) {
+            return;
+        }
+        if ((cache != null) && !cached) {
+            cache.put(fileName, settings, document);
+        }
+        if (index != null) {
+            index.addDocument(new File(fileName).getAbsolutePath(), document);
+        }
+    }
+
+    /**
+     * Read annotations from given document file asynchronously.
+     * @param fileName Document file name.
+     * @param settings Additional import settings.
+     * @param executor Executor for the reading (like virtual thread per task executor).
+     * @return Future document annotations. It completes exceptionally if the reading fails.
+     */
+    public CompletableFuture<AnnotatedDocument> readAnnotationsAsync(String fileName, Map<String, Object> settings,
+            Executor executor) {
+        Map<String, Object> copy = new HashMap<>(settings);
+        return CompletableFuture.supplyAsync(() -> readAnnotations(fileName, copy), executor);
+    }
+
+    /**
+     * Create publisher of the annotations of given document file. The subscribers receive the annotations
+     * while the document is being read (page by page), as they request them (see {@link AnnotationPublisher}).
+     * The cache and the index are used like in {@link #readAnnotations(String, Map, AnnotationListener)}.
+     * @param fileName Document file name.
+     * @param settings Additional import settings.
+     * @param executor Executor for the reading and the delivery (any executor, even single thread one).
+     * @return The publisher.
+     */
+    public Flow.Publisher<Annotation> publishAnnotations(String fileName, Map<String, Object> settings,
+            Executor executor) {
+        FileFormat format = detectFileFormat(fileName);
+        if (!ImporterFactory.isSupported(format)) {
+            String message = String.format("Unsupported import format '%s'", format);
+            throw new IllegalArgumentException(message);
+        }
+        if (!new File(fileName).isFile()) {
+            String message = String.format("File '%s' does not exist", new File(fileName).getName());
+            throw new IllegalArgumentException(message);
+        }
+        return new AnnotationPublisher(this, fileName, settings, executor);
+    }
+
+    /**
+     * Read annotations from document content (in memory).
+     * @param content Document content.
+     * @param format Document format.
+     * @param settings Additional import settings.
+     * @return Document annotations.
+     */
+    public AnnotatedDocument readAnnotations(byte[] content, FileFormat format, Map<String, Object> settings) {
+        DocumentExtractionEvent event = new DocumentExtractionEvent();
+        event.begin();
+        AnnotationImporter importer = ImporterFactory.createImporter(format);
+        AnnotatedDocument document = importer.readAnnotations(content, settings);
         postProcess(document);
+        recordDocument(document, event, null, content.length, false);
         return document;
     }
 
+    /**
+     * Export annotated document to given output.
+     * @param document The annotated document.
+     * @param settings Additional export settings.
+     * @param output Where to write the output.
+     */
+    public void exportAnnotations(AnnotatedDocument document, Map<String, Object> settings, Writer output) {
+        AnnotationExporter exporter = ExporterFactory.createExporter(getExportFormat(settings));
+        long startTime = System.nanoTime();
+        exporter.export(document, settings, output);
+        Metrics.EXPORT.recordSince(startTime);
+    }
+
+    /**
+     * Export annotated document to given binary output (this works for all export formats).
+     * @param document The annotated document.
+     * @param settings Additional export settings.
+     * @param output Where to write the output.
+     */
+    public void exportAnnotations(AnnotatedDocument document, Map<String, Object> settings,
+            OutputStream output) {
+        AnnotationExporter exporter = ExporterFactory.createExporter(getExportFormat(settings));
+        long startTime = System.nanoTime();
+        exporter.export(document, settings, output);
+        Metrics.EXPORT.recordSince(startTime);
+    }
+
+    /**
+     * Get the cache for the extraction results.
+     * @return The cache or null (if caching is not used).
+     */
+    public AnnotationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Set cache for the extraction results. If set, unchanged documents will not be parsed again.
+     * @param cache The cache (null to disable caching).
+     */
+    public void setCache(AnnotationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get the index of the extracted documents.
+     * @return The index or null (if indexing is not used).
+     */
+    public AnnotationIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Set index for the extracted documents. If set, every document read from file is added to it (replacing
+     * its previous version), unless its extraction is incomplete (degraded). The changes are searchable after {@link AnnotationIndex#commit()}.
+     * @param index The index (null to disable indexing).
+     */
+    public void setIndex(AnnotationIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Check if annotations can be read from given file (judging by its name).
+     * @param fileName Document file name.
+     * @return True if the file format is supported.
+     */
+    public boolean isSupportedInput(String fileName) {
+        return ImporterFactory.isSupported(detectFileFormat(fileName));
+    }
+
+    /**
+     * Record the metrics and the flight recorder event of extracted document.
+     * @param document The document.
+     * @param event Started document event.
+     * @param fileName Document file name (null if not read from file).
+     * @param size Document size (in bytes).
+     * @param cached True if the document was taken from the cache.
+     */
+    protected void recordDocument(AnnotatedDocument document, DocumentExtractionEvent event, String fileName,
+            long size, boolean cached) {
+        Metrics.recordDocument(document.getPageCount(), document.getAnnotations().size());
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.size = size;
+            event.pages = document.getPageCount();
+            event.annotations = document.getAnnotations().size();
+            event.cached = cached;
+            event.commit();
+        }
+    }
+
+    /**
+     * Get the export format, specified in the settings (the first one, if there are several).
+     * @param settings Export settings.
+     * @return Export format.
+     */
+    protected FileFormat getExportFormat(Map<String, Object> settings) {
+        return getExportFormats(settings).getFirst();
+    }
+
+    /**
+     * Get the export formats, specified in the settings. The setting value can be format name, comma
+     * separated list of format names or collection of format names (or formats).
+     * @param settings Export settings.
+     * @return Export formats (at least one, without duplicates).
+     */
+    protected List<FileFormat> getExportFormats(Map<String, Object> settings) {
+        Object value = settings.get(Constants.EXPORT_FORMAT);
+        if (value == null) {
+            // Use the default export format.
+            return List.of(getDefaultExportFormat());
+        }
+        Collection<?> names = (value instanceof Collection<?> c) ? c : Arrays.asList(value.toString().split(","));
+        Set<FileFormat> exportFormats = new LinkedHashSet<>();
+        for (Object name : names) {
+            FileFormat format = (name instanceof FileFormat f) ? f : FileFormat.getByName(name.toString().trim());
+            if (format == null) {
+                String message = String.format("Unsupported export format '%s'", name);
+                throw new IllegalArgumentException(message);
+            }
+            exportFormats.add(format);
+        } //
+        if (exportFormats.isEmpty()) {
+            exportFormats.add(getDefaultExportFormat());
+        }
+        return new ArrayList<>(exportFormats);
+    }
+
+    /**
+     * Create exporters for all export formats, specified in the settings.
+     * @param settings Export settings.
+     * @return The exporters (in the order of the formats).
+     */
+    protected List<AnnotationExporter> createExporters(Map<String, Object> settings) {
+        List<AnnotationExporter> exporters = new ArrayList<>();
+        for (FileFormat format : getExportFormats(settings)) {
+            exporters.add(ExporterFactory.createExporter(format));
+        } //
+        return exporters;
+    }
+
     /**
      * Get the default export format.
      * @return Export format.
@@ -90,6 +624,15 @@ public class AnnotationExtractor {
      * @return Output writer.
      */
     protected Writer getOutputWriter(String outputFile) {
+        return new BufferedWriter(new OutputStreamWriter(getOutputStream(outputFile), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get output stream for specified output file.
+     * @param outputFile Output file name.
+     * @return Buffered output stream.
+     */
+    protected OutputStream getOutputStream(String outputFile) {
         File outFile = new File(outputFile);
 
         // Create necessary directories fore the output path.
@@ -98,16 +641,15 @@ public class AnnotationExtractor {
             outFileDir.mkdirs();
         }
 
-        // Crate buffered file writer.
-        Writer writer;
+        // Crate buffered file stream.
+        OutputStream output;
         try {
-            writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(outFile.toPath()),
-                StandardCharsets.UTF_8));
+            output = new BufferedOutputStream(Files.newOutputStream(outFile.toPath()), 64 * 1024);
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return writer;
+        return output;
     }
 
     /**
@@ -121,7 +663,7 @@ public class AnnotationExtractor {
         // But this one is good enough, since the associated importer will parse the file anyway and will
         // detect if the file format is wrong (for example, PNG file, renamed with PDF extension).
         String extension = getFileExtension(fileName);
-        return formats.get(extension);
+        return getFormats().get(extension);
     }
 
     /**
@@ -140,6 +682,19 @@ public class AnnotationExtractor {
         return ret;
     }
 
+    /**
+     * Get the mapping between file extensions and the known file formats (create it on first use).
+     * @return The mapping.
+     */
+    protected Map<String, FileFormat> getFormats() {
+        Map<String, FileFormat> ret = formats;
+        if (ret == null) {
+            ret = getKnownFileFormats();
+            formats = ret;
+        }
+        return ret;
+    }
+
     /**
      * Create mapping between file extensions and the known file formats.
      * @return The mapping.
@@ -148,6 +703,8 @@ public class AnnotationExtractor {
         TreeMap<String, FileFormat> mapping = new TreeMap<>();
         mapping.put(FileFormat.PDF.getExtension(), FileFormat.PDF);
         mapping.put(FileFormat.MARKDOWN.getExtension(), FileFormat.MARKDOWN);
+        mapping.put(FileFormat.BINARY.getExtension(), FileFormat.BINARY);
+        mapping.put(FileFormat.JSON_LINES.getExtension(), FileFormat.JSON_LINES);
         return mapping;
     }
 
@@ -0,0 +1,262 @@
+package dsk.anotex;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of the annotations of single document file. The document is read once (at the first
+ * subscription, in a task of the given executor) with
+ * {@link AnnotationExtractor#readAnnotations(String, Map, AnnotationListener)} - so the cache and the index
+ * apply. The annotations are emitted page by page, as soon as their page is read, and they are kept for the
+ * later subscribers.
+ * <p>
+ * The reading never waits for the subscribers - the read annotations are buffered and every subscription
+ * delivers them as its demand allows. The delivery is done by the reading task itself (when new annotations
+ * are read) or by a task of the executor (when more annotations are requested), so any executor can be used,
+ * including single thread one. The subscriber methods are never called concurrently.
+ * </p>
+ */
+public class AnnotationPublisher implements Flow.Publisher<Annotation> {
+    protected AnnotationExtractor extractor;
+    protected String fileName;
+    protected Map<String, Object> settings;
+    protected Executor executor;
+    protected List<AnnotationSubscription> subscriptions;
+
+    // Guarded by this.
+    protected List<Annotation> annotations;
+    protected boolean started;
+    protected boolean completed;
+    protected Throwable error;
+
+    /**
+     * Constructor with specified parameters.
+     * @param extractor Extractor for reading the document.
+     * @param fileName Document file name.
+     * @param settings Additional import settings.
+     * @param executor Executor for reading the document and delivering the annotations.
+     */
+    public AnnotationPublisher(AnnotationExtractor extractor, String fileName, Map<String, Object> settings,
+            Executor executor) {
+        super();
+        this.extractor = extractor;
+        this.fileName = fileName;
+        this.settings = new HashMap<>(settings);
+        this.executor = executor;
+        this.subscriptions = new CopyOnWriteArrayList<>();
+        this.annotations = new ArrayList<>();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Annotation> subscriber) {
+        Objects.requireNonNull(subscriber);
+        AnnotationSubscription subscription = new AnnotationSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        boolean start;
+        synchronized (this) {
+            start = !started;
+            started = true;
+        }
+        if (start) {
+            try {
+                executor.execute(this::read);
+            }
+            catch (RejectedExecutionException e) {
+                finish(e);
+            }
+        }
+        // Already read annotations (or the end) can be delivered at once.
+        subscription.schedule();
+    }
+
+    /**
+     * Read the document and deliver the annotations to the subscriptions.
+     */
+    protected void read() {
+        try {
+            extractor.readAnnotations(fileName, settings, new AnnotationListener() {
+                @Override
+                public void documentStarted(AnnotatedDocument document) {
+                }
+
+                @Override
+                public void annotationFound(Annotation annotation) {
+                    synchronized (AnnotationPublisher.this) {
+                        annotations.add(annotation);
+                    }
+                    deliverAll();
+                }
+
+                @Override
+                public void documentFinished(AnnotatedDocument document) {
+                }
+            });
+            finish(null);
+        }
+        catch (Throwable e) {
+            finish(e);
+        }
+    }
+
+    /**
+     * Mark the reading as complete.
+     * @param failure Reading error or null (successfully read).
+     */
+    protected void finish(Throwable failure) {
+        synchronized (this) {
+            completed = true;
+            error = failure;
+        }
+        deliverAll();
+    }
+
+    /**
+     * Deliver the read annotations to all subscriptions (in the current thread).
+     */
+    protected void deliverAll() {
+        for (AnnotationSubscription subscription : subscriptions) {
+            subscription.drain();
+        } //
+    }
+
+    /**
+     * Subscription of single subscriber. The deliveries are serialized with the work counter - only the
+     * thread which increments it from zero delivers, and it continues until the counter drops to zero again.
+     */
+    protected class AnnotationSubscription implements Flow.Subscription, Runnable {
+        protected Flow.Subscriber<? super Annotation> subscriber;
+        protected AtomicLong demand;
+        protected AtomicInteger work;
+        protected volatile boolean cancelled;
+        protected volatile Throwable requestError;
+        // Accessed by the delivering thread only.
+        protected int next;
+
+        /**
+         * Constructor with specified parameters.
+         * @param subscriber The subscriber.
+         */
+        protected AnnotationSubscription(Flow.Subscriber<? super Annotation> subscriber) {
+            super();
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.work = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Requested number of annotations must be positive");
+            }
+            else {
+                demand.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return (sum < 0) ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Deliver in a task of the executor, unless the delivery is running already.
+         */
+        protected void schedule() {
+            if (work.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                }
+                catch (RejectedExecutionException e) {
+                    cancel();
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        /**
+         * Deliver in the current thread, unless the delivery is running already.
+         */
+        protected void drain() {
+            if (work.getAndIncrement() == 0) {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                deliver();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Deliver the requested annotations, which are read already, and the end of the document.
+         */
+        protected void deliver() {
+            while (!cancelled) {
+                if (requestError != null) {
+                    cancel();
+                    subscriber.onError(requestError);
+                    return;
+                }
+                Annotation annotation = null;
+                boolean done;
+                Throwable failure;
+                synchronized (AnnotationPublisher.this) {
+                    if (next < annotations.size()) {
+                        annotation = annotations.get(next);
+                    }
+                    done = completed;
+                    failure = error;
+                }
+                if (failure != null) {
+                    cancel();
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (annotation == null) {
+                    if (done) {
+                        cancel();
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                if (demand.get() == 0) {
+                    return;
+                }
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                next++;
+                try {
+                    subscriber.onNext(annotation);
+                }
+                catch (Throwable e) {
+                    // Broken subscriber - it gets nothing more.
+                    cancel();
+                }
+            } //
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package dsk.anotex;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.exporter.ExporterFactory;
+import dsk.anotex.importer.ImporterFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Annotation extractor for many documents (corpus). The documents are processed by fixed number
+ * of worker threads, sharing single {@link AnnotationExtractor}. Failure of one document does not
+ * stop the processing of the others.
+ */
+public class BatchExtractor {
+    protected AnnotationExtractor extractor;
+    protected int threads;
+    protected List<ShardedOutput> aggregateOutputs;
+
+    /**
+     * Constructor with specified parameters.
+     * @param extractor Annotation extractor (must be thread safe).
+     * @param threads Number of worker threads.
+     */
+    public BatchExtractor(AnnotationExtractor extractor, int threads) {
+        super();
+        this.extractor = extractor;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Get the aggregate outputs.
+     * @return The outputs or null (if the output of every file is written next to it).
+     */
+    public List<ShardedOutput> getAggregateOutputs() {
+        return aggregateOutputs;
+    }
+
+    /**
+     * Set aggregate outputs. If set, the documents are appended to the shard files of these outputs
+     * (one output for every export format), instead of writing the output of every file next to it.
+     * The outputs are not closed by the batch.
+     * @param aggregateOutputs The outputs (null to write the output of every file next to it).
+     */
+    public void setAggregateOutputs(List<ShardedOutput> aggregateOutputs) {
+        this.aggregateOutputs = aggregateOutputs;
+    }
+
+    /**
+     * Find the input files for the batch.
+     * @param inputs Input directories, files or glob patterns (like 'books/**.pdf'). Directories are
+     * searched recursively for supported files.
+     * @return Found input file names (sorted).
+     */
+    public List<String> findInputFiles(List<String> inputs) {
+        List<String> files = new ArrayList<>();
+        for (String input : inputs) {
+            File file = new File(input);
+            if (file.isFile()) {
+                files.add(file.getPath());
+            }
+            else if (file.isDirectory()) {
+                collectFiles(file.toPath(), null, files);
+            }
+            else {
+                // Glob pattern - search from the directory preceding the first wildcard.
+                collectFiles(getBaseDirectory(input), FileSystems.getDefault().getPathMatcher("glob:" + input),
+                    files);
+            }
+        } //
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Extract annotations from given files. The output of every file is written next to it (or to the
+     * aggregate outputs, if they are set).
+     * @param inputFiles Input file names.
+     * @param settings Additional export settings.
+     * @return Batch execution result.
+     */
+    public BatchResult extractAnnotations(List<String> inputFiles, Map<String, Object> settings) {
+        BatchResult result = new BatchResult();
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (String inputFile : inputFiles) {
+                executor.execute(() -> extractAnnotations(inputFile, settings, result));
+            } //
+        }
+        finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    // Still working.
+                } //
+            }
+            catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - startTime;
+        return result;
+    }
+
+    /**
+     * Extract annotations from single file of the batch.
+     * @param inputFile Input file name.
+     * @param settings Additional export settings.
+     * @param result Batch result to update.
+     */
+    protected void extractAnnotations(String inputFile, Map<String, Object> settings, BatchResult result) {
+        try {
+            AnnotatedDocument document = extractor.readAnnotations(inputFile, settings);
+            if (aggregateOutputs != null) {
+                for (ShardedOutput output : aggregateOutputs) {
+                    output.write(inputFile, document);
+                } //
+            }
+            else {
+                extractor.exportAnnotations(document, inputFile, settings, null);
+            }
+            result.documents.incrementAndGet();
+            result.pages.addAndGet(document.getPageCount());
+            result.annotations.addAndGet(document.getAnnotations().size());
+        }
+        catch (Throwable e) {
+            // Also errors like StackOverflowError of pathological document - the other files can be extracted.
+            result.addFailure(inputFile, e);
+            if ((e instanceof VirtualMachineError) && !(e instanceof StackOverflowError)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Collect the supported files from directory tree (see {@link #isCollectedFile(String)}).
+     * @param dir Directory to search.
+     * @param matcher Additional file name matcher (null means any supported file).
+     * @param files Where to put the found files.
+     */
+    protected void collectFiles(Path dir, PathMatcher matcher, List<String> files) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.filter(Files::isRegularFile)
+                .filter(p -> (matcher == null) || matcher.matches(p))
+                .map(Path::toString)
+                .filter(this::isCollectedFile)
+                .forEach(files::add);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Check if file found in directory tree should be extracted. The files of the export formats are skipped,
+     * since they can be outputs of previous extraction (written next to the documents or aggregate shards).
+     * Such files are extracted only when they are named explicitly.
+     * @param fileName The file name.
+     * @return True if it is supported document.
+     */
+    protected boolean isCollectedFile(String fileName) {
+        FileFormat format = extractor.detectFileFormat(fileName);
+        return ImporterFactory.isSupported(format) && !ExporterFactory.isSupported(format);
+    }
+
+    /**
+     * Get the directory part of a glob pattern, which does not contain wildcards.
+     * @param pattern Glob pattern.
+     * @return Base directory.
+     */
+    protected Path getBaseDirectory(String pattern) {
+        int wildcard = 0;
+        while ((wildcard < pattern.length()) && ("*?[{".indexOf(pattern.charAt(wildcard)) < 0)) {
+            wildcard++;
+        } //
+        int separator = Math.max(pattern.lastIndexOf('/', wildcard),
+            pattern.lastIndexOf(File.separatorChar, wildcard));
+        String base = "";
+        if (separator > 0) {
+            base = pattern.substring(0, separator);
+        }
+        else if (separator == 0) {
+            base = pattern.substring(0, 1);
+        }
+        return Paths.get(base);
+    }
+
+    /**
+     * Result of batch extraction.
+     */
+    public static class BatchResult {
+        protected AtomicLong documents = new AtomicLong();
+        protected AtomicLong pages = new AtomicLong();
+        protected AtomicLong annotations = new AtomicLong();
+        protected Map<String, String> failures = new LinkedHashMap<>();
+        protected long elapsedNanos;
+
+        public long getDocuments() {
+            return documents.get();
+        }
+
+        public long getPages() {
+            return pages.get();
+        }
+
+        public long getAnnotations() {
+            return annotations.get();
+        }
+
+        public synchronized Map<String, String> getFailures() {
+            return new LinkedHashMap<>(failures);
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getDocumentsPerSecond() {
+            return perSecond(getDocuments());
+        }
+
+        public double getPagesPerSecond() {
+            return perSecond(getPages());
+        }
+
+        /**
+         * Register failed document.
+         * @param inputFile Input file name.
+         * @param error The failure reason.
+         */
+        protected synchronized void addFailure(String inputFile, Throwable error) {
+            Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+            failures.put(inputFile, (cause.getMessage() != null) ? cause.getMessage() : cause.toString());
+        }
+
+        /**
+         * Get summary of the batch execution.
+         * @return The summary.
+         */
+        public String getSummary() {
+            return String.format("Documents: %d, failed: %d, pages: %d, annotations: %d, time: %.2f s, "
+                    + "throughput: %.2f docs/s, %.2f pages/s", getDocuments(), getFailures().size(),
+                getPages(), getAnnotations(), elapsedNanos / 1e9, getDocumentsPerSecond(), getPagesPerSecond());
+        }
+
+        protected double perSecond(long count) {
+            return (elapsedNanos > 0) ? count * 1e9 / elapsedNanos : 0;
+        }
+    }
+}
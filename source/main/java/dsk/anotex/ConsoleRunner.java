@@ -1,9 +1,22 @@
 package dsk.anotex;
 
+import dsk.anotex.cache.AnnotationCache;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.importer.ExtractionBudget;
+import dsk.anotex.index.AnnotationIndex;
+import dsk.anotex.index.QueryMatch;
+import dsk.anotex.monitoring.MetricsRegistry;
 import dsk.anotex.util.CommandLineParser;
 
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Console runner for the application.
@@ -12,8 +25,44 @@ public class ConsoleRunner {
     // Recognized command line arguments.
     public static final String ARG_INPUT = "input";
     public static final String ARG_OUTPUT = "output";
+    public static final String ARG_PARALLEL = "parallel";
+    public static final String ARG_PAGES = "pages";
+    public static final String ARG_BATCH = "batch";
+    public static final String ARG_THREADS = "threads";
+    public static final String ARG_CACHE = "cache";
+    public static final String ARG_CACHE_SIZE = "cacheSize";
+    public static final String ARG_STREAMING = "streaming";
+    public static final String ARG_METRICS = "metrics";
+    public static final String ARG_SERVER = "server";
+    public static final String ARG_CONCURRENCY = "concurrency";
+    public static final String ARG_ROOTS = "roots";
+    public static final String ARG_WATCH = "watch";
+    public static final String ARG_DEBOUNCE = "debounce";
+    public static final String ARG_FORMAT = "format";
+    public static final String ARG_AGGREGATE = "aggregate";
+    public static final String ARG_SHARD_SIZE = "shardSize";
+    public static final String ARG_SHARD_DOCUMENTS = "shardDocuments";
+    public static final String ARG_INDEX = "index";
+    public static final String ARG_QUERY = "query";
+    public static final String ARG_LIMIT = "limit";
+    public static final String ARG_PAGE_TIME_LIMIT = "pageTimeLimit";
+    public static final String ARG_PAGE_OPERATOR_LIMIT = "pageOperatorLimit";
+    public static final String ARG_DOCUMENT_TIME_LIMIT = "documentTimeLimit";
+    public static final String ARG_DOCUMENT_OPERATOR_LIMIT = "documentOperatorLimit";
     public static final String ARG_HELP = "help";
 
+    // Default cache size limit (MB).
+    protected static final int DEFAULT_CACHE_SIZE = 512;
+    // Default maximal number of the printed query matches.
+    protected static final int DEFAULT_QUERY_LIMIT = 20;
+
+    protected AnnotationCache cache;
+    protected AnnotationIndex index;
+    // Aggregate output of the batch extraction (null to write the output of every document next to it).
+    protected File aggregateDir;
+    protected long maxShardSize;
+    protected int maxShardDocuments;
+
     /**
      * Execute annotation extraction from file.
      * @param inputFile Input file name.
@@ -22,8 +71,187 @@ public class ConsoleRunner {
      */
     public void doExtract(String inputFile, Map<String, Object> settings, String outputFile) {
         printMessage(String.format("Reading input document: '%s'", inputFile));
-        String outFile = new AnnotationExtractor().extractAnnotations(inputFile, settings, outputFile);
-        printMessage(String.format("Annotations extracted to: '%s'", outFile));
+        AnnotationExtractor extractor = createExtractor();
+        extractor.extractAnnotations(inputFile, settings, outputFile);
+        for (String outFile : extractor.getOutputFiles(inputFile, settings, outputFile)) {
+            printMessage(String.format("Annotations extracted to: '%s'", outFile));
+        } //
+    }
+
+    /**
+     * Execute annotation extraction from many files.
+     * @param inputs Input directories, files or glob patterns.
+     * @param settings Additional export settings.
+     * @param threads Number of worker threads.
+     * @return Batch execution result.
+     */
+    public BatchExtractor.BatchResult doBatchExtract(List<String> inputs, Map<String, Object> settings,
+            int threads) {
+        AnnotationExtractor extractor = createExtractor();
+        BatchExtractor batch = new BatchExtractor(extractor, threads);
+        List<String> inputFiles = batch.findInputFiles(inputs);
+        List<ShardedOutput> outputs = new ArrayList<>();
+        if (aggregateDir != null) {
+            for (FileFormat format : extractor.getExportFormats(settings)) {
+                outputs.add(new ShardedOutput(aggregateDir, ShardedOutput.DEFAULT_BASE_NAME, format, settings,
+                    maxShardSize, maxShardDocuments));
+            } //
+            batch.setAggregateOutputs(outputs);
+        }
+        printMessage(String.format("Reading %d input documents with %d threads", inputFiles.size(), threads));
+        BatchExtractor.BatchResult result;
+        try {
+            result = batch.extractAnnotations(inputFiles, settings);
+        }
+        finally {
+            for (ShardedOutput output : outputs) {
+                output.close();
+                printMessage(String.format("Annotations aggregated to: '%s'", output.getManifestFile()));
+            } //
+        }
+        for (Map.Entry<String, String> failure : result.getFailures().entrySet()) {
+            printError(String.format("Failed: '%s' (%s)", failure.getKey(), failure.getValue()));
+        } //
+        printMessage(result.getSummary());
+        return result;
+    }
+
+    /**
+     * Write the batch extraction results to shard files, instead of writing the output of every document
+     * next to it.
+     * @param dir Output directory.
+     * @param maxShardSize Maximal shard size (in bytes).
+     * @param maxShardDocuments Maximal number of documents in shard.
+     */
+    public void useAggregateOutput(String dir, long maxShardSize, int maxShardDocuments) {
+        this.aggregateDir = new File(dir);
+        this.maxShardSize = maxShardSize;
+        this.maxShardDocuments = maxShardDocuments;
+    }
+
+    /**
+     * Use persistent cache for the extraction results.
+     * @param cacheDir Cache directory.
+     * @param maxSize Maximal cache size (in bytes).
+     */
+    public void useCache(String cacheDir, long maxSize) {
+        cache = new AnnotationCache(new File(cacheDir), maxSize);
+    }
+
+    /**
+     * Save the cache state (if cache is used).
+     */
+    public void saveCache() {
+        if (cache != null) {
+            cache.save();
+        }
+    }
+
+    /**
+     * Add the extracted documents to full text index.
+     * @param indexDir Index directory.
+     */
+    public void useIndex(String indexDir) {
+        index = new AnnotationIndex(new File(indexDir));
+    }
+
+    /**
+     * Save the index changes and close it (if index is used).
+     */
+    public void saveIndex() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    /**
+     * Search the annotations in the index and print the matches.
+     * @param query The query (see {@link AnnotationIndex#search(String, int)}).
+     * @param limit Maximal number of the matches.
+     * @return The matches.
+     */
+    public List<QueryMatch> doQuery(String query, int limit) {
+        if (index == null) {
+            throw new IllegalStateException("Index is not used");
+        }
+        long startTime = System.nanoTime();
+        List<QueryMatch> matches = index.search(query, limit);
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        for (QueryMatch match : matches) {
+            printMessage(String.format("'%s' page %d: %s", match.getPath(), match.getPage(), match.getText()));
+        } //
+        printMessage(String.format("Found %d annotations in %d documents (%.2f ms)", matches.size(),
+            matches.stream().map(QueryMatch::getPath).distinct().count(), millis));
+        return matches;
+    }
+
+    /**
+     * Start extraction server (on the loopback interface). The server keeps running until the program
+     * is stopped.
+     * @param port Server port.
+     * @param settings Default extraction settings.
+     * @param concurrency Maximal number of concurrently executed extractions.
+     * @param roots Directories, whose files can be extracted by path (empty to disable the extraction by path).
+     * @return The started server.
+     */
+    public ExtractionServer startServer(int port, Map<String, Object> settings, int concurrency,
+            List<File> roots) {
+        ExtractionServer server = new ExtractionServer(createExtractor(), settings, concurrency);
+        server.setRoots(roots);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        printMessage(String.format("Extraction server listening on: http://%s:%d/extract (%d concurrent"
+            + " extractions)", server.getAddress().getHostString(), server.getAddress().getPort(), concurrency));
+        return server;
+    }
+
+    /**
+     * Create watcher of input directories, reporting every extraction to the console. Call
+     * {@link FolderWatcher#run()} to process the changes.
+     * @param dirs Directories to watch (with their subdirectories).
+     * @param settings Additional export settings.
+     * @param debounceMillis Time without changes (in milliseconds), after which the document is extracted.
+     * @return The watcher.
+     */
+    public FolderWatcher createWatcher(List<String> dirs, Map<String, Object> settings, long debounceMillis) {
+        FolderWatcher watcher = new FolderWatcher(createExtractor(), settings, debounceMillis) {
+            @Override
+            protected void fileExtracted(String inputFile, String outputFile) {
+                if (index != null) {
+                    // Make the re-extracted document searchable.
+                    index.commit();
+                }
+                printMessage(String.format("Annotations extracted to: '%s'", outputFile));
+            }
+
+            @Override
+            protected void fileFailed(String inputFile, Exception error) {
+                Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+                printError(String.format("Failed: '%s' (%s)", inputFile, cause.getMessage()));
+            }
+        };
+        watcher.watch(dirs);
+        printMessage(String.format("Watching %d directories for changed documents", dirs.size()));
+        return watcher;
+    }
+
+    /**
+     * Write the collected metrics to file.
+     * @param fileName Output file name ('.json' extension for JSON, Prometheus text format otherwise).
+     */
+    public void dumpMetrics(String fileName) {
+        MetricsRegistry.getDefault().dump(fileName);
+        printMessage(String.format("Metrics written to: '%s'", fileName));
+    }
+
+    /**
+     * Create annotation extractor.
+     * @return The extractor.
+     */
+    protected AnnotationExtractor createExtractor() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        extractor.setCache(cache);
+        extractor.setIndex(index);
+        return extractor;
     }
 
     /**
@@ -63,10 +291,91 @@ public class ConsoleRunner {
             + "where:\n"
             + "<inputFile> = input file name.\n"
             + "<outputFile> = output file name (optional).\n"
+            + String.format("DyAnnotationExtractor -%s <inputs> -%s <n>\n", ARG_BATCH, ARG_THREADS)
+            + "where:\n"
+            + String.format("<inputs> = directories, files or glob patterns, separated with '%s'.\n",
+                File.pathSeparator)
+            + "<n> = number of worker threads (optional, default is the number of processors).\n"
+            + String.format("-%s <dir> : Append the outputs of all documents to shard files in <dir> (with"
+                + " manifest of the document positions).\n", ARG_AGGREGATE)
+            + String.format("-%s <n> : Shard size limit in MB (default is %d).\n", ARG_SHARD_SIZE,
+                ShardedOutput.DEFAULT_MAX_SHARD_SIZE / 1024 / 1024)
+            + String.format("-%s <n> : Maximal number of documents in shard (default is %d).\n",
+                ARG_SHARD_DOCUMENTS, ShardedOutput.DEFAULT_MAX_SHARD_DOCUMENTS)
+            + String.format("DyAnnotationExtractor -%s <port> -%s <n>\n", ARG_SERVER, ARG_CONCURRENCY)
+            + "where:\n"
+            + "<port> = local HTTP port. POST the document to /extract, to get the annotations.\n"
+            + "<n> = maximal number of concurrent extractions (optional, default is the number of processors).\n"
+            + String.format("-%s <dirs> : Allow extraction of local files under <dirs> (GET /extract?path=<file>),"
+                + " separated with '%s'.\n", ARG_ROOTS, File.pathSeparator)
+            + String.format("DyAnnotationExtractor -%s <dirs> -%s <ms>\n", ARG_WATCH, ARG_DEBOUNCE)
+            + "where:\n"
+            + String.format("<dirs> = directories to watch for changed documents, separated with '%s'.\n",
+                File.pathSeparator)
+            + String.format("<ms> = time without changes, before the document is extracted (optional, default"
+                + " is %d).\n", FolderWatcher.DEFAULT_DEBOUNCE_MILLIS)
+            + String.format("DyAnnotationExtractor -%s <terms> -%s <dir> -%s <n>\n", ARG_QUERY, ARG_INDEX, ARG_LIMIT)
+            + "where:\n"
+            + "<terms> = words, which must be in the annotation or its document metadata ('word*' for prefix).\n"
+            + "<dir> = index directory.\n"
+            + String.format("<n> = maximal number of the printed annotations (optional, default is %d).\n",
+                DEFAULT_QUERY_LIMIT)
             + "additional arguments:\n"
+            + String.format("-%s <n> : Extract the pages of the document with <n> parallel threads.\n",
+                ARG_PARALLEL)
+            + String.format("-%s <range> : Extract only the given pages (for example '1-5,8,12-').\n",
+                ARG_PAGES)
+            + String.format("-%s <ms> : Stop parsing page content after this time (default is %d, 0 for no limit)."
+                + " The highlights of such page get only their /Contents text.\n", ARG_PAGE_TIME_LIMIT,
+                ExtractionBudget.DEFAULT_PAGE_TIME_LIMIT)
+            + String.format("-%s <n> : Stop parsing page content after this number of operators (default is %d).\n",
+                ARG_PAGE_OPERATOR_LIMIT, ExtractionBudget.DEFAULT_PAGE_OPERATOR_LIMIT)
+            + String.format("-%s <ms> : Time limit of parsing all document pages (default is %d, 0 for no limit).\n",
+                ARG_DOCUMENT_TIME_LIMIT, ExtractionBudget.DEFAULT_DOCUMENT_TIME_LIMIT)
+            + String.format("-%s <n> : Operator limit of all document pages (default is %d).\n",
+                ARG_DOCUMENT_OPERATOR_LIMIT, ExtractionBudget.DEFAULT_DOCUMENT_OPERATOR_LIMIT)
+            + String.format("-%s <dir> : Cache the extraction results in <dir> (unchanged documents are not"
+                + " parsed again).\n", ARG_CACHE)
+            + String.format("-%s <n> : Cache size limit in MB (default is %d).\n", ARG_CACHE_SIZE,
+                DEFAULT_CACHE_SIZE)
+            + String.format("-%s <dir> : Add the extracted documents to full text index in <dir> (re-extracted"
+                + " documents replace their previous version).\n", ARG_INDEX)
+            + String.format("-%s <name> : Output formats, separated with ',' - Markdown (default), JsonLines or"
+                + " Binary. The document is read once for all of them.\n", ARG_FORMAT)
+            + String.format("-%s : Write the annotations as soon as they are read (less memory for huge"
+                + " documents, the cache is not used).\n", ARG_STREAMING)
+            + String.format("-%s <file> : Write the extraction metrics to <file> (JSON for '.json' extension,"
+                + " Prometheus text format otherwise).\n", ARG_METRICS)
             + String.format("-%s : Prints the supported command line arguments.\n", ARG_HELP);
     }
 
+    /**
+     * Check the value of numeric command line argument (if it is specified).
+     * @param parser Command line parser.
+     * @param name Argument name.
+     * @param min Minimal allowed value.
+     * @param max Maximal allowed value.
+     * @throws IllegalArgumentException If the value is not a number or it is out of the range.
+     */
+    protected static void checkNumber(CommandLineParser parser, String name, int min, int max) {
+        if (!parser.hasArgument(name)) {
+            return;
+        }
+        String value = parser.getArgumentValue(name);
+        long number;
+        try {
+            number = Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            number = Long.MIN_VALUE;
+        }
+        if ((number < min) || (number > max)) {
+            String message = String.format("Invalid value of -%s: '%s' (expected number from %d to %d)",
+                name, value, min, max);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
     /**
      * Execution entry point.
      * @param args Command line arguments.
@@ -79,15 +388,142 @@ public class ConsoleRunner {
         // Parse the command line.
         CommandLineParser parser = new CommandLineParser(args);
         parser.parseArguments(args);
+        try {
+            checkNumber(parser, ARG_PARALLEL, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_THREADS, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_CACHE_SIZE, 0, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_SERVER, 0, 65535);
+            checkNumber(parser, ARG_CONCURRENCY, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_DEBOUNCE, 0, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_SHARD_SIZE, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_SHARD_DOCUMENTS, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_LIMIT, 1, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_PAGE_TIME_LIMIT, 0, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_PAGE_OPERATOR_LIMIT, 0, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_DOCUMENT_TIME_LIMIT, 0, Integer.MAX_VALUE);
+            checkNumber(parser, ARG_DOCUMENT_OPERATOR_LIMIT, 0, Integer.MAX_VALUE);
+        }
+        catch (IllegalArgumentException e) {
+            runner.printError("Error: " + e.getMessage());
+            runner.printMessage(runner.getHelpMessage());
+            return;
+        }
 
         String inputFile = parser.getArgumentValue(ARG_INPUT);
-        if ((inputFile != null)) {
-            // Holder for additional execution settings.
-            HashMap<String, Object> settings = new HashMap<>();
+        String batchInputs = parser.getArgumentValue(ARG_BATCH);
+        // Holder for additional execution settings.
+        HashMap<String, Object> settings = new HashMap<>();
+        if (parser.hasArgument(ARG_PARALLEL)) {
+            settings.put(Constants.PARALLELISM, parser.getArgumentValue(ARG_PARALLEL));
+        }
+        if (parser.hasArgument(ARG_PAGES)) {
+            settings.put(Constants.PAGE_RANGE, parser.getArgumentValue(ARG_PAGES));
+        }
+        if (parser.hasArgument(ARG_STREAMING)) {
+            settings.put(Constants.STREAMING, true);
+        }
+        if (parser.hasArgument(ARG_FORMAT)) {
+            settings.put(Constants.EXPORT_FORMAT, parser.getArgumentValue(ARG_FORMAT));
+        }
+        if (parser.hasArgument(ARG_PAGE_TIME_LIMIT)) {
+            settings.put(Constants.PAGE_TIME_LIMIT, parser.getArgumentValue(ARG_PAGE_TIME_LIMIT));
+        }
+        if (parser.hasArgument(ARG_PAGE_OPERATOR_LIMIT)) {
+            settings.put(Constants.PAGE_OPERATOR_LIMIT, parser.getArgumentValue(ARG_PAGE_OPERATOR_LIMIT));
+        }
+        if (parser.hasArgument(ARG_DOCUMENT_TIME_LIMIT)) {
+            settings.put(Constants.DOCUMENT_TIME_LIMIT, parser.getArgumentValue(ARG_DOCUMENT_TIME_LIMIT));
+        }
+        if (parser.hasArgument(ARG_DOCUMENT_OPERATOR_LIMIT)) {
+            settings.put(Constants.DOCUMENT_OPERATOR_LIMIT, parser.getArgumentValue(ARG_DOCUMENT_OPERATOR_LIMIT));
+        }
+        String metricsFile = parser.getArgumentValue(ARG_METRICS);
+        String cacheDir = parser.getArgumentValue(ARG_CACHE);
+        if (cacheDir != null) {
+            String sCacheSize = parser.getArgumentValue(ARG_CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE));
+            runner.useCache(cacheDir, Long.parseLong(sCacheSize) * 1024 * 1024);
+        }
+        if (parser.hasArgument(ARG_INDEX)) {
+            runner.useIndex(parser.getArgumentValue(ARG_INDEX));
+        }
+        if (batchInputs != null) {
+            // Execute the batch extraction.
+            List<String> inputs = Arrays.asList(batchInputs.split(Pattern.quote(File.pathSeparator)));
+            if (parser.hasArgument(ARG_AGGREGATE)) {
+                String sShardSize = parser.getArgumentValue(ARG_SHARD_SIZE,
+                    String.valueOf(ShardedOutput.DEFAULT_MAX_SHARD_SIZE / 1024 / 1024));
+                String sShardDocuments = parser.getArgumentValue(ARG_SHARD_DOCUMENTS,
+                    String.valueOf(ShardedOutput.DEFAULT_MAX_SHARD_DOCUMENTS));
+                runner.useAggregateOutput(parser.getArgumentValue(ARG_AGGREGATE),
+                    Long.parseLong(sShardSize) * 1024 * 1024, Integer.parseInt(sShardDocuments));
+            }
+            String sThreads = parser.getArgumentValue(ARG_THREADS,
+                String.valueOf(Runtime.getRuntime().availableProcessors()));
+            runner.doBatchExtract(inputs, settings, Integer.parseInt(sThreads));
+            runner.saveCache();
+            runner.saveIndex();
+            if (metricsFile != null) {
+                runner.dumpMetrics(metricsFile);
+            }
+        }
+        else if (parser.hasArgument(ARG_SERVER)) {
+            // Serve extraction requests until the program is stopped.
+            String sConcurrency = parser.getArgumentValue(ARG_CONCURRENCY,
+                String.valueOf(Runtime.getRuntime().availableProcessors()));
+            List<File> roots = new ArrayList<>();
+            if (parser.hasArgument(ARG_ROOTS)) {
+                for (String dir : parser.getArgumentValue(ARG_ROOTS).split(Pattern.quote(File.pathSeparator))) {
+                    roots.add(new File(dir));
+                } //
+            }
+            ExtractionServer server = runner.startServer(Integer.parseInt(parser.getArgumentValue(ARG_SERVER)),
+                settings, Integer.parseInt(sConcurrency), roots);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop(1);
+                runner.saveCache();
+                runner.saveIndex();
+                if (metricsFile != null) {
+                    runner.dumpMetrics(metricsFile);
+                }
+            }));
+        }
+        else if (parser.hasArgument(ARG_WATCH)) {
+            // Extract the changed documents until the program is stopped.
+            List<String> dirs = Arrays.asList(parser.getArgumentValue(ARG_WATCH)
+                .split(Pattern.quote(File.pathSeparator)));
+            String sDebounce = parser.getArgumentValue(ARG_DEBOUNCE,
+                String.valueOf(FolderWatcher.DEFAULT_DEBOUNCE_MILLIS));
+            FolderWatcher watcher = runner.createWatcher(dirs, settings, Long.parseLong(sDebounce));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                watcher.close();
+                runner.saveCache();
+                runner.saveIndex();
+                if (metricsFile != null) {
+                    runner.dumpMetrics(metricsFile);
+                }
+            }));
+            watcher.run();
+        }
+        else if (parser.hasArgument(ARG_QUERY)) {
+            // Search the index.
+            if (!parser.hasArgument(ARG_INDEX)) {
+                runner.printError(String.format("Error: Missing index directory (-%s)", ARG_INDEX));
+                return;
+            }
+            String sLimit = parser.getArgumentValue(ARG_LIMIT, String.valueOf(DEFAULT_QUERY_LIMIT));
+            runner.doQuery(parser.getArgumentValue(ARG_QUERY), Integer.parseInt(sLimit));
+            runner.saveIndex();
+        }
+        else if ((inputFile != null)) {
             // Retrieve the output file name.
             String outputFile = parser.getArgumentValue(ARG_OUTPUT);
             // Execute the annotation extraction.
             runner.doExtract(inputFile, settings, outputFile);
+            runner.saveCache();
+            runner.saveIndex();
+            if (metricsFile != null) {
+                runner.dumpMetrics(metricsFile);
+            }
         }
         else {
             // Print additional information.
@@ -7,6 +7,29 @@ public class Constants {
     public static final String APP_NAME = "DyAnnotationExtractor";
 
     public static final String EXPORT_FORMAT = "exportFormat";
+    public static final String EXTRACTION_MODE = "extractionMode";
+    public static final String PARALLELISM = "parallelism";
+    public static final String PAGE_RANGE = "pageRange";
+    public static final String STREAMING = "streaming";
+    public static final String BINARY_DICTIONARY = "binaryDictionary";
+    /** Store the imported annotations in compact list (see dsk.anotex.core.AnnotationList). */
+    public static final String COMPACT_ANNOTATIONS = "compactAnnotations";
+
+    // Page content parsing budgets (see dsk.anotex.importer.ExtractionBudget). Zero means no limit.
+    /** Maximal time to parse single page (milliseconds). */
+    public static final String PAGE_TIME_LIMIT = "pageTimeLimit";
+    /** Maximal number of content stream operators of single page. */
+    public static final String PAGE_OPERATOR_LIMIT = "pageOperatorLimit";
+    /** Maximal time to parse the pages of document (milliseconds). */
+    public static final String DOCUMENT_TIME_LIMIT = "documentTimeLimit";
+    /** Maximal number of content stream operators of all document pages. */
+    public static final String DOCUMENT_OPERATOR_LIMIT = "documentOperatorLimit";
+
+    // Highlighted text extraction modes.
+    /** Parse every page content once and extract all page highlights from it (default). */
+    public static final String EXTRACTION_PER_PAGE = "page";
+    /** Parse the page content separately for every highlight. */
+    public static final String EXTRACTION_PER_ANNOTATION = "annotation";
 
     // Prevent instance creation.
     private Constants() {
@@ -0,0 +1,381 @@
+package dsk.anotex;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.monitoring.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP server for annotation extraction. It keeps single (warmed up) {@link AnnotationExtractor},
+ * so the requests do not pay for the JVM startup and the class loading. Every request is handled in
+ * virtual thread and the number of concurrently executed extractions is limited.
+ * <p>
+ * Supported requests:
+ * </p>
+ * <ul>
+ *     <li>POST /extract - the request body is the document content. Query parameters: 'format'
+ *     (input format, default is Pdf) and 'exportFormat' (output format, default is Markdown).</li>
+ *     <li>GET /extract?path=&lt;file&gt; - extract from local file. The 'exportFormat' is supported
+ *     too. Only the files under the allowed root directories can be read (see {@link #setRoots(List)}),
+ *     without roots the request is forbidden.</li>
+ *     <li>GET /metrics - the extraction metrics (Prometheus text format).</li>
+ *     <li>GET /health - returns 'OK'.</li>
+ * </ul>
+ * The response of the extraction is the exported annotations (UTF-8 text, or binary data for the Binary
+ * export format). Invalid requests (like damaged documents) are answered with status 400, and overload
+ * (no free extraction slot in the waiting time) with status 503.
+ * <p>
+ * The request body is read only when the extraction slot is acquired, so the memory used by the request
+ * bodies is limited by the concurrency (times the maximal request size).
+ * </p>
+ */
+public class ExtractionServer {
+    protected static final int DEFAULT_MAX_REQUEST_SIZE = 64 * 1024 * 1024;
+    protected static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    protected AnnotationExtractor extractor;
+    protected Map<String, Object> settings;
+    protected Semaphore slots;
+    protected int maxRequestSize;
+    protected List<Path> roots;
+    protected HttpServer server;
+    protected ExecutorService executor;
+
+    /**
+     * Constructor with specified parameters.
+     * @param extractor Annotation extractor (must be thread safe).
+     * @param settings Default extraction settings (the request parameters are added to them).
+     * @param concurrency Maximal number of concurrently executed extractions.
+     */
+    public ExtractionServer(AnnotationExtractor extractor, Map<String, Object> settings, int concurrency) {
+        super();
+        this.extractor = extractor;
+        this.settings = new HashMap<>(settings);
+        this.slots = new Semaphore(Math.max(1, concurrency), true);
+        this.maxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
+        this.roots = List.of();
+    }
+
+    /**
+     * Start the server.
+     * @param address Address to listen on (use loopback address for local only access).
+     */
+    public void start(InetSocketAddress address) {
+        try {
+            server = HttpServer.create(address, 0);
+        }
+        catch (IOException e) {
+            String message = String.format("Cannot listen on %s", address);
+            throw new IllegalArgumentException(message, e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/extract", this::handleExtract);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/health", this::handleHealth);
+        server.start();
+    }
+
+    /**
+     * Stop the server.
+     * @param delay Maximal time (in seconds) to wait for the running requests.
+     */
+    public void stop(int delay) {
+        if (server != null) {
+            server.stop(delay);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    /**
+     * Get the address the server listens on.
+     * @return Server address.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public void setMaxRequestSize(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Set the directories, whose files can be extracted by path (GET request).
+     * @param dirs Allowed root directories (empty list to forbid the extraction by path).
+     */
+    public void setRoots(List<File> dirs) {
+        List<Path> paths = new ArrayList<>();
+        for (File dir : dirs) {
+            try {
+                paths.add(dir.getCanonicalFile().toPath());
+            }
+            catch (IOException e) {
+                String message = String.format("Invalid directory '%s'", dir);
+                throw new IllegalArgumentException(message, e);
+            }
+        } //
+        roots = paths;
+    }
+
+    /**
+     * Handle extraction request.
+     * @param exchange HTTP exchange.
+     * @throws IOException If the communication fails.
+     */
+    protected void handleExtract(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String path = params.get("path");
+            if (!"POST".equals(method) && !("GET".equals(method) && (path != null))) {
+                sendResponse(exchange, 405, "Use POST with document content or GET with 'path' parameter");
+                return;
+            }
+            if ((path != null) && !isAllowedPath(path)) {
+                sendResponse(exchange, 403, "The file is not under allowed directory");
+                return;
+            }
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if ((path == null) && (length != null) && (parseLength(length) > maxRequestSize)) {
+                sendResponse(exchange, 413, "Document is too large");
+                return;
+            }
+
+            if (!slots.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                sendResponse(exchange, 503, "Server is busy");
+                return;
+            }
+            byte[] result;
+            String contentType;
+            try {
+                // The body is read in the slot (this limits the memory used by the concurrent uploads).
+                byte[] content = null;
+                if (path == null) {
+                    content = readBody(exchange.getRequestBody());
+                    if (content == null) {
+                        sendResponse(exchange, 413, "Document is too large");
+                        return;
+                    }
+                }
+                Map<String, Object> settings = getSettings(params);
+                result = extract(content, path, params, settings);
+                contentType = getContentType(settings);
+            }
+            finally {
+                slots.release();
+            }
+            sendResponse(exchange, 200, contentType, result);
+        }
+        catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, e);
+        }
+        catch (RuntimeException e) {
+            sendError(exchange, 500, e);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Check if the file can be extracted by path - it must be under some of the allowed root directories
+     * (after resolving the symbolic links and the relative parts).
+     * @param path File name.
+     * @return True if allowed.
+     */
+    protected boolean isAllowedPath(String path) {
+        Path file;
+        try {
+            file = new File(path).getCanonicalFile().toPath();
+        }
+        catch (IOException e) {
+            return false;
+        }
+        for (Path root : roots) {
+            if (file.startsWith(root)) {
+                return true;
+            }
+        } //
+        return false;
+    }
+
+    /**
+     * Parse the request content length.
+     * @param length Value of the Content-Length header.
+     * @return The length (-1 if invalid).
+     */
+    protected long parseLength(String length) {
+        try {
+            return Long.parseLong(length.trim());
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the extraction settings of single request.
+     * @param params Request parameters.
+     * @return The settings.
+     */
+    protected Map<String, Object> getSettings(Map<String, String> params) {
+        Map<String, Object> settings = new HashMap<>(this.settings);
+        String exportFormat = params.get(Constants.EXPORT_FORMAT);
+        if (exportFormat != null) {
+            settings.put(Constants.EXPORT_FORMAT, exportFormat);
+        }
+        return settings;
+    }
+
+    /**
+     * Extract annotations for single request.
+     * @param content Document content (null if path is given).
+     * @param path Document file name.
+     * @param params Request parameters.
+     * @param settings Extraction settings.
+     * @return Exported annotations.
+     */
+    protected byte[] extract(byte[] content, String path, Map<String, String> params,
+            Map<String, Object> settings) {
+        AnnotatedDocument document;
+        if (path != null) {
+            if (!new File(path).isFile()) {
+                String message = String.format("File '%s' does not exist", path);
+                throw new IllegalArgumentException(message);
+            }
+            document = extractor.readAnnotations(path, settings);
+        }
+        else {
+            String sFormat = params.getOrDefault("format", FileFormat.PDF.getName());
+            FileFormat format = FileFormat.getByName(sFormat);
+            document = extractor.readAnnotations(content, format, settings);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+        extractor.exportAnnotations(document, settings, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Get the response content type for the export format.
+     * @param settings Extraction settings.
+     * @return Content type.
+     */
+    protected String getContentType(Map<String, Object> settings) {
+        String contentType = "text/plain; charset=utf-8";
+        FileFormat exportFormat = extractor.getExportFormat(settings);
+        if (exportFormat == FileFormat.BINARY) {
+            contentType = "application/octet-stream";
+        }
+        else if (exportFormat == FileFormat.JSON_LINES) {
+            contentType = "application/x-ndjson; charset=utf-8";
+        }
+        return contentType;
+    }
+
+    /**
+     * Handle metrics request.
+     * @param exchange HTTP exchange.
+     * @throws IOException If the communication fails.
+     */
+    protected void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringWriter output = new StringWriter(4096);
+            MetricsRegistry.getDefault().writePrometheus(output);
+            sendResponse(exchange, 200, output.toString());
+        }
+    }
+
+    /**
+     * Handle health check request.
+     * @param exchange HTTP exchange.
+     * @throws IOException If the communication fails.
+     */
+    protected void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sendResponse(exchange, 200, "OK");
+        }
+    }
+
+    /**
+     * Read the request body.
+     * @param input Request body stream.
+     * @return Request body or null (if it is too large).
+     * @throws IOException If reading fails.
+     */
+    protected byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(64 * 1024);
+        byte[] chunk = new byte[64 * 1024];
+        int read;
+        while ((read = input.read(chunk)) > 0) {
+            if (buf.size() + read > maxRequestSize) {
+                return null;
+            }
+            buf.write(chunk, 0, read);
+        } //
+        return buf.toByteArray();
+    }
+
+    protected void sendError(HttpExchange exchange, int status, Exception error) throws IOException {
+        Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+        sendResponse(exchange, status, "Error: " + cause.getMessage());
+    }
+
+    protected void sendResponse(HttpExchange exchange, int status, String body) throws IOException {
+        sendResponse(exchange, status, "text/plain; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected void sendResponse(HttpExchange exchange, int status, String contentType, byte[] bytes)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, (bytes.length > 0) ? bytes.length : -1);
+        if (bytes.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Parse URL query parameters.
+     * @param query Raw query string (can be null).
+     * @return Parameter values.
+     */
+    protected Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                int idx = param.indexOf('=');
+                if (idx > 0) {
+                    params.put(URLDecoder.decode(param.substring(0, idx), StandardCharsets.UTF_8),
+                        URLDecoder.decode(param.substring(idx + 1), StandardCharsets.UTF_8));
+                }
+            } //
+        }
+        return params;
+    }
+}
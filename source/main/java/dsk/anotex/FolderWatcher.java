@@ -0,0 +1,362 @@
+package dsk.anotex;
+
+import dsk.anotex.core.FileFormat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Watcher of input directories for continuous extraction. The directories (with their subdirectories)
+ * are watched with {@link WatchService}, so the directory tree is never scanned again. Every changed
+ * document is extracted once it is complete - no change events came for it in the debounce time and its
+ * size and modification time are stable. Documents with the same size and modification time as on the
+ * last extraction are skipped. The output is written next to the document (like by
+ * {@link AnnotationExtractor#extractAnnotations(String, Map, String)} with default output file).
+ * <p>
+ * The documents, existing when the watching starts, are considered up to date.
+ * </p>
+ */
+public class FolderWatcher implements Closeable {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+    // Wait time for new events, if there are no pending documents.
+    protected static final long IDLE_POLL_MILLIS = 1000;
+
+    protected AnnotationExtractor extractor;
+    protected Map<String, Object> settings;
+    protected long debounceNanos;
+    protected WatchService watchService;
+    protected Map<WatchKey, Path> watchedDirs;
+    // Extensions of the output files (they are not extracted).
+    protected List<String> outputExtensions;
+    // Changed documents, waiting to be complete.
+    protected Map<Path, PendingFile> pendingFiles;
+    // State of the documents on their last extraction.
+    protected Map<Path, FileState> extractedFiles;
+    protected volatile boolean running;
+
+    /**
+     * Constructor with specified parameters.
+     * @param extractor Annotation extractor.
+     * @param settings Additional export settings.
+     * @param debounceMillis Time without changes (in milliseconds), after which the document is
+     * considered complete.
+     */
+    public FolderWatcher(AnnotationExtractor extractor, Map<String, Object> settings, long debounceMillis) {
+        super();
+        this.extractor = extractor;
+        this.settings = settings;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, debounceMillis));
+        this.watchedDirs = new HashMap<>();
+        this.outputExtensions = extractor.getExportFormats(settings).stream()
+            .map(FileFormat::getExtension)
+            .toList();
+        this.pendingFiles = new HashMap<>();
+        this.extractedFiles = new HashMap<>();
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.running = true;
+    }
+
+    /**
+     * Start watching given directories (with their subdirectories).
+     * @param dirs Directory names.
+     */
+    public void watch(List<String> dirs) {
+        for (String dir : dirs) {
+            Path path = new File(dir).getAbsoluteFile().toPath();
+            if (!Files.isDirectory(path)) {
+                String message = String.format("Directory '%s' does not exist", dir);
+                throw new IllegalArgumentException(message);
+            }
+            registerTree(path, false);
+        } //
+    }
+
+    /**
+     * Process the directory changes until the watcher is closed.
+     */
+    public void run() {
+        try {
+            while (running) {
+                long timeout = pendingFiles.isEmpty() ? IDLE_POLL_MILLIS
+                    : Math.max(1, TimeUnit.NANOSECONDS.toMillis(debounceNanos) / 4);
+                WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    processEvents(key);
+                    key = watchService.poll();
+                } //
+                processPendingFiles();
+            } //
+        }
+        catch (ClosedWatchServiceException e) {
+            // Closed while waiting.
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop watching. The currently running extraction is finished first.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Handle the events of single watched directory.
+     * @param key Watch key of the directory.
+     */
+    protected void processEvents(WatchKey key) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Some events are lost - check all the watched directories.
+                for (Path watched : watchedDirs.values()) {
+                    addChangedFiles(watched);
+                } //
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path file = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                pendingFiles.remove(file);
+                extractedFiles.remove(file);
+            }
+            else if (Files.isDirectory(file)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    // The new directory can already contain files.
+                    registerTree(file, true);
+                }
+            }
+            else if (isWatchedFile(file)) {
+                addPendingFile(file);
+            }
+        } //
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+    }
+
+    /**
+     * Extract the pending documents, which are complete.
+     */
+    protected void processPendingFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingFile>> it = pendingFiles.entrySet().iterator();
+        while (it.hasNext() && running) {
+            Map.Entry<Path, PendingFile> entry = it.next();
+            PendingFile pending = entry.getValue();
+            if (now - pending.lastChange < debounceNanos) {
+                continue;
+            }
+            Path file = entry.getKey();
+            FileState state = FileState.of(file);
+            if (state == null) {
+                // Removed meanwhile.
+                it.remove();
+            }
+            else if (!state.equals(pending.state)) {
+                // Still being written.
+                pending.state = state;
+                pending.lastChange = now;
+            }
+            else {
+                it.remove();
+                if (!state.equals(extractedFiles.get(file))) {
+                    extractedFiles.put(file, state);
+                    extract(file.toString());
+                }
+            }
+        } //
+    }
+
+    /**
+     * Extract annotations from changed document.
+     * @param inputFile Input file name.
+     */
+    protected void extract(String inputFile) {
+        try {
+            String outputFile = extractor.extractAnnotations(inputFile, settings, null);
+            fileExtracted(inputFile, outputFile);
+        }
+        catch (Exception e) {
+            fileFailed(inputFile, e);
+        }
+    }
+
+    /**
+     * Called after successful extraction. Override to report the progress.
+     * @param inputFile Input file name.
+     * @param outputFile Output file name.
+     */
+    protected void fileExtracted(String inputFile, String outputFile) {
+        // Nothing by default.
+    }
+
+    /**
+     * Called after failed extraction. The document is tried again only after its next change.
+     * @param inputFile Input file name.
+     * @param error The failure reason.
+     */
+    protected void fileFailed(String inputFile, Exception error) {
+        // Nothing by default.
+    }
+
+    /**
+     * Check if file should be extracted on change. The files of the export formats are skipped, since
+     * they are the outputs of the extraction (otherwise every output would be extracted again).
+     * @param file The file.
+     * @return True if it is supported document.
+     */
+    protected boolean isWatchedFile(Path file) {
+        String fileName = file.toString();
+        String extension = extractor.getFileExtension(fileName);
+        return extractor.isSupportedInput(fileName) && !outputExtensions.contains(extension);
+    }
+
+    /**
+     * Add document to the pending ones (or postpone its extraction, if it is already pending).
+     * @param file Document file.
+     */
+    protected void addPendingFile(Path file) {
+        PendingFile pending = pendingFiles.computeIfAbsent(file, f -> new PendingFile());
+        pending.lastChange = System.nanoTime();
+        pending.state = FileState.of(file);
+    }
+
+    /**
+     * Add the changed documents from directory tree to the pending ones.
+     * @param dir The directory.
+     */
+    protected void addChangedFiles(Path dir) {
+        forEachFile(dir, (file, state) -> {
+            if (!state.equals(extractedFiles.get(file))) {
+                addPendingFile(file);
+            }
+        });
+    }
+
+    /**
+     * Register directory tree for watching.
+     * @param root Root directory of the tree.
+     * @param changed True if the existing documents should be extracted, false if they are up to date.
+     */
+    protected void registerTree(Path root, boolean changed) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> dirs = paths.filter(Files::isDirectory).toList();
+            for (Path dir : dirs) {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirs.put(key, dir);
+            } //
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (changed) {
+            addChangedFiles(root);
+        }
+        else {
+            forEachFile(root, extractedFiles::put);
+        }
+    }
+
+    /**
+     * Execute action for every supported document in directory tree.
+     * @param dir The directory.
+     * @param action Action, receiving the document file and its state.
+     */
+    protected void forEachFile(Path dir, BiConsumer<Path, FileState> action) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.filter(Files::isRegularFile)
+                .filter(this::isWatchedFile)
+                .forEach(p -> {
+                    FileState state = FileState.of(p);
+                    if (state != null) {
+                        action.accept(p, state);
+                    }
+                });
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Changed document, waiting to be complete.
+     */
+    protected static class PendingFile {
+        protected long lastChange;
+        protected FileState state;
+    }
+
+    /**
+     * Document file size and modification time.
+     */
+    protected static class FileState {
+        protected long size;
+        protected long modified;
+
+        protected FileState(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /**
+         * Get the current state of file.
+         * @param file The file.
+         * @return File state (null if the file does not exist).
+         */
+        protected static FileState of(Path file) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attrs.size(), attrs.lastModifiedTime().toMillis());
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof FileState other) && (size == other.size) && (modified == other.modified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modified);
+        }
+    }
+}
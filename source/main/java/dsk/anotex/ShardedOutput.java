@@ -0,0 +1,268 @@
+package dsk.anotex;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.exporter.AnnotationExporter;
+import dsk.anotex.exporter.ExporterFactory;
+import dsk.anotex.monitoring.Metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate output for many documents. The exported documents are appended to a sequence of shard files
+ * (like 'annotations-00000.md'), instead of writing one small file per document. A shard is closed and
+ * the next one started when the shard size or the number of its documents reaches the limit.
+ * <p>
+ * The position of every document is recorded in the manifest file (like 'annotations.md.manifest'),
+ * one tab separated line per document: shard file name, offset, length (in bytes), number of
+ * annotations and the input file name. Use {@link #readManifest(File)} and
+ * {@link #readDocument(File, ManifestEntry)} to read the documents back.
+ * </p>
+ * The output is thread safe. The documents are exported in the calling threads, so the shared part is
+ * only the append of the already exported bytes (large sequential writes).
+ */
+public class ShardedOutput implements Closeable {
+    public static final String DEFAULT_BASE_NAME = "annotations";
+    public static final long DEFAULT_MAX_SHARD_SIZE = 256L * 1024 * 1024;
+    public static final int DEFAULT_MAX_SHARD_DOCUMENTS = 100000;
+    protected static final String MANIFEST_EXTENSION = ".manifest";
+    protected static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    protected File dir;
+    protected String baseName;
+    protected FileFormat format;
+    protected Map<String, Object> settings;
+    protected long maxShardSize;
+    protected int maxShardDocuments;
+    // Export buffer of every thread (reused for all its documents).
+    protected ThreadLocal<ByteArrayOutputStream> buffers;
+
+    // Guarded by this.
+    protected int shardIndex;
+    protected String shardName;
+    protected OutputStream shard;
+    protected long shardSize;
+    protected int shardDocuments;
+    protected Writer manifest;
+
+    /**
+     * Constructor with specified parameters.
+     * @param dir Output directory (created if missing).
+     * @param baseName Base name of the shard files.
+     * @param format Export format.
+     * @param settings Additional export settings.
+     * @param maxShardSize Maximal shard size (in bytes). Single larger document gets its own shard.
+     * @param maxShardDocuments Maximal number of documents in shard.
+     */
+    public ShardedOutput(File dir, String baseName, FileFormat format, Map<String, Object> settings,
+            long maxShardSize, int maxShardDocuments) {
+        super();
+        this.dir = dir;
+        this.baseName = baseName;
+        this.format = format;
+        this.settings = settings;
+        this.maxShardSize = Math.max(1, maxShardSize);
+        this.maxShardDocuments = Math.max(1, maxShardDocuments);
+        this.buffers = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(64 * 1024));
+        // Fail early for unsupported formats.
+        ExporterFactory.createExporter(format);
+        dir.mkdirs();
+        try {
+            manifest = Files.newBufferedWriter(getManifestFile().toPath(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        shardIndex = -1;
+    }
+
+    /**
+     * Export document and append it to the current shard.
+     * @param inputFile Input file name (the document origin).
+     * @param document The annotated document.
+     */
+    public void write(String inputFile, AnnotatedDocument document) {
+        // Export outside of the lock.
+        long startTime = System.nanoTime();
+        AnnotationExporter exporter = ExporterFactory.createExporter(format);
+        ByteArrayOutputStream buffer = buffers.get();
+        buffer.reset();
+        exporter.export(document, settings, buffer);
+        Metrics.EXPORT.recordSince(startTime);
+
+        long writeStart = System.nanoTime();
+        synchronized (this) {
+            if (manifest == null) {
+                throw new IllegalStateException("Output is closed");
+            }
+            try {
+                if ((shard == null) || (shardDocuments >= maxShardDocuments)
+                        || ((shardSize > 0) && (shardSize + buffer.size() > maxShardSize))) {
+                    nextShard();
+                }
+                buffer.writeTo(shard);
+                manifest.write(shardName + '\t' + shardSize + '\t' + buffer.size() + '\t'
+                    + document.getAnnotations().size() + '\t' + inputFile + '\n');
+                shardSize += buffer.size();
+                shardDocuments++;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Metrics.WRITE.recordSince(writeStart);
+        if (buffer.size() > WRITE_BUFFER_SIZE) {
+            // Do not keep the memory of exceptionally large document.
+            buffers.remove();
+        }
+    }
+
+    /**
+     * Get the manifest file.
+     * @return The manifest file.
+     */
+    public File getManifestFile() {
+        return new File(dir, baseName + format.getExtension() + MANIFEST_EXTENSION);
+    }
+
+    /**
+     * Close the current shard and the manifest.
+     */
+    @Override
+    public synchronized void close() {
+        if (manifest == null) {
+            return;
+        }
+        try {
+            closeShard();
+            manifest.close();
+            manifest = null;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close the current shard and start the next one.
+     * @throws IOException If writing fails.
+     */
+    protected void nextShard() throws IOException {
+        closeShard();
+        shardIndex++;
+        shardName = String.format("%s-%05d%s", baseName, shardIndex, format.getExtension());
+        shard = new BufferedOutputStream(Files.newOutputStream(new File(dir, shardName).toPath()),
+            WRITE_BUFFER_SIZE);
+        shardSize = 0;
+        shardDocuments = 0;
+    }
+
+    protected void closeShard() throws IOException {
+        if (shard != null) {
+            shard.close();
+            shard = null;
+            // The manifest is complete for the closed shards.
+            manifest.flush();
+        }
+    }
+
+    /**
+     * Read the manifest.
+     * @param manifestFile Manifest file.
+     * @return The documents in the shards (in the write order).
+     */
+    public static List<ManifestEntry> readManifest(File manifestFile) {
+        List<ManifestEntry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 5);
+                if (parts.length == 5) {
+                    entries.add(new ManifestEntry(parts[0], Long.parseLong(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), parts[4]));
+                }
+            } //
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    /**
+     * Read single exported document from its shard.
+     * @param dir Output directory.
+     * @param entry Manifest entry of the document.
+     * @return The exported document.
+     */
+    public static byte[] readDocument(File dir, ManifestEntry entry) {
+        byte[] content = new byte[entry.getLength()];
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, entry.getShard()), "r")) {
+            file.seek(entry.getOffset());
+            file.readFully(content);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return content;
+    }
+
+    /**
+     * Position of single document in the shards.
+     */
+    public static class ManifestEntry {
+        protected String shard;
+        protected long offset;
+        protected int length;
+        protected int annotations;
+        protected String inputFile;
+
+        public ManifestEntry(String shard, long offset, int length, int annotations, String inputFile) {
+            this.shard = shard;
+            this.offset = offset;
+            this.length = length;
+            this.annotations = annotations;
+            this.inputFile = inputFile;
+        }
+
+        public String getShard() {
+            return shard;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getAnnotations() {
+            return annotations;
+        }
+
+        public String getInputFile() {
+            return inputFile;
+        }
+
+        @Override
+        public String toString() {
+            return "{" + inputFile + '}';
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package dsk.anotex.cache;
+
+import dsk.anotex.Constants;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.exporter.BinaryExporter;
+import dsk.anotex.importer.BinaryAnnotationImporter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent (on disk) cache for annotated documents. The cache key is the content hash of the
+ * document file, combined with the cache format version and the settings which affect the extraction
+ * result (see {@link #KEY_SETTINGS}). So the cached result is reused for unchanged files, even if they are
+ * moved or renamed, and regardless of the output settings (like the export format). The entries are stored in the binary
+ * export format (see {@link BinaryExporter}).
+ * <p>
+ * To avoid hashing of files which are obviously unchanged, the cache remembers the size and the
+ * modification time of every hashed file. The total size of the cache is limited - when it is exceeded,
+ * the least recently used entries are removed. The cache directory is read on the first use.
+ * </p>
+ */
+public class AnnotationCache {
+    /** Version of the cached results. Increase it when the extraction results or the entry format change. */
+    public static final int CACHE_FORMAT_VERSION = 4;
+    /** Settings which affect the extraction result (the other settings do not change the cache key). */
+    protected static final List<String> KEY_SETTINGS = List.of(Constants.PAGE_RANGE, Constants.EXTRACTION_MODE,
+        Constants.PAGE_TIME_LIMIT, Constants.PAGE_OPERATOR_LIMIT, Constants.DOCUMENT_TIME_LIMIT,
+        Constants.DOCUMENT_OPERATOR_LIMIT);
+    protected static final String ENTRY_EXTENSION = ".anotex";
+    // Entries of the former versions (serialized Java objects).
+    protected static final String OLD_ENTRY_EXTENSION = ".ser";
+    protected static final String FILE_INDEX = "files.idx";
+
+    protected File cacheDir;
+    protected long maxSize;
+    protected long currentSize;
+    // Cache entries in access order (least recently used first): entry file name -> entry size.
+    protected LinkedHashMap<String, Long> entries;
+    // Known file hashes: absolute file name -> file state.
+    protected Map<String, FileState> fileIndex;
+    protected boolean fileIndexChanged;
+    protected boolean loaded;
+
+    /**
+     * Constructor with specified parameters.
+     * @param cacheDir Cache directory (created if missing).
+     * @param maxSize Maximal total size of the cached entries (in bytes).
+     */
+    public AnnotationCache(File cacheDir, long maxSize) {
+        super();
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true);
+        this.fileIndex = new HashMap<>();
+    }
+
+    /**
+     * Read the cache state (the entries and the known file hashes), if not read yet.
+     */
+    protected synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        cacheDir.mkdirs();
+        File[] oldEntries = cacheDir.listFiles((dir, name) -> name.endsWith(OLD_ENTRY_EXTENSION));
+        if (oldEntries != null) {
+            for (File entry : oldEntries) {
+                entry.delete();
+            } //
+        }
+        fileIndex = readFileIndex();
+        currentSize = 0;
+        List<File> entryFiles = getEntries();
+        Map<File, Long> lastUsed = new HashMap<>();
+        for (File entry : entryFiles) {
+            lastUsed.put(entry, entry.lastModified());
+        } //
+        entryFiles.sort(Comparator.comparing(lastUsed::get));
+        for (File entry : entryFiles) {
+            entries.put(entry.getName(), entry.length());
+            currentSize += entry.length();
+        } //
+    }
+
+    /**
+     * Get cached annotated document.
+     * @param fileName Document file name.
+     * @param settings Extraction settings.
+     * @return Cached document or null (if the file is not cached).
+     */
+    public AnnotatedDocument get(String fileName, Map<String, Object> settings) {
+        load();
+        AnnotatedDocument document = null;
+        File entry = getEntryFile(fileName, settings);
+        if (entry.isFile()) {
+            try {
+                byte[] content = Files.readAllBytes(entry.toPath());
+                document = new BinaryAnnotationImporter().readAnnotations(content, new HashMap<>());
+                // Mark as recently used (also for the next program runs).
+                synchronized (this) {
+                    entries.get(entry.getName());
+                }
+                entry.setLastModified(System.currentTimeMillis());
+            }
+            catch (IOException | IllegalArgumentException e) {
+                // Broken or incompatible entry (for example, written by other program version).
+                remove(entry);
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Store annotated document in the cache.
+     * @param fileName Document file name.
+     * @param settings Extraction settings.
+     * @param document The document annotations.
+     */
+    public void put(String fileName, Map<String, Object> settings, AnnotatedDocument document) {
+        load();
+        File entry = getEntryFile(fileName, settings);
+        try {
+            // Write to temporary file first, so concurrent readers never see incomplete entry.
+            File tempFile = File.createTempFile("entry", ".tmp", cacheDir);
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+                new BinaryExporter().export(document, new HashMap<>(), output);
+            }
+            long size = tempFile.length();
+            synchronized (this) {
+                Files.move(tempFile.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Long oldSize = entries.put(entry.getName(), size);
+                currentSize += size - ((oldSize != null) ? oldSize : 0);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        evict();
+    }
+
+    /**
+     * Save the cache state (the known file hashes). Call it when the cache is no longer used.
+     */
+    public synchronized void save() {
+        if (!fileIndexChanged) {
+            return;
+        }
+        File indexFile = new File(cacheDir, FILE_INDEX);
+        File tempFile = new File(cacheDir, FILE_INDEX + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, FileState> e : fileIndex.entrySet()) {
+                FileState state = e.getValue();
+                writer.write(state.hash + '\t' + state.size + '\t' + state.lastModified + '\t' + e.getKey());
+                writer.newLine();
+            } //
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fileIndexChanged = false;
+    }
+
+    /**
+     * Get the total size of the cached entries.
+     * @return Cache size in bytes.
+     */
+    public synchronized long getSize() {
+        load();
+        return currentSize;
+    }
+
+    /**
+     * Get the cache entry file for given document and settings.
+     * @param fileName Document file name.
+     * @param settings Extraction settings.
+     * @return Cache entry file (may not exist).
+     */
+    protected File getEntryFile(String fileName, Map<String, Object> settings) {
+        StringBuilder key = new StringBuilder(getContentHash(new File(fileName).getAbsoluteFile()));
+        key.append('|').append(CACHE_FORMAT_VERSION);
+        for (String name : KEY_SETTINGS) {
+            Object value = settings.get(name);
+            if (value != null) {
+                key.append('|').append(name).append('=').append(value);
+            }
+        } //
+        MessageDigest digester = createDigester();
+        String entryName = toHex(digester.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        return new File(cacheDir, entryName + ENTRY_EXTENSION);
+    }
+
+    /**
+     * Get the content hash of given file. The file is hashed only if its size or modification time
+     * differs from the last hashing.
+     * @param file The file.
+     * @return File content hash.
+     */
+    protected String getContentHash(File file) {
+        String fileName = file.getPath();
+        long size = file.length();
+        long lastModified = file.lastModified();
+        FileState state;
+        synchronized (this) {
+            state = fileIndex.get(fileName);
+        }
+        if ((state == null) || (state.size != size) || (state.lastModified != lastModified)) {
+            MessageDigest digester = createDigester();
+            byte[] buf = new byte[64 * 1024];
+            try (InputStream input = Files.newInputStream(file.toPath())) {
+                int read;
+                while ((read = input.read(buf)) > 0) {
+                    digester.update(buf, 0, read);
+                } //
+            }
+            catch (IOException e) {
+                String message = String.format("Cannot read file '%s'", file);
+                throw new IllegalArgumentException(message, e);
+            }
+            state = new FileState(toHex(digester.digest()), size, lastModified);
+            synchronized (this) {
+                fileIndex.put(fileName, state);
+                fileIndexChanged = true;
+            }
+        }
+        return state.hash;
+    }
+
+    /**
+     * Remove the least recently used entries, until the cache size limit is satisfied.
+     */
+    protected synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while ((currentSize > maxSize) && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(cacheDir, entry.getKey()).delete();
+            currentSize -= entry.getValue();
+            eldest.remove();
+        } //
+    }
+
+    /**
+     * Remove cache entry.
+     * @param entry The entry file.
+     */
+    protected synchronized void remove(File entry) {
+        entry.delete();
+        Long size = entries.remove(entry.getName());
+        if (size != null) {
+            currentSize -= size;
+        }
+    }
+
+    /**
+     * Get all cache entry files.
+     * @return Entry files.
+     */
+    protected List<File> getEntries() {
+        List<File> entries = new ArrayList<>();
+        File[] files = cacheDir.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (files != null) {
+            entries.addAll(List.of(files));
+        }
+        return entries;
+    }
+
+    /**
+     * Read the known file hashes.
+     * @return Mapping between file name and its state.
+     */
+    protected Map<String, FileState> readFileIndex() {
+        Map<String, FileState> index = new HashMap<>();
+        File indexFile = new File(cacheDir, FILE_INDEX);
+        if (indexFile.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t", 4);
+                    if (parts.length == 4) {
+                        index.put(parts[3], new FileState(parts[0], Long.parseLong(parts[1]),
+                            Long.parseLong(parts[2])));
+                    }
+                } //
+            }
+            catch (IOException | NumberFormatException e) {
+                // Broken index - the files will be hashed again.
+                index.clear();
+            }
+        }
+        return index;
+    }
+
+    protected MessageDigest createDigester() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected static String toHex(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        } //
+        return buf.toString();
+    }
+
+    /**
+     * State of hashed file.
+     */
+    protected static class FileState {
+        protected String hash;
+        protected long size;
+        protected long lastModified;
+
+        public FileState(String hash, long size, long lastModified) {
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
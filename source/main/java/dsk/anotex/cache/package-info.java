@@ -0,0 +1,4 @@
+/**
+ * Caching of extraction results.
+ */
+package dsk.anotex.cache;
@@ -1,7 +1,7 @@
 package dsk.anotex.core;
 
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,6 +13,7 @@ public class AnnotatedDocument implements Serializable {
     protected String author;
     protected List<String> keywords;
     protected List<Annotation> annotations;
+    protected int pageCount;
 
     public AnnotatedDocument() {
         super();
@@ -42,9 +43,17 @@ public class AnnotatedDocument implements Serializable {
         this.author = author;
     }
 
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public void setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+    }
+
     public List<Annotation> getAnnotations() {
         if (annotations == null) {
-            annotations = new LinkedList<>();
+            annotations = new ArrayList<>();
         }
         return annotations;
     }
@@ -53,9 +62,25 @@ public class AnnotatedDocument implements Serializable {
         this.annotations = annotations;
     }
 
+    /**
+     * Check if some annotation is degraded (its text could not be extracted). Such result depends on the
+     * extraction budget, so it should not be cached or indexed.
+     * @return True if the document extraction is incomplete.
+     */
+    public boolean isDegraded() {
+        if (annotations != null) {
+            for (Annotation annotation : annotations) {
+                if (annotation.isDegraded()) {
+                    return true;
+                }
+            } //
+        }
+        return false;
+    }
+
     public List<String> getKeywords() {
         if (keywords == null) {
-            keywords = new LinkedList<>();
+            keywords = new ArrayList<>();
         }
         return keywords;
     }
@@ -4,11 +4,21 @@ import java.io.Serializable;
 
 /**
  * Represents document annotation (highlight/comment). It is independent of the document format.
+ * The position is the annotation rectangle on the page (in the document coordinates, the origin is
+ * the bottom left page corner).
  */
 public class Annotation implements Serializable {
     protected String text;
+    protected AnnotationType type;
+    protected int page;
+    protected float x;
+    protected float y;
+    protected float width;
+    protected float height;
+    protected boolean degraded;
 
     public Annotation() {
+        type = AnnotationType.OTHER;
     }
 
     public Annotation(String text) {
@@ -24,6 +34,69 @@ public class Annotation implements Serializable {
         this.text = text;
     }
 
+    public AnnotationType getType() {
+        return type;
+    }
+
+    public void setType(AnnotationType type) {
+        this.type = type;
+    }
+
+    /**
+     * Get the page number.
+     * @return Page number (1 based), 0 if unknown.
+     */
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Set the annotation rectangle.
+     * @param x Left side.
+     * @param y Bottom side.
+     * @param width Rectangle width.
+     * @param height Rectangle height.
+     */
+    public void setRectangle(float x, float y, float width, float height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Check if the annotation text is incomplete. This happens when the page content is too complex to
+     * be parsed (within the extraction budget), and the text is taken from the annotation content only.
+     * @return True if degraded.
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
     @Override
     public String toString() {
         return "{" + text + '}';
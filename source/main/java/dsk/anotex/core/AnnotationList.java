@@ -0,0 +1,405 @@
+package dsk.anotex.core;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * Compact list of annotations. The annotation fields are stored in arrays (one per field) and the
+ * texts of all annotations are stored in single UTF-8 encoded buffer. This needs several times less
+ * memory than list of annotation objects, and sorting or grouping by page and position works on
+ * primitive values only.
+ * <p>
+ * The annotations are stored by value: {@link #get(int)} returns new annotation object, and changes
+ * of the returned annotation do not affect the list (use {@link #set(int, Annotation)}). Therefore the
+ * importer uses it only on request (see {@link dsk.anotex.Constants#COMPACT_ANNOTATIONS}).
+ * </p>
+ */
+public class AnnotationList extends AbstractList<Annotation> implements RandomAccess, Serializable {
+    protected static final int DEFAULT_CAPACITY = 16;
+    // Flag in the type array, marking null text.
+    protected static final byte NULL_TEXT = (byte) 0x80;
+    // Flag in the type array, marking degraded annotation.
+    protected static final byte DEGRADED = 0x40;
+    protected static final int TYPE_MASK = 0x3F;
+    protected static final AnnotationType[] TYPES = AnnotationType.values();
+
+    protected int size;
+    protected byte[] types;
+    protected int[] pages;
+    protected float[] rectangles;
+    // Text end offsets in the text buffer (the text starts at the end of the previous one).
+    protected int[] textEnds;
+    protected byte[] texts;
+    protected int textsLength;
+
+    public AnnotationList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create empty list with given capacity.
+     * @param capacity Initial capacity (number of annotations).
+     */
+    public AnnotationList(int capacity) {
+        super();
+        capacity = Math.max(1, capacity);
+        types = new byte[capacity];
+        pages = new int[capacity];
+        rectangles = new float[capacity * 4];
+        textEnds = new int[capacity];
+        texts = new byte[capacity * 32];
+    }
+
+    /**
+     * Create list with given annotations.
+     * @param annotations The annotations.
+     */
+    public AnnotationList(List<Annotation> annotations) {
+        this(annotations.size());
+        addAll(annotations);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Annotation get(int index) {
+        checkIndex(index, size);
+        Annotation annotation = new Annotation(getText(index));
+        annotation.setType(getType(index));
+        annotation.setPage(pages[index]);
+        int r = index * 4;
+        annotation.setRectangle(rectangles[r], rectangles[r + 1], rectangles[r + 2], rectangles[r + 3]);
+        annotation.setDegraded(isDegraded(index));
+        return annotation;
+    }
+
+    @Override
+    public boolean add(Annotation annotation) {
+        add(size, annotation);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Annotation annotation) {
+        checkIndex(index, size + 1);
+        byte[] text = encode(annotation.getText());
+        ensureCapacity(size + 1, textsLength + text.length);
+        int textStart = getTextStart(index);
+        if (index < size) {
+            // Make space for the new annotation.
+            System.arraycopy(types, index, types, index + 1, size - index);
+            System.arraycopy(pages, index, pages, index + 1, size - index);
+            System.arraycopy(rectangles, index * 4, rectangles, index * 4 + 4, (size - index) * 4);
+            System.arraycopy(textEnds, index, textEnds, index + 1, size - index);
+            System.arraycopy(texts, textStart, texts, textStart + text.length, textsLength - textStart);
+            for (int i = index + 1; i <= size; i++) {
+                textEnds[i] += text.length;
+            } //
+        }
+        System.arraycopy(text, 0, texts, textStart, text.length);
+        textsLength += text.length;
+        textEnds[index] = textStart + text.length;
+        size++;
+        setFields(index, annotation);
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Annotation> annotations) {
+        if (!(annotations instanceof AnnotationList other)) {
+            return super.addAll(annotations);
+        }
+        // Copy the arrays directly.
+        int count = other.size;
+        ensureCapacity(size + count, textsLength + other.textsLength);
+        System.arraycopy(other.types, 0, types, size, count);
+        System.arraycopy(other.pages, 0, pages, size, count);
+        System.arraycopy(other.rectangles, 0, rectangles, size * 4, count * 4);
+        System.arraycopy(other.texts, 0, texts, textsLength, other.textsLength);
+        for (int i = 0; i < count; i++) {
+            textEnds[size + i] = textsLength + other.textEnds[i];
+        } //
+        size += count;
+        textsLength += other.textsLength;
+        modCount++;
+        return count > 0;
+    }
+
+    @Override
+    public Annotation set(int index, Annotation annotation) {
+        Annotation previous = get(index);
+        byte[] text = encode(annotation.getText());
+        int textStart = getTextStart(index);
+        int delta = text.length - (textEnds[index] - textStart);
+        ensureCapacity(size, textsLength + delta);
+        System.arraycopy(texts, textEnds[index], texts, textEnds[index] + delta,
+            textsLength - textEnds[index]);
+        System.arraycopy(text, 0, texts, textStart, text.length);
+        textsLength += delta;
+        for (int i = index; i < size; i++) {
+            textEnds[i] += delta;
+        } //
+        setFields(index, annotation);
+        return previous;
+    }
+
+    @Override
+    public Annotation remove(int index) {
+        Annotation previous = get(index);
+        int textStart = getTextStart(index);
+        int textLength = textEnds[index] - textStart;
+        System.arraycopy(types, index + 1, types, index, size - index - 1);
+        System.arraycopy(pages, index + 1, pages, index, size - index - 1);
+        System.arraycopy(rectangles, index * 4 + 4, rectangles, index * 4, (size - index - 1) * 4);
+        System.arraycopy(textEnds, index + 1, textEnds, index, size - index - 1);
+        System.arraycopy(texts, textStart + textLength, texts, textStart,
+            textsLength - textStart - textLength);
+        size--;
+        textsLength -= textLength;
+        for (int i = index; i < size; i++) {
+            textEnds[i] -= textLength;
+        } //
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        textsLength = 0;
+        modCount++;
+    }
+
+    /**
+     * Get the text of annotation (without creating the annotation object).
+     * @param index Annotation index.
+     * @return Annotation text.
+     */
+    public String getText(int index) {
+        checkIndex(index, size);
+        if ((types[index] & NULL_TEXT) != 0) {
+            return null;
+        }
+        int start = getTextStart(index);
+        return new String(texts, start, textEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the type of annotation (without creating the annotation object).
+     * @param index Annotation index.
+     * @return Annotation type.
+     */
+    public AnnotationType getType(int index) {
+        checkIndex(index, size);
+        return TYPES[types[index] & TYPE_MASK];
+    }
+
+    /**
+     * Check if annotation is degraded (without creating the annotation object).
+     * @param index Annotation index.
+     * @return True if degraded.
+     */
+    public boolean isDegraded(int index) {
+        checkIndex(index, size);
+        return (types[index] & DEGRADED) != 0;
+    }
+
+    /**
+     * Get the page of annotation (without creating the annotation object).
+     * @param index Annotation index.
+     * @return Page number.
+     */
+    public int getPage(int index) {
+        checkIndex(index, size);
+        return pages[index];
+    }
+
+    /**
+     * Get the rectangle of annotation (without creating the annotation object).
+     * @param index Annotation index.
+     * @return The rectangle (x, y, width, height).
+     */
+    public float[] getRectangle(int index) {
+        checkIndex(index, size);
+        return Arrays.copyOfRange(rectangles, index * 4, index * 4 + 4);
+    }
+
+    /**
+     * Sort the annotations by position - by page, then from the page top to the bottom and from the
+     * left to the right. The sorting is stable.
+     */
+    public void sortByPosition() {
+        int[] order = sortOrder();
+        byte[] newTypes = new byte[types.length];
+        int[] newPages = new int[pages.length];
+        float[] newRectangles = new float[rectangles.length];
+        int[] newTextEnds = new int[textEnds.length];
+        byte[] newTexts = new byte[texts.length];
+        int textEnd = 0;
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            newTypes[i] = types[from];
+            newPages[i] = pages[from];
+            System.arraycopy(rectangles, from * 4, newRectangles, i * 4, 4);
+            int textStart = getTextStart(from);
+            int textLength = textEnds[from] - textStart;
+            System.arraycopy(texts, textStart, newTexts, textEnd, textLength);
+            textEnd += textLength;
+            newTextEnds[i] = textEnd;
+        } //
+        types = newTypes;
+        pages = newPages;
+        rectangles = newRectangles;
+        textEnds = newTextEnds;
+        texts = newTexts;
+        modCount++;
+    }
+
+    /**
+     * Group the annotations by page.
+     * @return The annotations of every page (in page order). The list order is kept within the pages.
+     */
+    public Map<Integer, List<Annotation>> groupByPage() {
+        Map<Integer, List<Annotation>> groups = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(pages[i], p -> new AnnotationList()).add(get(i));
+        } //
+        return groups;
+    }
+
+    /**
+     * Release the unused capacity.
+     */
+    public void trimToSize() {
+        types = Arrays.copyOf(types, size);
+        pages = Arrays.copyOf(pages, size);
+        rectangles = Arrays.copyOf(rectangles, size * 4);
+        textEnds = Arrays.copyOf(textEnds, size);
+        texts = Arrays.copyOf(texts, textsLength);
+    }
+
+    /**
+     * Compare positions of two annotations.
+     * @param a Index of the first annotation.
+     * @param b Index of the second annotation.
+     * @return Comparison result (negative if the first annotation is before the second one).
+     */
+    protected int comparePositions(int a, int b) {
+        int ret = Integer.compare(pages[a], pages[b]);
+        if (ret == 0) {
+            // Higher top side is first.
+            ret = Float.compare(rectangles[b * 4 + 1] + rectangles[b * 4 + 3],
+                rectangles[a * 4 + 1] + rectangles[a * 4 + 3]);
+        }
+        if (ret == 0) {
+            ret = Float.compare(rectangles[a * 4], rectangles[b * 4]);
+        }
+        return ret;
+    }
+
+    /**
+     * Sort the annotation indexes by position. This is stable merge sort of primitive index array.
+     * @return Annotation indexes in position order.
+     */
+    protected int[] sortOrder() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        } //
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int from = 0; from < size - width; from += 2 * width) {
+                int middle = from + width;
+                int to = Math.min(from + 2 * width, size);
+                int left = from;
+                int right = middle;
+                int k = from;
+                while ((left < middle) && (right < to)) {
+                    // Take the left one on equal positions (keeps the order).
+                    if (comparePositions(order[right], order[left]) < 0) {
+                        buffer[k++] = order[right++];
+                    }
+                    else {
+                        buffer[k++] = order[left++];
+                    }
+                } //
+                System.arraycopy(order, left, buffer, k, middle - left);
+                k += middle - left;
+                System.arraycopy(order, right, buffer, k, to - right);
+                System.arraycopy(buffer, from, order, from, to - from);
+            } //
+        } //
+        return order;
+    }
+
+    /**
+     * Store the fields of annotation (except the text).
+     * @param index Annotation index.
+     * @param annotation The annotation.
+     */
+    protected void setFields(int index, Annotation annotation) {
+        AnnotationType type = (annotation.getType() != null) ? annotation.getType() : AnnotationType.OTHER;
+        types[index] = (byte) type.ordinal();
+        if (annotation.getText() == null) {
+            types[index] |= NULL_TEXT;
+        }
+        if (annotation.isDegraded()) {
+            types[index] |= DEGRADED;
+        }
+        pages[index] = annotation.getPage();
+        int r = index * 4;
+        rectangles[r] = annotation.getX();
+        rectangles[r + 1] = annotation.getY();
+        rectangles[r + 2] = annotation.getWidth();
+        rectangles[r + 3] = annotation.getHeight();
+    }
+
+    protected int getTextStart(int index) {
+        return (index > 0) ? textEnds[index - 1] : 0;
+    }
+
+    protected byte[] encode(String text) {
+        return (text != null) ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /**
+     * Ensure the storage capacity.
+     * @param count Needed number of annotations.
+     * @param textLength Needed text buffer length.
+     */
+    protected void ensureCapacity(int count, int textLength) {
+        if (count > types.length) {
+            int capacity = Math.max(count, types.length + (types.length >> 1));
+            types = Arrays.copyOf(types, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+            rectangles = Arrays.copyOf(rectangles, capacity * 4);
+            textEnds = Arrays.copyOf(textEnds, capacity);
+        }
+        if (textLength > texts.length) {
+            texts = Arrays.copyOf(texts, Math.max(textLength, texts.length + (texts.length >> 1)));
+        }
+    }
+
+    protected void checkIndex(int index, int limit) {
+        if ((index < 0) || (index >= limit)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        trimToSize();
+        output.defaultWriteObject();
+    }
+}
@@ -0,0 +1,26 @@
+package dsk.anotex.core;
+
+/**
+ * Receiver of document annotations, notified while the document is being read. It allows processing
+ * of the annotations without keeping all of them in memory.
+ */
+public interface AnnotationListener {
+
+    /**
+     * Called when the document reading starts.
+     * @param document The document information (title, author, etc.), without annotations.
+     */
+    public void documentStarted(AnnotatedDocument document);
+
+    /**
+     * Called for every annotation, in the document order.
+     * @param annotation The annotation.
+     */
+    public void annotationFound(Annotation annotation);
+
+    /**
+     * Called when the document reading is complete.
+     * @param document The document information (the same as passed on start).
+     */
+    public void documentFinished(AnnotatedDocument document);
+}
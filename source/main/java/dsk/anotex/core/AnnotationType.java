@@ -0,0 +1,40 @@
+package dsk.anotex.core;
+
+/**
+ * Annotation type enumeration.
+ */
+public enum AnnotationType {
+    HIGHLIGHT("Highlight"),
+    UNDERLINE("Underline"),
+    STRIKEOUT("StrikeOut"),
+    SQUIGGLY("Squiggly"),
+    NOTE("Text"),
+    FREE_TEXT("FreeText"),
+    OTHER("Other");
+
+    String name;
+
+    public String getName() {
+        return name;
+    }
+
+    AnnotationType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get annotation type by name.
+     * @param name Type name (the PDF annotation subtype names are used).
+     * @return Matching type, {@link #OTHER} for unknown names.
+     */
+    public static AnnotationType getByName(String name) {
+        AnnotationType match = OTHER;
+        for (AnnotationType v : values()) {
+            if (v.getName().equals(name)) {
+                match = v;
+                break;
+            }
+        } //
+        return match;
+    }
+}
@@ -5,7 +5,9 @@ package dsk.anotex.core;
  */
 public enum FileFormat {
     PDF("Pdf", ".pdf"),
-    MARKDOWN("Markdown", ".md");
+    MARKDOWN("Markdown", ".md"),
+    BINARY("Binary", ".anotex"),
+    JSON_LINES("JsonLines", ".jsonl");
 
     String name;
     String extension;
@@ -1,8 +1,18 @@
 package dsk.anotex.exporter;
 
 import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,4 +27,88 @@ public interface AnnotationExporter {
      * @param output Stream where to write the output.
      */
     public void export(AnnotatedDocument document, Map<String, Object> context, Writer output);
+
+    /**
+     * Create streaming export. The returned listener should write the document header when the document
+     * reading starts and every annotation as soon as it is read (so the memory, used for the output, does
+     * not depend on the document size). The default implementation collects the annotations and exports
+     * the complete document at the end.
+     * @param context Conversion context.
+     * @param output Stream where to write the output.
+     * @return Listener, to be passed to the annotation importer.
+     */
+    public default AnnotationListener createStreamingExport(Map<String, Object> context, Writer output) {
+        return new AnnotationListener() {
+            private final List<Annotation> annotations = new ArrayList<>();
+
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                annotations.clear();
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                annotations.add(annotation);
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                document.setAnnotations(annotations);
+                export(document, context, output);
+            }
+        };
+    }
+
+    /**
+     * Export annotated document to binary output. The default implementation writes the text output
+     * in UTF-8 encoding.
+     * @param document The document to be converted.
+     * @param context Conversion context.
+     * @param output Stream where to write the output. It is flushed, but not closed.
+     */
+    public default void export(AnnotatedDocument document, Map<String, Object> context, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        export(document, context, writer);
+        try {
+            writer.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create streaming export to binary output. The default implementation writes the text output
+     * in UTF-8 encoding.
+     * @param context Conversion context.
+     * @param output Stream where to write the output. It is flushed at the document end, but not closed.
+     * @return Listener, to be passed to the annotation importer.
+     * @see #createStreamingExport(Map, Writer)
+     */
+    public default AnnotationListener createStreamingExport(Map<String, Object> context, OutputStream output) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        AnnotationListener export = createStreamingExport(context, writer);
+        return new AnnotationListener() {
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                export.documentStarted(document);
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                export.annotationFound(annotation);
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                export.documentFinished(document);
+                try {
+                    writer.flush();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
 }
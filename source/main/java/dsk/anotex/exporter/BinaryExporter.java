@@ -0,0 +1,279 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.Constants;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationList;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import dsk.anotex.util.SettingsUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export annotated document to compact binary format. It is meant for programs, which process the
+ * extracted annotations further (and for caching) - reading it needs no parsing of text and it keeps
+ * all annotation fields. Use {@link dsk.anotex.importer.BinaryAnnotationImporter} to read it.
+ * <p>
+ * The layout ('varint' is unsigned LEB128 number, 'float' is big-endian IEEE 754 number):
+ * </p>
+ * <pre>
+ * file       = magic ("DYAX") version (byte) flags (byte) header annotation* end
+ * header     = length (varint) title subject author pageCount (varint) keywordCount (varint) keyword*
+ * annotation = RECORD_ANNOTATION (byte) length (varint) type (byte) page (varint) x y width height (float)
+ *              text [flags (varint)]
+ * end        = RECORD_END (byte)
+ * string     = header (varint) [UTF-8 bytes]
+ * </pre>
+ * The header and the annotations are length-prefixed, so readers skip the fields, which are added by
+ * newer versions at their end. The string header is 0 for null, (length &lt;&lt; 2 | 1) for plain string,
+ * (length &lt;&lt; 2 | 3) for string, which is added to the dictionary, and (index &lt;&lt; 2 | 2) for
+ * reference to already written dictionary string. The annotation flags ({@link #ANNOTATION_DEGRADED}) are
+ * written only if some is set. The dictionary encoding (setting
+ * {@link Constants#BINARY_DICTIONARY}, enabled by default) stores repeated short texts only once.
+ */
+public class BinaryExporter implements AnnotationExporter {
+    public static final byte[] MAGIC = {'D', 'Y', 'A', 'X'};
+    /** Format version. Increase it on incompatible changes (new fields at the record end are compatible). */
+    public static final int VERSION = 1;
+    /** Flag: the dictionary encoding is used. */
+    public static final int FLAG_DICTIONARY = 1;
+    public static final int RECORD_END = 0;
+    public static final int RECORD_ANNOTATION = 1;
+    /** Annotation flag: the annotation is degraded (see {@link Annotation#isDegraded()}). */
+    public static final int ANNOTATION_DEGRADED = 1;
+    // String header kinds (the lowest 2 bits).
+    public static final int STRING_NULL = 0;
+    public static final int STRING_PLAIN = 1;
+    public static final int STRING_REFERENCE = 2;
+    public static final int STRING_DEFINITION = 3;
+    // Longer strings are not put in the dictionary (they are rarely repeated).
+    protected static final int MAX_DICTIONARY_STRING = 256;
+    protected static final int MAX_DICTIONARY_SIZE = 65536;
+
+    @Override
+    public void export(AnnotatedDocument document, Map<String, Object> context, Writer output) {
+        throw new IllegalArgumentException("Binary format can not be written as text");
+    }
+
+    @Override
+    public void export(AnnotatedDocument document, Map<String, Object> context, OutputStream output) {
+        Encoder encoder = new Encoder(output, SettingsUtil.getBoolean(context, Constants.BINARY_DICTIONARY,
+            true));
+        try {
+            encoder.writeHeader(document);
+            List<Annotation> annotations = document.getAnnotations();
+            if (annotations instanceof AnnotationList list) {
+                // Avoid creation of the annotation objects.
+                for (int i = 0; i < list.size(); i++) {
+                    encoder.writeAnnotation(list.getType(i), list.getPage(i), list.getRectangle(i),
+                        list.getText(i), list.isDegraded(i));
+                } //
+            }
+            else {
+                for (Annotation annotation : annotations) {
+                    encoder.writeAnnotation(annotation);
+                } //
+            }
+            encoder.writeEnd();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public AnnotationListener createStreamingExport(Map<String, Object> context, Writer output) {
+        throw new IllegalArgumentException("Binary format can not be written as text");
+    }
+
+    @Override
+    public AnnotationListener createStreamingExport(Map<String, Object> context, OutputStream output) {
+        Encoder encoder = new Encoder(output, SettingsUtil.getBoolean(context, Constants.BINARY_DICTIONARY,
+            true));
+        return new AnnotationListener() {
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                try {
+                    encoder.writeHeader(document);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                try {
+                    encoder.writeAnnotation(annotation);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                try {
+                    encoder.writeEnd();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Writer of the binary format. Every record is encoded in reusable buffer first (to get its length).
+     */
+    protected static class Encoder {
+        protected OutputStream output;
+        protected boolean useDictionary;
+        protected Map<String, Integer> dictionary;
+        protected Buffer record;
+        protected Buffer length;
+
+        /**
+         * Constructor with specified parameters.
+         * @param output Where to write.
+         * @param useDictionary True if the dictionary encoding should be used.
+         */
+        protected Encoder(OutputStream output, boolean useDictionary) {
+            this.output = output;
+            this.useDictionary = useDictionary;
+            this.dictionary = new HashMap<>();
+            this.record = new Buffer();
+            this.length = new Buffer();
+        }
+
+        /**
+         * Write the file signature and the document fields.
+         * @param document The document.
+         * @throws IOException If writing fails.
+         */
+        protected void writeHeader(AnnotatedDocument document) throws IOException {
+            output.write(MAGIC);
+            output.write(VERSION);
+            output.write(useDictionary ? FLAG_DICTIONARY : 0);
+            record.reset();
+            writeString(document.getTitle());
+            writeString(document.getSubject());
+            writeString(document.getAuthor());
+            record.writeVarint(document.getPageCount());
+            List<String> keywords = document.getKeywords();
+            record.writeVarint(keywords.size());
+            for (String keyword : keywords) {
+                writeString(keyword);
+            } //
+            flushRecord();
+        }
+
+        protected void writeAnnotation(Annotation annotation) throws IOException {
+            float[] rectangle = {annotation.getX(), annotation.getY(), annotation.getWidth(),
+                annotation.getHeight()};
+            writeAnnotation(annotation.getType(), annotation.getPage(), rectangle, annotation.getText(),
+                annotation.isDegraded());
+        }
+
+        /**
+         * Write single annotation record.
+         * @param type Annotation type.
+         * @param page Page number.
+         * @param rectangle Annotation rectangle (x, y, width, height).
+         * @param text Annotation text.
+         * @param degraded True if the annotation is degraded.
+         * @throws IOException If writing fails.
+         */
+        protected void writeAnnotation(AnnotationType type, int page, float[] rectangle, String text,
+                boolean degraded) throws IOException {
+            output.write(RECORD_ANNOTATION);
+            record.reset();
+            record.write(((type != null) ? type : AnnotationType.OTHER).ordinal());
+            record.writeVarint(page);
+            for (float value : rectangle) {
+                record.writeFloat(value);
+            } //
+            writeString(text);
+            if (degraded) {
+                record.writeVarint(ANNOTATION_DEGRADED);
+            }
+            flushRecord();
+        }
+
+        protected void writeEnd() throws IOException {
+            output.write(RECORD_END);
+            output.flush();
+        }
+
+        /**
+         * Write string to the current record.
+         * @param value The string (can be null).
+         */
+        protected void writeString(String value) {
+            if (value == null) {
+                record.writeVarint(STRING_NULL);
+                return;
+            }
+            int kind = STRING_PLAIN;
+            if (useDictionary && (value.length() <= MAX_DICTIONARY_STRING)) {
+                Integer index = dictionary.get(value);
+                if (index != null) {
+                    record.writeVarint(((long) index << 2) | STRING_REFERENCE);
+                    return;
+                }
+                if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                    dictionary.put(value, dictionary.size());
+                    kind = STRING_DEFINITION;
+                }
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            record.writeVarint(((long) bytes.length << 2) | kind);
+            record.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Write the length of the current record and its content.
+         * @throws IOException If writing fails.
+         */
+        protected void flushRecord() throws IOException {
+            length.reset();
+            length.writeVarint(record.size());
+            length.writeTo(output);
+            record.writeTo(output);
+        }
+    }
+
+    /**
+     * Byte buffer with encoding of numbers.
+     */
+    protected static class Buffer extends ByteArrayOutputStream {
+        protected Buffer() {
+            super(256);
+        }
+
+        protected void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            } //
+            write((int) value);
+        }
+
+        protected void writeFloat(float value) {
+            int bits = Float.floatToIntBits(value);
+            write(bits >>> 24);
+            write(bits >>> 16);
+            write(bits >>> 8);
+            write(bits);
+        }
+    }
+}
@@ -23,6 +23,12 @@ public class ExporterFactory {
         if (FileFormat.MARKDOWN == format) {
             exporter = new MarkdownExporter();
         }
+        else if (FileFormat.JSON_LINES == format) {
+            exporter = new JsonLinesExporter();
+        }
+        else if (FileFormat.BINARY == format) {
+            exporter = new BinaryExporter();
+        }
         else {
             String message = String.format("Unsupported export format '%s'", format);
             throw new IllegalArgumentException(message);
@@ -30,4 +36,13 @@ public class ExporterFactory {
         return exporter;
     }
 
+    /**
+     * Check if there is annotation exporter for specified file format.
+     * @param format File format.
+     * @return True if the format can be exported.
+     */
+    public static boolean isSupported(FileFormat format) {
+        return (FileFormat.MARKDOWN == format) || (FileFormat.JSON_LINES == format) || (FileFormat.BINARY == format);
+    }
+
 }
@@ -0,0 +1,333 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationList;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export annotated document to JSON Lines format - one JSON object per annotation, each on its own line.
+ * Every record contains the document metadata, so the records can be processed independently:
+ * <pre>
+ * {"title":"..","subject":null,"author":"..","keywords":[".."],"pages":12,"page":3,"type":"Highlight",
+ *  "x":72,"y":640.5,"width":300,"height":12.25,"text":".."}
+ * </pre>
+ * Degraded annotations (see {@link Annotation#isDegraded()}) have additional field "degraded":true.
+ * The position numbers are rounded to 0.01. The records are written directly to the output (they are
+ * not built in memory first). In streaming mode the output is flushed at every page end, so the
+ * consumers can process the records before the document is finished.
+ */
+public class JsonLinesExporter implements AnnotationExporter {
+    protected static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Larger numbers are written exactly.
+    protected static final float MAX_ROUNDED_NUMBER = 1e9f;
+
+    @Override
+    public void export(AnnotatedDocument document, Map<String, Object> context, Writer output) {
+        try {
+            String prefix = getDocumentFields(document);
+            OutputBuffer buffer = new OutputBuffer(output);
+            List<Annotation> annotations = document.getAnnotations();
+            if (annotations instanceof AnnotationList list) {
+                // Avoid creation of the annotation objects.
+                for (int i = 0; i < list.size(); i++) {
+                    float[] rectangle = list.getRectangle(i);
+                    writeAnnotation(prefix, list.getType(i), list.getPage(i), rectangle, list.getText(i),
+                        list.isDegraded(i), buffer);
+                } //
+            }
+            else {
+                for (Annotation annotation : annotations) {
+                    writeAnnotation(prefix, annotation, buffer);
+                } //
+            }
+            buffer.drain();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public AnnotationListener createStreamingExport(Map<String, Object> context, Writer output) {
+        OutputBuffer buffer = new OutputBuffer(output);
+        return new AnnotationListener() {
+            private String prefix;
+            private int page;
+
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                prefix = getDocumentFields(document);
+                page = 0;
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                try {
+                    if ((annotation.getPage() != page) && (page > 0)) {
+                        // Previous page is complete.
+                        buffer.flush();
+                    }
+                    page = annotation.getPage();
+                    writeAnnotation(prefix, annotation, buffer);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                try {
+                    buffer.flush();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the document fields (the same for all records). They are encoded only once per document.
+     * @param document The document.
+     * @return The fields as JSON object start.
+     */
+    protected String getDocumentFields(AnnotatedDocument document) {
+        StringWriter fields = new StringWriter(256);
+        try {
+            fields.write("{\"title\":");
+            writeString(document.getTitle(), fields);
+            fields.write(",\"subject\":");
+            writeString(document.getSubject(), fields);
+            fields.write(",\"author\":");
+            writeString(document.getAuthor(), fields);
+            fields.write(",\"keywords\":[");
+            List<String> keywords = document.getKeywords();
+            for (int i = 0; i < keywords.size(); i++) {
+                if (i > 0) {
+                    fields.write(',');
+                }
+                writeString(keywords.get(i), fields);
+            } //
+            fields.write("],\"pages\":");
+            fields.write(Integer.toString(document.getPageCount()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return fields.toString();
+    }
+
+    /**
+     * Write single annotation record.
+     * @param prefix The document fields.
+     * @param annotation The annotation.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeAnnotation(String prefix, Annotation annotation, Writer output) throws IOException {
+        float[] rectangle = {annotation.getX(), annotation.getY(), annotation.getWidth(), annotation.getHeight()};
+        writeAnnotation(prefix, annotation.getType(), annotation.getPage(), rectangle, annotation.getText(),
+            annotation.isDegraded(), output);
+    }
+
+    /**
+     * Write single annotation record.
+     * @param prefix The document fields.
+     * @param type Annotation type.
+     * @param page Page number.
+     * @param rectangle Annotation rectangle (x, y, width, height).
+     * @param text Annotation text.
+     * @param degraded True if the annotation is degraded.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeAnnotation(String prefix, AnnotationType type, int page, float[] rectangle, String text,
+            boolean degraded, Writer output) throws IOException {
+        output.write(prefix);
+        output.write(",\"page\":");
+        output.write(Integer.toString(page));
+        output.write(",\"type\":\"");
+        output.write(((type != null) ? type : AnnotationType.OTHER).getName());
+        output.write("\",\"x\":");
+        writeNumber(rectangle[0], output);
+        output.write(",\"y\":");
+        writeNumber(rectangle[1], output);
+        output.write(",\"width\":");
+        writeNumber(rectangle[2], output);
+        output.write(",\"height\":");
+        writeNumber(rectangle[3], output);
+        output.write(",\"text\":");
+        writeString(text, output);
+        if (degraded) {
+            output.write(",\"degraded\":true");
+        }
+        output.write("}\n");
+    }
+
+    /**
+     * Write position number, rounded to 0.01 (the shortest exact float formatting takes most of the
+     * export time, and such precision is far below the size of printed character).
+     * @param value The number.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeNumber(float value, Writer output) throws IOException {
+        if (!Float.isFinite(value)) {
+            // Not representable in JSON.
+            output.write("null");
+            return;
+        }
+        if (Math.abs(value) >= MAX_ROUNDED_NUMBER) {
+            output.write(Float.toString(value));
+            return;
+        }
+        long hundredths = Math.round(value * 100.0);
+        char[] digits = new char[24];
+        int pos = digits.length;
+        long fraction = Math.abs(hundredths % 100);
+        if (fraction != 0) {
+            if (fraction % 10 != 0) {
+                digits[--pos] = (char) ('0' + fraction % 10);
+            }
+            digits[--pos] = (char) ('0' + fraction / 10);
+            digits[--pos] = '.';
+        }
+        long integer = Math.abs(hundredths / 100);
+        do {
+            digits[--pos] = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer > 0);
+        if (hundredths < 0) {
+            digits[--pos] = '-';
+        }
+        output.write(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * Write JSON string. The runs of characters, which need no escaping, are written at once.
+     * @param value The string (can be null).
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeString(String value, Writer output) throws IOException {
+        if (value == null) {
+            output.write("null");
+            return;
+        }
+        output.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c >= 0x20) && (c != '"') && (c != '\\')) {
+                continue;
+            }
+            output.write(value, start, i - start);
+            writeEscaped(c, output);
+            start = i + 1;
+        } //
+        output.write(value, start, length - start);
+        output.write('"');
+    }
+
+    protected void writeEscaped(char c, Writer output) throws IOException {
+        switch (c) {
+            case '"' -> output.write("\\\"");
+            case '\\' -> output.write("\\\\");
+            case '\n' -> output.write("\\n");
+            case '\r' -> output.write("\\r");
+            case '\t' -> output.write("\\t");
+            default -> {
+                output.write("\\u00");
+                output.write(HEX[c >> 4]);
+                output.write(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    /**
+     * Unsynchronized output buffer. The records are written with many small writes, and the buffered
+     * writers of JDK lock on every write.
+     */
+    protected static class OutputBuffer extends Writer {
+        protected Writer output;
+        protected char[] buf;
+        protected int length;
+
+        protected OutputBuffer(Writer output) {
+            this.output = output;
+            this.buf = new char[8192];
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (length == buf.length) {
+                drain();
+            }
+            buf[length++] = (char) c;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (len > buf.length - length) {
+                drain();
+                if (len > buf.length) {
+                    output.write(str, off, len);
+                    return;
+                }
+            }
+            str.getChars(off, off + len, buf, length);
+            length += len;
+        }
+
+        @Override
+        public void write(String str) throws IOException {
+            write(str, 0, str.length());
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            if (len > buf.length - length) {
+                drain();
+                if (len > buf.length) {
+                    output.write(chars, off, len);
+                    return;
+                }
+            }
+            System.arraycopy(chars, off, buf, length, len);
+            length += len;
+        }
+
+        /**
+         * Write the buffered characters to the output (without flushing it).
+         * @throws IOException If writing fails.
+         */
+        protected void drain() throws IOException {
+            if (length > 0) {
+                output.write(buf, 0, length);
+                length = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -2,58 +2,120 @@ package dsk.anotex.exporter;
 
 import dsk.anotex.core.AnnotatedDocument;
 import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Export annotated document to Markdown format.
+ * Export annotated document to Markdown format. The degraded annotations (whose text could not be
+ * extracted) are marked with a note.
  */
 public class MarkdownExporter implements AnnotationExporter {
+    protected static final String BR = System.lineSeparator();
 
     @Override
     public void export(AnnotatedDocument document, Map<String, Object> context, Writer output) {
-        String mdDocument = convert(document);
         try {
-            output.write(mdDocument);
+            writeHeader(document, output);
+            for (Annotation annotation : document.getAnnotations()) {
+                writeAnnotation(annotation, output);
+            } //
         }
         catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new UncheckedIOException(e);
         }
     }
 
+    @Override
+    public AnnotationListener createStreamingExport(Map<String, Object> context, Writer output) {
+        return new AnnotationListener() {
+            @Override
+            public void documentStarted(AnnotatedDocument document) {
+                try {
+                    writeHeader(document, output);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void annotationFound(Annotation annotation) {
+                try {
+                    writeAnnotation(annotation, output);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void documentFinished(AnnotatedDocument document) {
+                // Nothing more to write.
+            }
+        };
+    }
+
     /**
      * Convert annotated document to string in Markdown format.
      * @param document Document to convert.
      * @return The document as string.
      */
     protected String convert(AnnotatedDocument document) {
-        final String BR = System.lineSeparator();
+        StringWriter buf = new StringWriter(1024);
+        export(document, new HashMap<>(), buf);
+        return buf.toString();
+    }
+
+    /**
+     * Write the document header (title, subject and keywords).
+     * @param document The document.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeHeader(AnnotatedDocument document, Writer output) throws IOException {
         // TODO: Use specialized Markdown library if the requirements evolve
         // (currently this would be overkill).
-        StringBuilder buf = new StringBuilder(1024);
         if (document.getTitle() != null) {
-            buf.append("# ").append(document.getTitle()).append(" #");
-            buf.append(BR);
-            buf.append(BR);
+            output.write("# ");
+            output.write(document.getTitle());
+            output.write(" #");
+            output.write(BR);
+            output.write(BR);
         }
         String subject = document.getSubject();
         if (subject != null) {
-            buf.append("\"").append(subject).append("\"");
-            buf.append(BR);
+            output.write("\"");
+            output.write(subject);
+            output.write("\"");
+            output.write(BR);
         }
         List<String> keywords = document.getKeywords();
         if (!keywords.isEmpty()) {
-            buf.append(keywords);
-            buf.append(BR);
+            output.write(keywords.toString());
+            output.write(BR);
         }
-        buf.append(BR);
-        for (Annotation annotation : document.getAnnotations()) {
-            buf.append(annotation.getText());
-            buf.append(BR);
-        } //
-        return buf.toString();
+        output.write(BR);
+    }
+
+    /**
+     * Write single annotation.
+     * @param annotation The annotation.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected void writeAnnotation(Annotation annotation, Writer output) throws IOException {
+        output.write(String.valueOf(annotation.getText()));
+        if (annotation.isDegraded()) {
+            // The page was not parsed (extraction budget exceeded) - do not leave silent empty line.
+            output.write(String.format("*[Highlighted text on page %d not extracted]*", annotation.getPage()));
+        }
+        output.write(BR);
     }
 }
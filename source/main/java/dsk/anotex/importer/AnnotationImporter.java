@@ -1,6 +1,16 @@
 package dsk.anotex.importer;
 
 import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for importing annotations for different documents.
@@ -12,6 +22,58 @@ public interface AnnotationImporter {
      * @param fileName Document file name.
      * @return Document annotations.
      */
-    public AnnotatedDocument readAnnotations(String fileName);
+    public default AnnotatedDocument readAnnotations(String fileName) {
+        return readAnnotations(fileName, new HashMap<>());
+    }
+
+    /**
+     * Read annotations from given document file.
+     * @param fileName Document file name.
+     * @param context Import context (additional import settings).
+     * @return Document annotations.
+     */
+    public AnnotatedDocument readAnnotations(String fileName, Map<String, Object> context);
 
+    /**
+     * Read annotations from document content (in memory). The default implementation writes the content
+     * to temporary file.
+     * @param content Document content.
+     * @param context Import context (additional import settings).
+     * @return Annotated document.
+     */
+    public default AnnotatedDocument readAnnotations(byte[] content, Map<String, Object> context) {
+        File file = null;
+        try {
+            file = File.createTempFile("anotex", ".tmp");
+            Files.write(file.toPath(), content);
+            return readAnnotations(file.getPath(), context);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Read annotations from given document file and pass them to listener, as soon as they are read.
+     * The default implementation reads the complete document first.
+     * @param fileName Document file name.
+     * @param context Import context (additional import settings).
+     * @param listener Receiver of the annotations.
+     */
+    public default void readAnnotations(String fileName, Map<String, Object> context,
+            AnnotationListener listener) {
+        AnnotatedDocument document = readAnnotations(fileName, context);
+        List<Annotation> annotations = document.getAnnotations();
+        document.setAnnotations(null);
+        listener.documentStarted(document);
+        for (Annotation annotation : annotations) {
+            listener.annotationFound(annotation);
+        } //
+        listener.documentFinished(document);
+    }
 }
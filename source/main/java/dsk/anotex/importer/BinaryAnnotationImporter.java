@@ -0,0 +1,213 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import dsk.anotex.exporter.BinaryExporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Annotation importer for the binary format, written by {@link BinaryExporter}. The file is read at
+ * once and decoded from memory - there is no text parsing, so reading is much faster than the extraction
+ * from the original document.
+ */
+public class BinaryAnnotationImporter implements AnnotationImporter {
+    protected static final AnnotationType[] TYPES = AnnotationType.values();
+
+    @Override
+    public AnnotatedDocument readAnnotations(String fileName, Map<String, Object> context) {
+        return readAnnotations(readFile(fileName), context);
+    }
+
+    @Override
+    public AnnotatedDocument readAnnotations(byte[] content, Map<String, Object> context) {
+        Decoder decoder = new Decoder(content);
+        AnnotatedDocument document = decoder.readHeader();
+        List<Annotation> annotations = document.getAnnotations();
+        Annotation annotation;
+        while ((annotation = decoder.readAnnotation()) != null) {
+            annotations.add(annotation);
+        } //
+        return document;
+    }
+
+    @Override
+    public void readAnnotations(String fileName, Map<String, Object> context, AnnotationListener listener) {
+        Decoder decoder = new Decoder(readFile(fileName));
+        AnnotatedDocument document = decoder.readHeader();
+        listener.documentStarted(document);
+        Annotation annotation;
+        while ((annotation = decoder.readAnnotation()) != null) {
+            listener.annotationFound(annotation);
+        } //
+        listener.documentFinished(document);
+    }
+
+    protected byte[] readFile(String fileName) {
+        File file = new File(fileName);
+        if (!file.isFile()) {
+            String message = String.format("File '%s' does not exist", file.getName());
+            throw new IllegalArgumentException(message);
+        }
+        try {
+            return Files.readAllBytes(file.toPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reader of the binary format.
+     */
+    protected static class Decoder {
+        protected ByteBuffer input;
+        protected List<String> dictionary;
+
+        /**
+         * Constructor with specified parameters.
+         * @param content The file content.
+         */
+        protected Decoder(byte[] content) {
+            this.input = ByteBuffer.wrap(content);
+            this.dictionary = new ArrayList<>();
+        }
+
+        /**
+         * Read the file signature and the document fields.
+         * @return Document without annotations.
+         */
+        protected AnnotatedDocument readHeader() {
+            try {
+                byte[] magic = new byte[BinaryExporter.MAGIC.length];
+                input.get(magic);
+                if (!Arrays.equals(magic, BinaryExporter.MAGIC)) {
+                    throw new IllegalArgumentException("Not a binary annotation file");
+                }
+                int version = input.get();
+                if (version > BinaryExporter.VERSION) {
+                    String message = String.format("Unsupported binary format version %d", version);
+                    throw new IllegalArgumentException(message);
+                }
+                // The flags are informative only (the strings are self-describing).
+                input.get();
+                int end = readRecordEnd();
+                AnnotatedDocument document = new AnnotatedDocument();
+                document.setTitle(readString());
+                document.setSubject(readString());
+                document.setAuthor(readString());
+                document.setPageCount((int) readVarint());
+                long keywordCount = readVarint();
+                if (keywordCount > input.remaining()) {
+                    // Every keyword takes one byte at least.
+                    throw new BufferUnderflowException();
+                }
+                List<String> keywords = new ArrayList<>((int) keywordCount);
+                for (int i = 0; i < keywordCount; i++) {
+                    keywords.add(readString());
+                } //
+                document.setKeywords(keywords);
+                input.position(end);
+                return document;
+            }
+            catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Truncated binary annotation file", e);
+            }
+        }
+
+        /**
+         * Read the next annotation.
+         * @return The annotation or null (at the end of the file).
+         */
+        protected Annotation readAnnotation() {
+            try {
+                int kind = input.get();
+                while (kind != BinaryExporter.RECORD_ANNOTATION) {
+                    if (kind == BinaryExporter.RECORD_END) {
+                        return null;
+                    }
+                    // Unknown record (written by newer version).
+                    input.position(readRecordEnd());
+                    kind = input.get();
+                } //
+                int end = readRecordEnd();
+                int type = input.get();
+                Annotation annotation = new Annotation();
+                annotation.setType((type >= 0) && (type < TYPES.length) ? TYPES[type] : AnnotationType.OTHER);
+                annotation.setPage((int) readVarint());
+                annotation.setRectangle(input.getFloat(), input.getFloat(), input.getFloat(), input.getFloat());
+                annotation.setText(readString());
+                if (input.position() < end) {
+                    long flags = readVarint();
+                    annotation.setDegraded((flags & BinaryExporter.ANNOTATION_DEGRADED) != 0);
+                }
+                input.position(end);
+                return annotation;
+            }
+            catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Truncated binary annotation file", e);
+            }
+        }
+
+        /**
+         * Read record length.
+         * @return Position of the record end.
+         */
+        protected int readRecordEnd() {
+            long length = readVarint();
+            if (length > input.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            return input.position() + (int) length;
+        }
+
+        protected String readString() {
+            long header = readVarint();
+            int kind = (int) (header & 3);
+            long value = header >>> 2;
+            if (kind == BinaryExporter.STRING_NULL) {
+                return null;
+            }
+            if (kind == BinaryExporter.STRING_REFERENCE) {
+                return dictionary.get((int) value);
+            }
+            if (value > input.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            int length = (int) value;
+            String text = new String(input.array(), input.position(), length, StandardCharsets.UTF_8);
+            input.position(input.position() + length);
+            if (kind == BinaryExporter.STRING_DEFINITION) {
+                dictionary.add(text);
+            }
+            return text;
+        }
+
+        protected long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Invalid number in binary annotation file");
+                }
+                b = input.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
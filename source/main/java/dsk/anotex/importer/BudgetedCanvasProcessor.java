@@ -0,0 +1,33 @@
+package dsk.anotex.importer;
+
+import com.itextpdf.kernel.pdf.PdfLiteral;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+
+import java.util.List;
+
+/**
+ * Page content processor, which counts the processed operators against page budget. All operators are
+ * counted, including the operators of the nested forms. When the budget is exceeded, the processing is
+ * stopped with {@link ExtractionBudget.BudgetExceededException}.
+ */
+public class BudgetedCanvasProcessor extends PdfCanvasProcessor {
+    protected ExtractionBudget.PageBudget budget;
+
+    /**
+     * Constructor with specified parameters.
+     * @param listener Receiver of the content events.
+     * @param budget The page budget.
+     */
+    public BudgetedCanvasProcessor(IEventListener listener, ExtractionBudget.PageBudget budget) {
+        super(listener);
+        this.budget = budget;
+    }
+
+    @Override
+    protected void invokeOperator(PdfLiteral operator, List<PdfObject> operands) {
+        budget.countOperator();
+        super.invokeOperator(operator, operands);
+    }
+}
@@ -0,0 +1,184 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.Constants;
+import dsk.anotex.util.SettingsUtil;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits of the page content parsing of single document - time and number of the content stream operators,
+ * per page and for the whole document. Malformed or extremely complex pages (like deeply nested forms or
+ * huge vector drawings) can take minutes to parse; with the budget, their parsing is stopped and the
+ * highlights get only the text of their /Contents (they are marked as degraded).
+ * <p>
+ * The document budget is shared by the pages (also when they are extracted in parallel). The operators of
+ * page are added to the document total when the page is finished, so the concurrently parsed pages can
+ * exceed the document operator limit slightly. In the per annotation extraction mode, the page is parsed
+ * for every highlight and all the parsing is counted in the page budget.
+ * </p>
+ */
+public class ExtractionBudget {
+    // The time limits depend on the machine load, so they are off by default (the operator limits are not).
+    public static final int DEFAULT_PAGE_TIME_LIMIT = 0;
+    public static final int DEFAULT_PAGE_OPERATOR_LIMIT = 5000000;
+    public static final int DEFAULT_DOCUMENT_TIME_LIMIT = 0;
+    public static final int DEFAULT_DOCUMENT_OPERATOR_LIMIT = 100000000;
+    // The time is checked once per this number of operators (mask).
+    protected static final int TIME_CHECK_MASK = 15;
+
+    protected long pageTimeNanos;
+    protected long pageOperatorLimit;
+    protected long documentDeadline;
+    protected long documentOperatorLimit;
+    protected AtomicLong documentOperators;
+
+    /**
+     * Constructor with specified parameters.
+     * @param pageTimeMillis Maximal time to parse single page (0 for no limit).
+     * @param pageOperatorLimit Maximal number of operators of single page (0 for no limit).
+     * @param documentTimeMillis Maximal time to parse the document pages (0 for no limit), measured from now.
+     * @param documentOperatorLimit Maximal number of operators of all pages (0 for no limit).
+     */
+    public ExtractionBudget(long pageTimeMillis, long pageOperatorLimit, long documentTimeMillis,
+            long documentOperatorLimit) {
+        super();
+        this.pageTimeNanos = (pageTimeMillis > 0) ? pageTimeMillis * 1000000 : Long.MAX_VALUE;
+        this.pageOperatorLimit = (pageOperatorLimit > 0) ? pageOperatorLimit : Long.MAX_VALUE;
+        this.documentDeadline = (documentTimeMillis > 0) ? System.nanoTime() + documentTimeMillis * 1000000
+            : Long.MAX_VALUE;
+        this.documentOperatorLimit = (documentOperatorLimit > 0) ? documentOperatorLimit : Long.MAX_VALUE;
+        this.documentOperators = new AtomicLong();
+    }
+
+    /**
+     * Create budget of document extraction (it starts now).
+     * @param context Import context with the limits (see the limit settings in {@link Constants}).
+     * @return The budget.
+     */
+    public static ExtractionBudget create(Map<String, Object> context) {
+        return new ExtractionBudget(
+            SettingsUtil.getInt(context, Constants.PAGE_TIME_LIMIT, DEFAULT_PAGE_TIME_LIMIT),
+            SettingsUtil.getInt(context, Constants.PAGE_OPERATOR_LIMIT, DEFAULT_PAGE_OPERATOR_LIMIT),
+            SettingsUtil.getInt(context, Constants.DOCUMENT_TIME_LIMIT, DEFAULT_DOCUMENT_TIME_LIMIT),
+            SettingsUtil.getInt(context, Constants.DOCUMENT_OPERATOR_LIMIT, DEFAULT_DOCUMENT_OPERATOR_LIMIT));
+    }
+
+    /**
+     * Start budget of page. It is limited also by the rest of the document budget.
+     * @return The page budget.
+     */
+    public PageBudget startPage() {
+        long pageDeadline = (pageTimeNanos == Long.MAX_VALUE) ? Long.MAX_VALUE : System.nanoTime() + pageTimeNanos;
+        long documentLimit = documentOperatorLimit - documentOperators.get();
+        PageBudget page = new PageBudget();
+        if ((documentDeadline == Long.MAX_VALUE)
+                || ((pageDeadline != Long.MAX_VALUE) && (pageDeadline - documentDeadline < 0))) {
+            page.deadline = pageDeadline;
+            page.timeReason = "Page time limit exceeded";
+        }
+        else {
+            page.deadline = documentDeadline;
+            page.timeReason = "Document time limit exceeded";
+        }
+        if (pageOperatorLimit <= documentLimit) {
+            page.operatorLimit = pageOperatorLimit;
+            page.operatorReason = String.format("Page operator limit exceeded (%d)", pageOperatorLimit);
+        }
+        else {
+            page.operatorLimit = documentLimit;
+            page.operatorReason = "Document operator limit exceeded";
+        }
+        if (isExhausted()) {
+            // Do not start the parsing at all.
+            page.exceeded = (documentLimit <= 0) ? page.operatorReason : page.timeReason;
+        }
+        return page;
+    }
+
+    /**
+     * Finish page - add its operators to the document total.
+     * @param page The page budget.
+     */
+    public void finishPage(PageBudget page) {
+        documentOperators.addAndGet(page.operators);
+    }
+
+    /**
+     * Check if the document budget is spent.
+     * @return True if no more pages should be parsed.
+     */
+    public boolean isExhausted() {
+        return ((documentDeadline != Long.MAX_VALUE) && (System.nanoTime() - documentDeadline > 0))
+            || (documentOperators.get() >= documentOperatorLimit);
+    }
+
+    /**
+     * Budget of single page (used by one thread). Count the operators with {@link #countOperator()}.
+     */
+    public static class PageBudget {
+        protected long deadline;
+        protected String timeReason;
+        protected long operatorLimit;
+        protected String operatorReason;
+        protected long operators;
+        protected String exceeded;
+
+        protected PageBudget() {
+            super();
+        }
+
+        /**
+         * Count parsed operator and check the budget.
+         * @throws BudgetExceededException If the budget is exceeded.
+         */
+        public void countOperator() {
+            if (exceeded != null) {
+                throw new BudgetExceededException(exceeded);
+            }
+            operators++;
+            if (operators > operatorLimit) {
+                exceed(operatorReason);
+            }
+            if (((operators & TIME_CHECK_MASK) == 0) && (deadline != Long.MAX_VALUE)
+                    && (System.nanoTime() - deadline > 0)) {
+                exceed(timeReason);
+            }
+        }
+
+        /**
+         * Check if the budget is exceeded (the page content should not be parsed again).
+         * @return True if exceeded.
+         */
+        public boolean isExceeded() {
+            return exceeded != null;
+        }
+
+        /**
+         * Get the reason of the exceeded budget.
+         * @return The reason or null (if not exceeded).
+         */
+        public String getExceeded() {
+            return exceeded;
+        }
+
+        public long getOperators() {
+            return operators;
+        }
+
+        protected void exceed(String reason) {
+            exceeded = reason;
+            throw new BudgetExceededException(reason);
+        }
+    }
+
+    /**
+     * The parsing budget is exceeded.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+
+        public BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package dsk.anotex.importer;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index of glyph boundaries on single page (uniform grid). It is used to find the glyphs
+ * inside given area, without checking every glyph rendered on the page.
+ * <p>
+ * The glyph boundaries are kept in primitive array - 4 values (x, y, width, height) per glyph.
+ * Every glyph is registered only in the grid cell, containing its lower left corner. This is enough,
+ * because we search for the glyphs which fit in the area (and not for the ones crossing it). The glyphs
+ * with center inside the area are searched also in the cells below and left of the area, up to the
+ * maximal glyph size.
+ * </p>
+ */
+public class GlyphIndex {
+    // Desired average number of glyphs in one grid cell.
+    protected static final int CELL_CAPACITY = 4;
+    // Tolerance for the area boundaries (must be bigger than the one used by Rectangle.contains()).
+    protected static final float TOLERANCE = 0.01f;
+
+    protected float[] boxes;
+    protected int size;
+    protected float minX;
+    protected float minY;
+    protected float cellWidth;
+    protected float cellHeight;
+    // Maximal glyph width and height.
+    protected float maxWidth;
+    protected float maxHeight;
+    protected int columns;
+    protected int rows;
+    // Grid cells in compressed form: glyphs of cell N are cellGlyphs[cellStart[N] .. cellStart[N + 1]).
+    protected int[] cellStart;
+    protected int[] cellGlyphs;
+    // Glyphs with invalid (not finite) coordinates. They are always returned as candidates.
+    protected int[] looseGlyphs;
+
+    /**
+     * Create index over specified glyph boundaries.
+     * @param boxes Glyph boundaries (x, y, width, height for every glyph).
+     * @param size Number of glyphs.
+     */
+    public GlyphIndex(float[] boxes, int size) {
+        super();
+        this.boxes = boxes;
+        this.size = size;
+        build();
+    }
+
+    /**
+     * Get number of indexed glyphs.
+     * @return Number of glyphs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the glyphs which fit in specified area.
+     * @param x Area left coordinate.
+     * @param y Area bottom coordinate.
+     * @param width Area width.
+     * @param height Area height.
+     * @return Indexes of the found glyphs, in ascending order (rendering order).
+     */
+    public int[] findGlyphs(float x, float y, float width, float height) {
+        return find(x - TOLERANCE, y - TOLERANCE, x + width + TOLERANCE, y + height + TOLERANCE, false);
+    }
+
+    /**
+     * Find the glyphs with center inside specified area (they can cross the area boundaries).
+     * @param x Area left coordinate.
+     * @param y Area bottom coordinate.
+     * @param width Area width.
+     * @param height Area height.
+     * @return Indexes of the found glyphs, in ascending order (rendering order).
+     */
+    public int[] findGlyphCenters(float x, float y, float width, float height) {
+        return find(x - TOLERANCE, y - TOLERANCE, x + width + TOLERANCE, y + height + TOLERANCE, true);
+    }
+
+    /**
+     * Find the glyphs inside specified area.
+     * @param left Area left coordinate.
+     * @param bottom Area bottom coordinate.
+     * @param right Area right coordinate.
+     * @param top Area top coordinate.
+     * @param centers True to find the glyphs with center inside the area, false for the whole glyphs.
+     * @return Indexes of the found glyphs, in ascending order (rendering order).
+     */
+    protected int[] find(float left, float bottom, float right, float top, boolean centers) {
+        int[] found = new int[16];
+        int count = 0;
+        if ((columns > 0) && (right >= minX) && (top >= minY)) {
+            // The lower left corner of glyph with center inside is at most half of glyph size out.
+            int col1 = getColumn(centers ? left - maxWidth / 2 : left);
+            int col2 = getColumn(right);
+            int row1 = getRow(centers ? bottom - maxHeight / 2 : bottom);
+            int row2 = getRow(top);
+            for (int row = row1; row <= row2; row++) {
+                for (int col = col1; col <= col2; col++) {
+                    int cell = row * columns + col;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int glyph = cellGlyphs[i];
+                        int b = glyph * 4;
+                        float gx = boxes[b];
+                        float gy = boxes[b + 1];
+                        boolean inside;
+                        if (centers) {
+                            float cx = gx + boxes[b + 2] / 2;
+                            float cy = gy + boxes[b + 3] / 2;
+                            inside = (cx >= left) && (cy >= bottom) && (cx <= right) && (cy <= top);
+                        }
+                        else {
+                            inside = (gx >= left) && (gy >= bottom) && (gx + boxes[b + 2] <= right)
+                                && (gy + boxes[b + 3] <= top);
+                        }
+                        if (inside) {
+                            if (count == found.length) {
+                                found = Arrays.copyOf(found, count * 2);
+                            }
+                            found[count++] = glyph;
+                        }
+                    } //
+                } //
+            } //
+        }
+        for (int glyph : looseGlyphs) {
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = glyph;
+        } //
+        found = Arrays.copyOf(found, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Build the grid.
+     */
+    protected void build() {
+        // Calculate the area covered by the glyphs.
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        minX = Float.POSITIVE_INFINITY;
+        minY = Float.POSITIVE_INFINITY;
+        maxWidth = 0;
+        maxHeight = 0;
+        int looseCount = 0;
+        for (int i = 0; i < size; i++) {
+            float gx = boxes[i * 4];
+            float gy = boxes[i * 4 + 1];
+            if (isValid(i)) {
+                minX = Math.min(minX, gx);
+                minY = Math.min(minY, gy);
+                maxX = Math.max(maxX, gx);
+                maxY = Math.max(maxY, gy);
+                maxWidth = Math.max(maxWidth, Math.abs(boxes[i * 4 + 2]));
+                maxHeight = Math.max(maxHeight, Math.abs(boxes[i * 4 + 3]));
+            }
+            else {
+                looseCount++;
+            }
+        } //
+        looseGlyphs = new int[looseCount];
+        int indexed = size - looseCount;
+        if (indexed == 0) {
+            cellStart = new int[1];
+            cellGlyphs = new int[0];
+            columns = 0;
+            rows = 0;
+        }
+        else {
+            // Choose grid dimensions, proportional to the covered area.
+            float width = Math.max(maxX - minX, 1f);
+            float height = Math.max(maxY - minY, 1f);
+            int cells = Math.max(1, indexed / CELL_CAPACITY);
+            columns = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * width / height))));
+            rows = Math.max(1, cells / columns);
+            // Make the cells slightly bigger, so the maximal coordinates fall in the last cell.
+            cellWidth = width * 1.0001f / columns;
+            cellHeight = height * 1.0001f / rows;
+
+            // Count the glyphs per cell, then place them (counting sort keeps the rendering order).
+            cellStart = new int[columns * rows + 1];
+            int[] glyphCells = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (isValid(i)) {
+                    int cell = getRow(boxes[i * 4 + 1]) * columns + getColumn(boxes[i * 4]);
+                    glyphCells[i] = cell;
+                    cellStart[cell + 1]++;
+                }
+            } //
+            for (int i = 0; i < columns * rows; i++) {
+                cellStart[i + 1] += cellStart[i];
+            } //
+            cellGlyphs = new int[indexed];
+            int[] cellFill = Arrays.copyOf(cellStart, columns * rows);
+            for (int i = 0; i < size; i++) {
+                if (isValid(i)) {
+                    cellGlyphs[cellFill[glyphCells[i]]++] = i;
+                }
+            } //
+        }
+        int loose = 0;
+        for (int i = 0; (i < size) && (loose < looseCount); i++) {
+            if (!isValid(i)) {
+                looseGlyphs[loose++] = i;
+            }
+        } //
+    }
+
+    /**
+     * Check if the boundaries of specified glyph can be indexed.
+     * @param glyph Glyph index.
+     * @return True if the glyph boundaries are finite numbers.
+     */
+    protected boolean isValid(int glyph) {
+        int b = glyph * 4;
+        return Float.isFinite(boxes[b]) && Float.isFinite(boxes[b + 1])
+            && Float.isFinite(boxes[b + 2]) && Float.isFinite(boxes[b + 3]);
+    }
+
+    /**
+     * Get grid column for given horizontal coordinate.
+     * @param x The coordinate.
+     * @return Column index (limited to the grid boundaries).
+     */
+    protected int getColumn(float x) {
+        int col = (int) ((x - minX) / cellWidth);
+        return Math.max(0, Math.min(columns - 1, col));
+    }
+
+    /**
+     * Get grid row for given vertical coordinate.
+     * @param y The coordinate.
+     * @return Row index (limited to the grid boundaries).
+     */
+    protected int getRow(float y) {
+        int row = (int) ((y - minY) / cellHeight);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+}
@@ -23,6 +23,9 @@ public class ImporterFactory {
         if (FileFormat.PDF == format) {
             importer = new PdfAnnotationImporter();
         }
+        else if (FileFormat.BINARY == format) {
+            importer = new BinaryAnnotationImporter();
+        }
         else {
             String message = String.format("Unsupported import format '%s'", format);
             throw new IllegalArgumentException(message);
@@ -30,4 +33,13 @@ public class ImporterFactory {
         return importer;
     }
 
+    /**
+     * Check if there is annotation importer for specified file format.
+     * @param format File format.
+     * @return True if the format can be imported.
+     */
+    public static boolean isSupported(FileFormat format) {
+        return (FileFormat.PDF == format) || (FileFormat.BINARY == format);
+    }
+
 }
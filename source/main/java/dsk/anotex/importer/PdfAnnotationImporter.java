@@ -1,69 +1,288 @@
 package dsk.anotex.importer;
 
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
 import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfDocumentInfo;
 import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
 import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.ReaderProperties;
 import com.itextpdf.kernel.pdf.annot.PdfAnnotation;
 import com.itextpdf.kernel.pdf.annot.PdfTextMarkupAnnotation;
 import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
 import com.itextpdf.kernel.pdf.canvas.parser.filter.TextRegionEventFilter;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.FilteredTextEventListener;
+import dsk.anotex.Constants;
 import dsk.anotex.core.AnnotatedDocument;
 import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationList;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import dsk.anotex.monitoring.Metrics;
+import dsk.anotex.monitoring.PageExtractionEvent;
+import dsk.anotex.util.PageRange;
+import dsk.anotex.util.SettingsUtil;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Import annotations form PFD files.
  */
 public class PdfAnnotationImporter implements AnnotationImporter {
-    protected Logger log = LogManager.getLogger(this.getClass());
+    protected static final TextNormalizer HIGHLIGHT_NORMALIZER = TextNormalizer.createHighlightNormalizer();
+    protected static final TextNormalizer CONTENT_NORMALIZER = TextNormalizer.createContentNormalizer();
+    // Import context entry with the name of the document file (for the monitoring).
+    protected static final String SOURCE_FILE = "sourceFile";
+    // Import context entry with the extraction budget of the document (shared by the parallel workers).
+    protected static final String BUDGET = "extractionBudget";
+    // Created on first use (the logging system initialization is slow). Use getLog().
+    protected Logger log;
 
-    public AnnotatedDocument readAnnotations(String fileName) {
-        // Check the file existence.
+    public AnnotatedDocument readAnnotations(String fileName, Map<String, Object> context) {
+        File file = getInputFile(fileName);
+        context = withSourceFile(context, file);
+
+        // Extract the annotations.
+        int parallelism = SettingsUtil.getInt(context, Constants.PARALLELISM, 1);
+        AnnotatedDocument document;
+        if (parallelism > 1) {
+            document = extractAnnotationsInParallel(() -> readDocument(file), context, parallelism);
+        }
+        else {
+            try (PdfDocument pdfDocument = readDocument(file)) {
+                document = extractAnnotations(pdfDocument, context);
+            }
+        }
+        return document;
+    }
+
+    @Override
+    public AnnotatedDocument readAnnotations(byte[] content, Map<String, Object> context) {
+        int parallelism = SettingsUtil.getInt(context, Constants.PARALLELISM, 1);
+        AnnotatedDocument document;
+        if (parallelism > 1) {
+            document = extractAnnotationsInParallel(() -> readDocument(content), context, parallelism);
+        }
+        else {
+            try (PdfDocument pdfDocument = readDocument(content)) {
+                document = extractAnnotations(pdfDocument, context);
+            }
+        }
+        return document;
+    }
+
+    @Override
+    public void readAnnotations(String fileName, Map<String, Object> context, AnnotationListener listener) {
+        File file = getInputFile(fileName);
+        if (SettingsUtil.getInt(context, Constants.PARALLELISM, 1) > 1) {
+            // The parallel extraction completes the pages out of order. Pass the annotations at the end.
+            AnnotationImporter.super.readAnnotations(fileName, context, listener);
+            return;
+        }
+        context = withBudget(withSourceFile(context, file));
+
+        try (PdfDocument pdfDocument = readDocument(file)) {
+            AnnotatedDocument document = extractDocumentInfo(pdfDocument);
+            listener.documentStarted(document);
+            int[] pages = findAnnotatedPages(pdfDocument, getPageRange(context));
+            extractAnnotations(pdfDocument, pages, context, listener::annotationFound);
+            listener.documentFinished(document);
+        }
+    }
+
+    /**
+     * Get the logger (create it on first use).
+     * @return The logger.
+     */
+    protected Logger getLog() {
+        if (log == null) {
+            log = LogManager.getLogger(getClass());
+        }
+        return log;
+    }
+
+    /**
+     * Get the input file and check its existence.
+     * @param fileName File name.
+     * @return The input file.
+     */
+    protected File getInputFile(String fileName) {
         File file = new File(fileName).getAbsoluteFile();
         if (!file.isFile()) {
             String message = String.format("File '%s' does not exist", file.getName());
             throw new IllegalArgumentException(message);
         }
+        return file;
+    }
 
-        // Extract the annotations.
-        PdfDocument pdfDocument = readDocument(file);
-        return extractAnnotations(pdfDocument);
+    /**
+     * Create copy of the import context, with the source file name.
+     * @param context Import context.
+     * @param file Source file.
+     * @return The new context.
+     */
+    protected Map<String, Object> withSourceFile(Map<String, Object> context, File file) {
+        Map<String, Object> ret = new HashMap<>(context);
+        ret.put(SOURCE_FILE, file.getPath());
+        return ret;
+    }
+
+    /**
+     * Create copy of the import context, with new extraction budget (it starts now).
+     * @param context Import context.
+     * @return The new context.
+     */
+    protected Map<String, Object> withBudget(Map<String, Object> context) {
+        Map<String, Object> ret = new HashMap<>(context);
+        ret.put(BUDGET, ExtractionBudget.create(context));
+        return ret;
     }
 
     /**
-     * Read PDF document from file.
+     * Get the extraction budget of the document.
+     * @param context Import context.
+     * @return The budget (new one, if the context has none).
+     */
+    protected ExtractionBudget getBudget(Map<String, Object> context) {
+        Object budget = context.get(BUDGET);
+        return (budget instanceof ExtractionBudget) ? (ExtractionBudget) budget : ExtractionBudget.create(context);
+    }
+
+    /**
+     * Read PDF document from file. The file is memory mapped (in pages, for large files) and read
+     * partially - only the cross-reference table, the page tree and the objects, used by the extraction,
+     * are parsed. The returned document must be closed (it releases the file and the mapping).
      * @param file File name.
      * @return PDF document.
      */
     protected PdfDocument readDocument(File file) {
+        IRandomAccessSource source;
+        try {
+            source = new RandomAccessSourceFactory()
+                .setForceRead(false)
+                .createBestSource(file.getAbsolutePath());
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return readDocument(source);
+    }
+
+    /**
+     * Read PDF document from memory (without copying the content).
+     * @param content Document content.
+     * @return PDF document.
+     */
+    protected PdfDocument readDocument(byte[] content) {
+        return readDocument(new RandomAccessSourceFactory().createSource(content));
+    }
+
+    /**
+     * Read PDF document from random access source. The source is closed if the document is damaged.
+     * @param source Document source.
+     * @return PDF document.
+     */
+    protected PdfDocument readDocument(IRandomAccessSource source) {
+        long startTime = System.nanoTime();
         PdfDocument document;
         try {
-            document = new PdfDocument(new PdfReader(file.getAbsolutePath()));
+            document = new PdfDocument(new PdfReader(source, new ReaderProperties()));
         }
         catch (Exception e) {
+            try {
+                source.close();
+            }
+            catch (IOException ce) {
+                e.addSuppressed(ce);
+            }
             throw new IllegalArgumentException(e);
         }
+        Metrics.DOCUMENT_OPEN.recordSince(startTime);
         return document;
     }
 
     /**
      * Extract annotations from given PDF document.
      * @param pdfDocument PDF document.
+     * @param context Import context.
+     * @return Extracted annotations.
+     */
+    protected AnnotatedDocument extractAnnotations(PdfDocument pdfDocument, Map<String, Object> context) {
+        context = withBudget(context);
+        AnnotatedDocument document = extractDocumentInfo(pdfDocument);
+        int[] pages = findAnnotatedPages(pdfDocument, getPageRange(context));
+        List<Annotation> annotations = extractAnnotations(pdfDocument, pages, context);
+        document.setAnnotations(annotations);
+        return document;
+    }
+
+    /**
+     * Extract annotations from PDF document in parallel. The pages are distributed over fork-join pool
+     * and every worker thread reads its own copy of the document (IText objects are not thread safe).
+     * The copies share the document bytes (the content array or the mapped file pages). The annotations
+     * are merged in the page order.
+     * @param documents Reader of the document copies.
+     * @param context Import context.
+     * @param parallelism Number of worker threads.
      * @return Extracted annotations.
      */
-    protected AnnotatedDocument extractAnnotations(PdfDocument pdfDocument) {
+    protected AnnotatedDocument extractAnnotationsInParallel(Supplier<PdfDocument> documents,
+            Map<String, Object> context, int parallelism) {
+        AnnotatedDocument document;
+        int[] pages;
+        try (PdfDocument pdfDocument = documents.get()) {
+            document = extractDocumentInfo(pdfDocument);
+            pages = findAnnotatedPages(pdfDocument, getPageRange(context));
+        }
+        if (pages.length == 0) {
+            // Nothing to extract.
+            return document;
+        }
+
+        context = withBudget(context);
+        Map<Thread, PdfDocument> workerDocuments = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Several page ranges per worker (for better balancing of pages with different complexity).
+            int rangeSize = Math.max(1, pages.length / (parallelism * 4));
+            PageRangeTask task = new PageRangeTask(documents, context, pages, 0, pages.length - 1, rangeSize,
+                workerDocuments);
+            document.setAnnotations(pool.invoke(task));
+        }
+        finally {
+            pool.shutdown();
+            for (PdfDocument pdfDocument : workerDocuments.values()) {
+                pdfDocument.close();
+            } //
+        }
+        return document;
+    }
+
+    /**
+     * Extract document information (title, author, etc.) from given PDF document.
+     * @param pdfDocument PDF document.
+     * @return Annotated document (without annotations).
+     */
+    protected AnnotatedDocument extractDocumentInfo(PdfDocument pdfDocument) {
         AnnotatedDocument document = new AnnotatedDocument();
         PdfDocumentInfo pdfInfo = pdfDocument.getDocumentInfo();
         document.setTitle(pdfInfo.getTitle());
@@ -71,20 +290,198 @@ public class PdfAnnotationImporter implements AnnotationImporter {
         document.setAuthor(pdfInfo.getAuthor());
         List<String> keywords = convertToKeywords(pdfInfo.getKeywords());
         document.setKeywords(keywords);
+        document.setPageCount(pdfDocument.getNumberOfPages());
+        return document;
+    }
 
-        List<Annotation> annotations = new LinkedList<>();
-        for (int i = 1; i <= pdfDocument.getNumberOfPages(); i++) {
-            PdfPage page = pdfDocument.getPage(i);
-            for (PdfAnnotation pdfAnnotation : page.getAnnotations()) {
-                Annotation annotation = convertAnnotation(pdfAnnotation);
+    /**
+     * Extract annotations from given document pages.
+     * @param pdfDocument PDF document.
+     * @param pages Page numbers (1 based).
+     * @param context Import context.
+     * @return Extracted annotations (compact list, if {@link Constants#COMPACT_ANNOTATIONS} is set).
+     */
+    protected List<Annotation> extractAnnotations(PdfDocument pdfDocument, int[] pages,
+            Map<String, Object> context) {
+        List<Annotation> annotations;
+        if (SettingsUtil.getBoolean(context, Constants.COMPACT_ANNOTATIONS, false)) {
+            annotations = new AnnotationList();
+        }
+        else {
+            annotations = new ArrayList<>();
+        }
+        extractAnnotations(pdfDocument, pages, context, annotations::add);
+        return annotations;
+    }
+
+    /**
+     * Extract annotations from given document pages and pass every annotation to consumer. The page
+     * content parsing is limited with the extraction budget (see {@link ExtractionBudget}).
+     * @param pdfDocument PDF document.
+     * @param pages Page numbers (1 based).
+     * @param context Import context.
+     * @param consumer Receiver of the extracted annotations.
+     */
+    protected void extractAnnotations(PdfDocument pdfDocument, int[] pages, Map<String, Object> context,
+            Consumer<Annotation> consumer) {
+        boolean perPage = isPerPageExtraction(context);
+        ExtractionBudget budget = getBudget(context);
+        for (int pageNumber : pages) {
+            PageExtractionEvent event = new PageExtractionEvent();
+            event.begin();
+            long startTime = System.nanoTime();
+            PdfPage page = pdfDocument.getPage(pageNumber);
+            List<PdfAnnotation> pdfAnnotations = page.getAnnotations();
+            Metrics.PAGE_LOAD.recordSince(startTime);
+            // The page content is parsed on demand (only if some highlight needs it).
+            ExtractionBudget.PageBudget pageBudget = budget.startPage();
+            PdfPageGlyphs pageGlyphs = perPage ? new PdfPageGlyphs(page, pageBudget) : null;
+            int count = 0;
+            int highlights = 0;
+            for (PdfAnnotation pdfAnnotation : pdfAnnotations) {
+                Annotation annotation = convertAnnotation(pdfAnnotation, pageGlyphs, pageBudget);
                 if (annotation != null) {
-                    annotations.add(annotation);
+                    annotation.setPage(pageNumber);
+                    consumer.accept(annotation);
+                    count++;
+                }
+                if (PdfName.Highlight.equals(pdfAnnotation.getSubtype())) {
+                    highlights++;
                 }
             } //
+            budget.finishPage(pageBudget);
+            if (pageBudget.isExceeded()) {
+                getLog().warn("Page {} of '{}' is not parsed: {}", pageNumber, context.get(SOURCE_FILE),
+                    pageBudget.getExceeded());
+            }
+            if (event.shouldCommit()) {
+                event.file = (String) context.get(SOURCE_FILE);
+                event.page = pageNumber;
+                event.annotations = count;
+                event.highlights = highlights;
+                event.commit();
+            }
         } //
-        document.setAnnotations(annotations);
+    }
 
-        return document;
+    /**
+     * Find the pages which have annotations. This works directly with the page tree dictionaries, so
+     * the pages without annotations (and the pages outside the requested range) are not loaded.
+     * @param pdfDocument PDF document.
+     * @param pageRange Requested pages (null means all pages).
+     * @return Numbers of the pages with annotations (in ascending order).
+     */
+    protected int[] findAnnotatedPages(PdfDocument pdfDocument, PageRange pageRange) {
+        int pageCount = pdfDocument.getNumberOfPages();
+        int[] pages = new int[16];
+        int[] counters = new int[2]; // Number of visited pages, number of found pages.
+        boolean valid;
+        try {
+            PdfDictionary root = pdfDocument.getCatalog().getPdfObject().getAsDictionary(PdfName.Pages);
+            pages = scanPageTree(root, pageRange, pages, counters, 0);
+            valid = (counters[0] == pageCount);
+        }
+        catch (RuntimeException e) {
+            getLog().debug("Page tree scanning failed: {}", e.getMessage());
+            valid = false;
+        }
+        if (!valid) {
+            // Damaged page tree (IText fixes it when loading pages). Check every page.
+            counters[1] = 0;
+            for (int i = 1; i <= pageCount; i++) {
+                if (((pageRange == null) || pageRange.contains(i))
+                        && hasAnnotations(pdfDocument.getPage(i).getPdfObject())) {
+                    pages = append(pages, counters[1]++, i);
+                }
+            } //
+        }
+        return Arrays.copyOf(pages, counters[1]);
+    }
+
+    /**
+     * Scan page tree node for pages with annotations.
+     * @param node Page tree node (or page).
+     * @param pageRange Requested pages (null means all pages).
+     * @param pages Found page numbers.
+     * @param counters Number of visited pages and number of found pages.
+     * @param depth Depth of the node in the page tree.
+     * @return Found page numbers (the array can be reallocated).
+     */
+    protected int[] scanPageTree(PdfDictionary node, PageRange pageRange, int[] pages, int[] counters,
+            int depth) {
+        PdfArray kids = node.getAsArray(PdfName.Kids);
+        if (kids == null) {
+            // Page (leaf).
+            int pageNumber = ++counters[0];
+            if (((pageRange == null) || pageRange.contains(pageNumber)) && hasAnnotations(node)) {
+                pages = append(pages, counters[1]++, pageNumber);
+            }
+            return pages;
+        }
+        if (depth > 64) {
+            throw new IllegalStateException("Too deep (or cyclic) page tree");
+        }
+        for (int i = 0; i < kids.size(); i++) {
+            PdfDictionary kid = kids.getAsDictionary(i);
+            if (kid == null) {
+                throw new IllegalStateException("Invalid page tree node");
+            }
+            PdfNumber count = kid.getAsNumber(PdfName.Count);
+            if ((pageRange != null) && (count != null) && kid.containsKey(PdfName.Kids) && (count.intValue() > 0)
+                    && !pageRange.intersects(counters[0] + 1, counters[0] + count.intValue())) {
+                // No requested pages in this subtree - skip it without loading.
+                counters[0] += count.intValue();
+            }
+            else {
+                pages = scanPageTree(kid, pageRange, pages, counters, depth + 1);
+            }
+        } //
+        return pages;
+    }
+
+    /**
+     * Check if page dictionary has annotations.
+     * @param page Page dictionary.
+     * @return True if there are annotations.
+     */
+    protected boolean hasAnnotations(PdfDictionary page) {
+        PdfArray annotations = page.getAsArray(PdfName.Annots);
+        return (annotations != null) && !annotations.isEmpty();
+    }
+
+    /**
+     * Get the requested pages.
+     * @param context Import context.
+     * @return Page range or null (for all pages).
+     */
+    protected PageRange getPageRange(Map<String, Object> context) {
+        Object range = context.get(Constants.PAGE_RANGE);
+        PageRange pageRange = null;
+        if (range instanceof PageRange) {
+            pageRange = (PageRange) range;
+        }
+        else if (range != null) {
+            pageRange = PageRange.parse(range.toString());
+        }
+        return pageRange;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * Check if the highlighted text should be extracted from single pass over the page content.
+     * @param context Import context.
+     * @return True for single pass (per page) extraction.
+     */
+    protected boolean isPerPageExtraction(Map<String, Object> context) {
+        Object mode = context.get(Constants.EXTRACTION_MODE);
+        return !Constants.EXTRACTION_PER_ANNOTATION.equals(mode);
     }
 
     /**
@@ -93,7 +490,33 @@ public class PdfAnnotationImporter implements AnnotationImporter {
      * @return Converted annotation.
      */
     protected Annotation convertAnnotation(PdfAnnotation pdfAnnotation) {
+        return convertAnnotation(pdfAnnotation, null);
+    }
+
+    /**
+     * Convert document annotation to independent format.
+     * @param pdfAnnotation Annotation to be converted.
+     * @param pageGlyphs Glyphs of the annotation page. If null - the page content will be parsed
+     * for this annotation only.
+     * @return Converted annotation.
+     */
+    protected Annotation convertAnnotation(PdfAnnotation pdfAnnotation, PdfPageGlyphs pageGlyphs) {
+        return convertAnnotation(pdfAnnotation, pageGlyphs, null);
+    }
+
+    /**
+     * Convert document annotation to independent format. If the page content parsing exceeds the budget,
+     * the highlight gets only the text of its content (/Contents) and it is marked as degraded.
+     * @param pdfAnnotation Annotation to be converted.
+     * @param pageGlyphs Glyphs of the annotation page. If null - the page content will be parsed
+     * for this annotation only.
+     * @param budget Budget of the page parsing (null for no limits).
+     * @return Converted annotation.
+     */
+    protected Annotation convertAnnotation(PdfAnnotation pdfAnnotation, PdfPageGlyphs pageGlyphs,
+            ExtractionBudget.PageBudget budget) {
         String text = null;
+        boolean degraded = false;
         PdfString pdfText = pdfAnnotation.getContents();
         if (pdfText != null) {
             // The text is included in the annotation content (this is configurable feature of some PDF
@@ -111,28 +534,133 @@ public class PdfAnnotationImporter implements AnnotationImporter {
                 PdfTextMarkupAnnotation annotation = (PdfTextMarkupAnnotation) pdfAnnotation;
                 PdfArray textCoordinates = annotation.getRectangle();
                 Rectangle highlightedArea = textCoordinates.toRectangle();
-                log.debug("Rectangle coordinates: {}", annotation.getRectangle());
-                PdfTextExtractionStrategy strategy = new PdfTextExtractionStrategy(highlightedArea);
-                FilteredTextEventListener textFilter = new FilteredTextEventListener(
-                    strategy, new TextRegionEventFilter(highlightedArea));
-                String highlightedText = PdfTextExtractor.getTextFromPage(annotation.getPage(),
-                    textFilter);
-                log.debug("Highlighted text: {}", highlightedText);
-                // TODO: This could be part of the extraction strategy.
-                text = normalizeHighlightedText(highlightedText);
+                Rectangle[] regions = getHighlightedRegions(annotation, highlightedArea);
+                getLog().debug("Rectangle coordinates: {}", annotation.getRectangle());
+                Metrics.HIGHLIGHT_EXTRACTIONS.increment();
+                String highlightedText;
+                long startTime;
+                if (pageGlyphs != null) {
+                    // The page parsing is measured separately.
+                    pageGlyphs.getIndex();
+                    startTime = System.nanoTime();
+                    highlightedText = pageGlyphs.extractText(highlightedArea, regions);
+                    degraded = pageGlyphs.isDegraded();
+                }
+                else {
+                    startTime = System.nanoTime();
+                    PdfTextExtractionStrategy strategy = new PdfTextExtractionStrategy(highlightedArea, regions);
+                    FilteredTextEventListener textFilter = new FilteredTextEventListener(
+                        strategy, new TextRegionEventFilter(highlightedArea));
+                    highlightedText = extractText(annotation.getPage(), textFilter, budget);
+                    degraded = (highlightedText == null);
+                }
+                Metrics.REGION_EXTRACTION.recordSince(startTime);
+                getLog().debug("Highlighted text: {}", highlightedText);
+                if (degraded) {
+                    // Keep the annotation, with the content text only.
+                    Metrics.DEGRADED_ANNOTATIONS.increment();
+                    text = (text != null) ? text : "";
+                }
+                else {
+                    // TODO: This could be part of the extraction strategy.
+                    text = normalizeText(highlightedText, true);
+                }
             }
         }
+        else {
+            Metrics.CONTENT_TEXTS.increment();
+            text = normalizeText(text, false);
+        }
 
         Annotation annotation = null;
         if (text != null) {
             annotation = new Annotation();
-            text = stripUnwantedChunks(text);
-            text = removePollutionChars(text);
             annotation.setText(text);
+            annotation.setDegraded(degraded);
+            PdfName subtype = pdfAnnotation.getSubtype();
+            annotation.setType(AnnotationType.getByName((subtype != null) ? subtype.getValue() : null));
+            PdfArray pdfRectangle = pdfAnnotation.getRectangle();
+            if (pdfRectangle != null) {
+                Rectangle rectangle = pdfRectangle.toRectangle();
+                annotation.setRectangle(rectangle.getX(), rectangle.getY(), rectangle.getWidth(),
+                    rectangle.getHeight());
+            }
         }
         return annotation;
     }
 
+    /**
+     * Get the highlighted regions - bounding boxes of the highlight quadrilaterals (/QuadPoints), usually
+     * one per highlighted line. Unlike the annotation rectangle, they do not cover the not highlighted
+     * parts of the first and the last line.
+     * @param annotation The highlight.
+     * @param area The annotation rectangle.
+     * @return The regions, null if the highlight has no valid quadrilaterals (the whole rectangle is
+     * highlighted then).
+     */
+    protected Rectangle[] getHighlightedRegions(PdfTextMarkupAnnotation annotation, Rectangle area) {
+        PdfArray quadPoints = annotation.getQuadPoints();
+        if ((quadPoints == null) || quadPoints.isEmpty() || (quadPoints.size() % 8 != 0)) {
+            return null;
+        }
+        List<Rectangle> regions;
+        try {
+            regions = Rectangle.createBoundingRectanglesFromQuadPoint(quadPoints);
+        }
+        catch (RuntimeException e) {
+            // Not numbers.
+            return null;
+        }
+        for (Rectangle region : regions) {
+            if (!region.overlaps(area)) {
+                // Inconsistent annotation (probably the quadrilaterals are in other coordinates).
+                return null;
+            }
+        } //
+        return regions.toArray(new Rectangle[0]);
+    }
+
+    /**
+     * Extract text of the page content (in per annotation extraction mode).
+     * @param page The page.
+     * @param textFilter Text extraction strategy.
+     * @param budget Budget of the page parsing (null for no limits).
+     * @return Extracted text, null if the budget is exceeded.
+     */
+    protected String extractText(PdfPage page, FilteredTextEventListener textFilter,
+            ExtractionBudget.PageBudget budget) {
+        if (budget == null) {
+            return PdfTextExtractor.getTextFromPage(page, textFilter);
+        }
+        if (budget.isExceeded()) {
+            return null;
+        }
+        try {
+            new BudgetedCanvasProcessor(textFilter, budget).processPageContent(page);
+        }
+        catch (ExtractionBudget.BudgetExceededException e) {
+            return null;
+        }
+        return textFilter.getResultantText();
+    }
+
+    /**
+     * Normalize the annotation text in single pass. The result is the same as of
+     * {@link #normalizeHighlightedText(String)} (for highlighted text only), followed by
+     * {@link #stripUnwantedChunks(String)} and {@link #removePollutionChars(String)}.
+     * @param text The annotation text.
+     * @param highlighted True if the text is extracted from the highlighted area (false if it is
+     * taken from the annotation content).
+     * @return Normalized text.
+     */
+    protected String normalizeText(String text, boolean highlighted) {
+        long startTime = System.nanoTime();
+        TextNormalizer normalizer = highlighted ? HIGHLIGHT_NORMALIZER : CONTENT_NORMALIZER;
+        String normalized = normalizer.normalize(text);
+        Metrics.NORMALIZATION.recordSince(startTime);
+        return normalized;
+    }
+
     /**
      * Convert comma separated string to list of keywords.
      * @param sKeywords String to be converted.
@@ -148,7 +676,7 @@ public class PdfAnnotationImporter implements AnnotationImporter {
             keywords = Arrays.asList(words);
         }
         else {
-            keywords = new LinkedList<>();
+            keywords = new ArrayList<>();
         }
         return keywords;
     }
@@ -175,7 +703,8 @@ public class PdfAnnotationImporter implements AnnotationImporter {
 
     /**
      * Normalize highlighted text - when retrieved from PDF renderer, it contains defects (like
-     * additional spaces, inappropriate characters).
+     * additional spaces, inappropriate characters). This is the reference implementation of
+     * {@link #normalizeText(String, boolean)}.
      * @param highlightedText Highlighted text.
      * @return Normalized text.
      */
@@ -185,6 +714,7 @@ public class PdfAnnotationImporter implements AnnotationImporter {
 
     /**
      * Strip unwanted character before or after the annotation (these chunks are PDF library issue).
+     * This is the reference implementation of {@link #normalizeText(String, boolean)}.
      * @param text The text to strip.
      * @return Stripped text.
      */
@@ -201,6 +731,7 @@ public class PdfAnnotationImporter implements AnnotationImporter {
      * <ul>
      *     <li>Tab chars appear between words if the original text it aligned on both sides.</li>
      * </ul>
+     * This is the reference implementation of {@link #normalizeText(String, boolean)}.
      * @param text The text to clean.
      * @return Cleaned text.
      */
@@ -209,4 +740,62 @@ public class PdfAnnotationImporter implements AnnotationImporter {
         text = stripDoubleQuotes(text);
         return text;
     }
+
+    /**
+     * Fork-join task for extracting annotations from range of pages.
+     */
+    protected class PageRangeTask extends RecursiveTask<List<Annotation>> {
+        protected Supplier<PdfDocument> documents;
+        protected Map<String, Object> context;
+        protected int[] pages;
+        protected int from;
+        protected int to;
+        protected int rangeSize;
+        protected Map<Thread, PdfDocument> workerDocuments;
+
+        /**
+         * Constructor with specified parameters.
+         * @param documents Reader of the document copies.
+         * @param context Import context.
+         * @param pages Numbers of the pages to process.
+         * @param from Index of the first page of this task (in the page numbers array).
+         * @param to Index of the last page of this task (inclusive).
+         * @param rangeSize Maximal number of pages processed without splitting the task.
+         * @param workerDocuments The PDF documents of the worker threads.
+         */
+        public PageRangeTask(Supplier<PdfDocument> documents, Map<String, Object> context, int[] pages, int from, int to,
+                int rangeSize, Map<Thread, PdfDocument> workerDocuments) {
+            this.documents = documents;
+            this.context = context;
+            this.pages = pages;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+            this.workerDocuments = workerDocuments;
+        }
+
+        @Override
+        protected List<Annotation> compute() {
+            List<Annotation> annotations;
+            if (to - from < rangeSize) {
+                // Small enough - extract it with the document copy of the current worker.
+                PdfDocument pdfDocument = workerDocuments.computeIfAbsent(Thread.currentThread(),
+                    t -> documents.get());
+                annotations = extractAnnotations(pdfDocument, Arrays.copyOfRange(pages, from, to + 1), context);
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                PageRangeTask first = new PageRangeTask(documents, context, pages, from, middle, rangeSize,
+                    workerDocuments);
+                PageRangeTask second = new PageRangeTask(documents, context, pages, middle + 1, to, rangeSize,
+                    workerDocuments);
+                first.fork();
+                List<Annotation> secondAnnotations = second.compute();
+                annotations = first.join();
+                // Keep the page order.
+                annotations.addAll(secondAnnotations);
+            }
+            return annotations;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package dsk.anotex.importer;
+
+import com.itextpdf.kernel.geom.LineSegment;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.geom.Vector;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.CharacterRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import dsk.anotex.monitoring.Metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Characters (glyphs) rendered on single PDF page. The page content is parsed only once (on first
+ * request) and then the text from any number of page areas can be extracted from the collected glyphs.
+ * The extracted text is the same as when parsing the page with {@link PdfTextExtractionStrategy}
+ * for every area separately.
+ * <p>
+ * The glyph boundaries are stored in primitive arrays and indexed with {@link GlyphIndex}, so the
+ * extraction checks only the glyphs close to the extraction area.
+ * </p>
+ * If the page budget is exceeded, the parsing is stopped and no text is extracted (see {@link #isDegraded()}).
+ */
+public class PdfPageGlyphs implements IEventListener {
+    protected PdfPage page;
+    protected int size;
+    protected TextRenderInfo[] renderInfos;
+    // Glyph boundaries (x, y, width, height for every glyph).
+    protected float[] boxes;
+    // Baseline of the text snippet, containing the glyph (x1, y1, x2, y2 for every glyph).
+    protected float[] baselines;
+    protected GlyphIndex index;
+    protected ExtractionBudget.PageBudget budget;
+
+    /**
+     * Constructor with specified parameters.
+     * @param page The page to collect the glyphs from.
+     */
+    public PdfPageGlyphs(PdfPage page) {
+        this(page, null);
+    }
+
+    /**
+     * Constructor with specified parameters.
+     * @param page The page to collect the glyphs from.
+     * @param budget Budget of the page parsing (null for no limits).
+     */
+    public PdfPageGlyphs(PdfPage page, ExtractionBudget.PageBudget budget) {
+        super();
+        this.page = page;
+        this.budget = budget;
+    }
+
+    /**
+     * Extract the text rendered inside specified page area.
+     * @param area Extraction area.
+     * @return Extracted text.
+     */
+    public String extractText(Rectangle area) {
+        return extractText(area, null);
+    }
+
+    /**
+     * Extract the text rendered inside specified regions of page area. Only the glyphs close to the regions
+     * are checked (not the whole area), every glyph is extracted once (also if the regions overlap).
+     * @param area Extraction area.
+     * @param regions Regions of the extraction area (null for the whole area).
+     * @return Extracted text.
+     */
+    public String extractText(Rectangle area, Rectangle[] regions) {
+        PdfTextExtractionStrategy strategy = new PdfTextExtractionStrategy(area, regions);
+        int queries = (regions != null) ? regions.length : 1;
+        for (int r = 0; r < queries; r++) {
+            int[] candidates;
+            if (regions == null) {
+                candidates = getIndex().findGlyphs(area.getX(), area.getY(), area.getWidth(), area.getHeight());
+            }
+            else {
+                Rectangle region = regions[r];
+                candidates = getIndex().findGlyphCenters(region.getX(), region.getY(), region.getWidth(),
+                    region.getHeight());
+            }
+            for (int glyph : candidates) {
+                // Same condition as the one of TextRegionEventFilter (applied on the whole text snippet).
+                int b = glyph * 4;
+                if (area.intersectsLine(baselines[b], baselines[b + 1], baselines[b + 2], baselines[b + 3])) {
+                    Rectangle charArea = new Rectangle(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3]);
+                    int region = (regions != null) ? PdfTextExtractionStrategy.findRegion(regions, charArea) : r;
+                    if ((region == r) || (region < 0)) {
+                        // Not extracted with previous region.
+                        strategy.renderCharacter(renderInfos[glyph], charArea);
+                    }
+                }
+            } //
+        } //
+        return strategy.getResultantText();
+    }
+
+    /**
+     * Get the spatial index of the page glyphs (parse the page content, if not parsed yet).
+     * @return Glyph index.
+     */
+    public GlyphIndex getIndex() {
+        if (index == null) {
+            size = 0;
+            renderInfos = new TextRenderInfo[256];
+            boxes = new float[renderInfos.length * 4];
+            baselines = new float[renderInfos.length * 4];
+            long startTime = System.nanoTime();
+            if (budget == null) {
+                new PdfCanvasProcessor(this).processPageContent(page);
+            }
+            else if (!budget.isExceeded()) {
+                try {
+                    new BudgetedCanvasProcessor(this, budget).processPageContent(page);
+                }
+                catch (ExtractionBudget.BudgetExceededException e) {
+                    // Incomplete page - do not use its glyphs.
+                    size = 0;
+                }
+            }
+            index = new GlyphIndex(boxes, size);
+            Metrics.CONTENT_PARSE.recordSince(startTime);
+        }
+        return index;
+    }
+
+    /**
+     * Check if the page content was not parsed, because the page budget is exceeded.
+     * @return True if no text can be extracted.
+     */
+    public boolean isDegraded() {
+        return (budget != null) && budget.isExceeded();
+    }
+
+    @Override
+    public void eventOccurred(IEventData eventData, EventType eventType) {
+        if (EventType.RENDER_TEXT == eventType) {
+            TextRenderInfo data = (TextRenderInfo) eventData;
+            // The glyphs are used after the event is processed, so keep their graphics state.
+            data.preserveGraphicsState();
+            LineSegment baseline = data.getBaseline();
+            Vector start = baseline.getStartPoint();
+            Vector end = baseline.getEndPoint();
+            for (TextRenderInfo renderInfo : data.getCharacterRenderInfos()) {
+                Rectangle charArea = new CharacterRenderInfo(renderInfo).getBoundingBox();
+                if (size == renderInfos.length) {
+                    renderInfos = Arrays.copyOf(renderInfos, size * 2);
+                    boxes = Arrays.copyOf(boxes, size * 8);
+                    baselines = Arrays.copyOf(baselines, size * 8);
+                }
+                int b = size * 4;
+                boxes[b] = charArea.getX();
+                boxes[b + 1] = charArea.getY();
+                boxes[b + 2] = charArea.getWidth();
+                boxes[b + 3] = charArea.getHeight();
+                baselines[b] = start.get(Vector.I1);
+                baselines[b + 1] = start.get(Vector.I2);
+                baselines[b + 2] = end.get(Vector.I1);
+                baselines[b + 3] = end.get(Vector.I2);
+                renderInfos[size++] = renderInfo;
+            } //
+        }
+    }
+
+    @Override
+    public Set<EventType> getSupportedEvents() {
+        return Collections.unmodifiableSet(EnumSet.of(EventType.RENDER_TEXT));
+    }
+}
@@ -6,17 +6,39 @@ import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
 import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.CharacterRenderInfo;
 import com.itextpdf.kernel.pdf.canvas.parser.listener.LocationTextExtractionStrategy;
+import dsk.anotex.monitoring.HighlightExtractionEvent;
 
 /**
  * Pdf text extraction strategy, which cuts the text chunks crossing the extraction area.
  * By default, IText library does not cut such text snippets, so we do it here.
+ * <p>
+ * The extraction area can consist of several regions (like the lines of multi-line highlight, given by
+ * its quadrilaterals). Then only the characters inside the area, with center inside some of the regions,
+ * are extracted (the regions are often tight around the glyphs).
+ * </p>
  */
 public class PdfTextExtractionStrategy extends LocationTextExtractionStrategy {
     protected Rectangle extractionArea;
+    protected Rectangle[] regions;
+    protected int glyphsScanned;
+    protected int glyphsAccepted;
+    protected HighlightExtractionEvent event;
 
     public PdfTextExtractionStrategy(Rectangle extractionArea) {
+        this(extractionArea, null);
+    }
+
+    /**
+     * Constructor with specified parameters.
+     * @param extractionArea Extraction area (bounding box of the regions).
+     * @param regions Regions of the extraction area (null if the whole area is extracted).
+     */
+    public PdfTextExtractionStrategy(Rectangle extractionArea, Rectangle[] regions) {
         super();
         this.extractionArea = extractionArea;
+        this.regions = regions;
+        event = new HighlightExtractionEvent();
+        event.begin();
     }
 
     @Override
@@ -27,20 +49,74 @@ public class PdfTextExtractionStrategy extends LocationTextExtractionStrategy {
             for (TextRenderInfo renderInfo : data.getCharacterRenderInfos()) {
                 // Get the char rendering boundaries.
                 Rectangle charArea = new CharacterRenderInfo(renderInfo).getBoundingBox();
-                if (isInsideExtractionArea(charArea)) {
-                    // Extract this char.
-                    super.eventOccurred(renderInfo, eventType);
-                }
+                renderCharacter(renderInfo, charArea);
             } //
         }
     }
 
+    /**
+     * Extract single character, if it is inside the extraction area.
+     * @param charInfo Character rendering information.
+     * @param charArea Character rendering boundaries.
+     */
+    public void renderCharacter(TextRenderInfo charInfo, Rectangle charArea) {
+        glyphsScanned++;
+        if (isInsideExtractionArea(charArea)) {
+            // Extract this char.
+            glyphsAccepted++;
+            super.eventOccurred(charInfo, EventType.RENDER_TEXT);
+        }
+    }
+
+    @Override
+    public String getResultantText() {
+        String text = super.getResultantText();
+        commitEvent();
+        return text;
+    }
+
+    /**
+     * Commit the flight recorder event of this extraction (only once).
+     */
+    protected void commitEvent() {
+        if ((event != null) && event.shouldCommit()) {
+            event.x = extractionArea.getX();
+            event.y = extractionArea.getY();
+            event.width = extractionArea.getWidth();
+            event.height = extractionArea.getHeight();
+            event.area = event.width * event.height;
+            event.glyphsScanned = glyphsScanned;
+            event.glyphsAccepted = glyphsAccepted;
+            event.commit();
+        }
+        event = null;
+    }
+
     /**
      * Check if the rendered text intersects the extraction area.
      * @param textArea Text rendering area.
      * @return True if the text is inside.
      */
     protected boolean isInsideExtractionArea(Rectangle textArea) {
-        return extractionArea.contains(textArea);
+        return extractionArea.contains(textArea) && ((regions == null) || (findRegion(regions, textArea) >= 0));
+    }
+
+    /**
+     * Find the first region, containing center of given text.
+     * @param regions Regions of the extraction area.
+     * @param textArea Text rendering area.
+     * @return Index of the region, -1 if the text is outside all regions.
+     */
+    public static int findRegion(Rectangle[] regions, Rectangle textArea) {
+        float x = textArea.getX() + textArea.getWidth() / 2;
+        float y = textArea.getY() + textArea.getHeight() / 2;
+        for (int i = 0; i < regions.length; i++) {
+            Rectangle region = regions[i];
+            if ((x >= region.getLeft()) && (x <= region.getRight()) && (y >= region.getBottom())
+                    && (y <= region.getTop())) {
+                return i;
+            }
+        } //
+        return -1;
     }
 }
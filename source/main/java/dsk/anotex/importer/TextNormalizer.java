@@ -0,0 +1,371 @@
+package dsk.anotex.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalizer of the annotation text, working on single character buffer. The normalization is done by
+ * pluggable rules of three kinds:
+ * <ul>
+ *     <li>Character rules - replace or drop single characters. All of them are applied in one pass
+ *     over the input text.</li>
+ *     <li>Edge rules - strip unwanted chunks from the text start or end. They are applied (in the order
+ *     of adding) after the character rules and look only at the text edges.</li>
+ *     <li>Output rules - character rules, applied to the final text (after the edge rules).</li>
+ * </ul>
+ * Only the final string is allocated. If no rule changes the text, the input string is returned.
+ * The normalizer is thread safe, once its rules are set.
+ */
+public class TextNormalizer {
+    /** Character rule result, meaning that the character should be dropped. */
+    public static final int DROP = -1;
+
+    /** Replace every sequence of white spaces (as regular expression '\s+') with single space. */
+    public static final CharRule COLLAPSE_WHITESPACE = (c, previous) -> {
+        if (isWhitespace(c)) {
+            return (previous == ' ') ? DROP : ' ';
+        }
+        return c;
+    };
+
+    /** Replace the typographic double quotes with straight ones. */
+    public static final CharRule STRAIGHT_DOUBLE_QUOTES = (c, previous) ->
+        ((c == '“') || (c == '”')) ? '"' : c;
+
+    /** Replace the tab characters with spaces. */
+    public static final CharRule TAB_TO_SPACE = (c, previous) -> (c == '\t') ? ' ' : c;
+
+    /**
+     * Strip the leading chunk, consisting of optional lowercase letter, optional sentence end mark and
+     * space (as regular expression '^\p{javaLowerCase}?[.?!]? ').
+     */
+    public static final EdgeRule STRIP_LEADING_CHUNK = text -> {
+        int start = text.start;
+        int end = -1;
+        if (start < text.end) {
+            int cp = Character.codePointAt(text.chars, start, text.end);
+            if (Character.isLowerCase(cp)) {
+                end = text.matchSentenceSpace(start + Character.charCount(cp));
+            }
+        }
+        if (end < 0) {
+            end = text.matchSentenceSpace(start);
+        }
+        if (end > 0) {
+            text.start = end;
+        }
+    };
+
+    /**
+     * Strip the trailing chunk, consisting of space and optional letter (as regular expression
+     * ' \p{IsAlphabetic}?$'). Like the regular expression, it keeps the final line terminator.
+     */
+    public static final EdgeRule STRIP_TRAILING_CHUNK = text -> {
+        // Space, surrogate pair and CR LF are the longest possible match.
+        for (int i = Math.max(text.start, text.end - 5); i < text.end; i++) {
+            if (text.chars[i] != ' ') {
+                continue;
+            }
+            int next = i + 1;
+            if (next < text.end) {
+                int cp = Character.codePointAt(text.chars, next, text.end);
+                int afterLetter = next + Character.charCount(cp);
+                if (Character.isAlphabetic(cp) && text.isEnd(afterLetter)) {
+                    text.remove(i, afterLetter);
+                    return;
+                }
+            }
+            if (text.isEnd(next)) {
+                text.remove(i, next);
+                return;
+            }
+        } //
+    };
+
+    /**
+     * Strip the double quotes enclosing the text and trim it. Single double quote is left as is.
+     */
+    public static final EdgeRule STRIP_DOUBLE_QUOTES = text -> {
+        if ((text.end - text.start >= 2) && (text.chars[text.start] == '"')
+                && (text.chars[text.end - 1] == '"')) {
+            text.start++;
+            text.end--;
+            // The same as String.trim().
+            while ((text.start < text.end) && (text.chars[text.start] <= ' ')) {
+                text.start++;
+            } //
+            while ((text.start < text.end) && (text.chars[text.end - 1] <= ' ')) {
+                text.end--;
+            } //
+        }
+    };
+
+    protected List<CharRule> charRules;
+    protected List<EdgeRule> edgeRules;
+    protected List<CharRule> outputRules;
+
+    /**
+     * Create normalizer without rules.
+     */
+    public TextNormalizer() {
+        super();
+        charRules = new ArrayList<>();
+        edgeRules = new ArrayList<>();
+        outputRules = new ArrayList<>();
+    }
+
+    /**
+     * Create normalizer for the text, extracted from highlighted page area. It produces the same result
+     * as {@link PdfAnnotationImporter#normalizeHighlightedText(String)}, followed by
+     * {@link PdfAnnotationImporter#stripUnwantedChunks(String)} and
+     * {@link PdfAnnotationImporter#removePollutionChars(String)}.
+     * @return The normalizer.
+     */
+    public static TextNormalizer createHighlightNormalizer() {
+        return new TextNormalizer()
+            .addCharRule(COLLAPSE_WHITESPACE)
+            .addCharRule(STRAIGHT_DOUBLE_QUOTES)
+            .addCommonRules();
+    }
+
+    /**
+     * Create normalizer for the text, stored in the annotation content. It produces the same result as
+     * {@link PdfAnnotationImporter#stripUnwantedChunks(String)}, followed by
+     * {@link PdfAnnotationImporter#removePollutionChars(String)}.
+     * @return The normalizer.
+     */
+    public static TextNormalizer createContentNormalizer() {
+        return new TextNormalizer().addCommonRules();
+    }
+
+    /**
+     * Add character rule.
+     * @param rule The rule.
+     * @return This normalizer.
+     */
+    public TextNormalizer addCharRule(CharRule rule) {
+        charRules.add(rule);
+        return this;
+    }
+
+    /**
+     * Add edge rule.
+     * @param rule The rule.
+     * @return This normalizer.
+     */
+    public TextNormalizer addEdgeRule(EdgeRule rule) {
+        edgeRules.add(rule);
+        return this;
+    }
+
+    /**
+     * Add output rule (character rule, applied after the edge rules).
+     * @param rule The rule.
+     * @return This normalizer.
+     */
+    public TextNormalizer addOutputRule(CharRule rule) {
+        outputRules.add(rule);
+        return this;
+    }
+
+    /**
+     * Normalize given text.
+     * @param text The text.
+     * @return Normalized text.
+     */
+    public String normalize(String text) {
+        int length = text.length();
+        Text buf = new Text(new char[length]);
+        text.getChars(0, length, buf.chars, 0);
+        boolean changed = apply(charRules, buf.chars, 0, length, buf);
+        for (EdgeRule rule : edgeRules) {
+            rule.apply(buf);
+        } //
+        // The output rules are applied in place.
+        changed |= apply(outputRules, buf.chars, buf.start, buf.end, null);
+        if (!changed && (buf.start == 0) && (buf.end == length)) {
+            return text;
+        }
+        return new String(buf.chars, buf.start, buf.end - buf.start);
+    }
+
+    /**
+     * Apply character rules to given characters.
+     * @param rules The rules.
+     * @param chars The characters (the result is written in the same array).
+     * @param from First character index.
+     * @param to End character index (exclusive).
+     * @param text Text to update with the result length (null if the rules can not drop characters).
+     * @return True if some character was changed.
+     */
+    protected boolean apply(List<CharRule> rules, char[] chars, int from, int to, Text text) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        boolean changed = false;
+        int out = from;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            int result = c;
+            char previous = (out > from) ? chars[out - 1] : 0;
+            for (CharRule rule : rules) {
+                result = rule.apply((char) result, previous);
+                if (result == DROP) {
+                    break;
+                }
+            } //
+            if (result != c) {
+                changed = true;
+            }
+            if (result != DROP) {
+                chars[out++] = (char) result;
+            }
+        } //
+        if (out != to) {
+            if (text == null) {
+                throw new IllegalStateException("Output rules can not drop characters");
+            }
+            text.end = out;
+        }
+        return changed;
+    }
+
+    /**
+     * Add the rules, common for all annotation texts.
+     * @return This normalizer.
+     */
+    protected TextNormalizer addCommonRules() {
+        // The regular expression versions of the edge rules do not match tab instead of space, so the
+        // tabs are replaced at the end. It does not affect the double quotes stripping (trim() removes
+        // both).
+        return addEdgeRule(STRIP_LEADING_CHUNK)
+            .addEdgeRule(STRIP_TRAILING_CHUNK)
+            .addEdgeRule(STRIP_DOUBLE_QUOTES)
+            .addEdgeRule(STRIP_DOUBLE_QUOTES)
+            .addOutputRule(TAB_TO_SPACE);
+    }
+
+    /**
+     * Check if given character is white space (as regular expression '\s').
+     * @param c The character.
+     * @return True for white space.
+     */
+    protected static boolean isWhitespace(char c) {
+        return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\u000B') || (c == '\f') || (c == '\r');
+    }
+
+    /**
+     * Rule, applied to every text character.
+     */
+    @FunctionalInterface
+    public interface CharRule {
+        /**
+         * Apply the rule to single character.
+         * @param c The character.
+         * @param previous The last character, written to the output (0 at the text start).
+         * @return Replacement character (or the same one) or {@link #DROP}.
+         */
+        int apply(char c, char previous);
+    }
+
+    /**
+     * Rule, applied to the text edges.
+     */
+    @FunctionalInterface
+    public interface EdgeRule {
+        /**
+         * Apply the rule.
+         * @param text The text to modify.
+         */
+        void apply(Text text);
+    }
+
+    /**
+     * Text being normalized - part of character buffer.
+     */
+    public static class Text {
+        protected char[] chars;
+        protected int start;
+        protected int end;
+
+        public Text(char[] chars) {
+            this.chars = chars;
+            this.start = 0;
+            this.end = chars.length;
+        }
+
+        /**
+         * Get the text length.
+         * @return Text length.
+         */
+        public int length() {
+            return end - start;
+        }
+
+        /**
+         * Get character at given position.
+         * @param index Character index (relative to the text start).
+         * @return The character.
+         */
+        public char charAt(int index) {
+            return chars[start + index];
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+
+        /**
+         * Remove characters from the text.
+         * @param from First buffer index to remove.
+         * @param to End buffer index (exclusive).
+         */
+        protected void remove(int from, int to) {
+            System.arraycopy(chars, to, chars, from, end - to);
+            end -= to - from;
+        }
+
+        /**
+         * Match optional sentence end mark, followed by space.
+         * @param index Buffer index to match at.
+         * @return Buffer index after the match or -1 (no match).
+         */
+        protected int matchSentenceSpace(int index) {
+            int ret = -1;
+            if (index < end) {
+                char c = chars[index];
+                if ((c == '.') || (c == '?') || (c == '!')) {
+                    if ((index + 1 < end) && (chars[index + 1] == ' ')) {
+                        ret = index + 2;
+                    }
+                }
+                else if (c == ' ') {
+                    ret = index + 1;
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Check if given position is text end (as regular expression '$' - the end of text or the final
+         * line terminator).
+         * @param index Buffer index.
+         * @return True for text end.
+         */
+        protected boolean isEnd(int index) {
+            if (index == end) {
+                return true;
+            }
+            if (index == end - 1) {
+                char c = chars[index];
+                if (c == '\n') {
+                    // Not between CR and LF.
+                    return (index == start) || (chars[index - 1] != '\r');
+                }
+                return (c == '\r') || (c == '\u0085') || (c == '\u2028') || (c == '\u2029');
+            }
+            return (index == end - 2) && (chars[index] == '\r') && (chars[index + 1] == '\n');
+        }
+    }
+}
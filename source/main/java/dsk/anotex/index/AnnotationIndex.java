@@ -0,0 +1,421 @@
+package dsk.anotex.index;
+
+import dsk.anotex.core.AnnotatedDocument;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent full text index of annotated documents. The annotation texts and the document metadata (title,
+ * author and keywords) are indexed, and the query returns the matching annotations with their document
+ * and page.
+ * <p>
+ * The index directory contains immutable segment files (see {@link IndexSegment}) and the 'segments' file
+ * with their list and the deleted documents. The added documents are kept in memory until
+ * {@link #commit()}, which writes them as new segment. Document added again (re-extracted) replaces its
+ * previous version - the old one is only marked as deleted. The segments are merged by size tiers: when
+ * there are {@link #MERGE_FACTOR} segments of similar size (the same power of the factor), they are merged
+ * into one, which also drops the deleted documents. So every document is rewritten only few times
+ * (logarithmic count), and there are at most {@link #MERGE_FACTOR} - 1 segments per tier.
+ * </p>
+ * The index is thread safe. The queries do not block the updates, and see the last committed state.
+ */
+public class AnnotationIndex implements Closeable {
+    protected static final String SEGMENTS_FILE = "segments";
+    protected static final String SEGMENT_PREFIX = "seg-";
+    protected static final String SEGMENT_EXTENSION = ".idx";
+    protected static final int MERGE_FACTOR = 10;
+
+    protected File dir;
+    // Committed state for the queries (replaced at commit, never modified).
+    protected volatile List<LiveSegment> segments;
+
+    // Guarded by this.
+    protected Map<String, IndexedDocument> pending;
+    protected Set<String> removed;
+    protected int nextSegment;
+    // Modification time of the segments file, when it was read.
+    protected long segmentsModified;
+    protected boolean closed;
+
+    /**
+     * Open index (it is created if missing).
+     * @param dir Index directory.
+     */
+    public AnnotationIndex(File dir) {
+        super();
+        this.dir = dir;
+        this.pending = new LinkedHashMap<>();
+        this.removed = new HashSet<>();
+        dir.mkdirs();
+        this.segments = readSegments();
+        deleteUnusedFiles();
+    }
+
+    /**
+     * Add document to the index (replacing its previous version). It is searchable after the next commit.
+     * @param path Document path (identifies the document).
+     * @param document The annotated document.
+     */
+    public void addDocument(String path, AnnotatedDocument document) {
+        IndexedDocument content = IndexedDocument.of(path, document);
+        synchronized (this) {
+            checkOpen();
+            pending.put(path, content);
+        }
+    }
+
+    /**
+     * Remove document from the index (after the next commit).
+     * @param path Document path.
+     */
+    public synchronized void removeDocument(String path) {
+        checkOpen();
+        pending.remove(path);
+        removed.add(path);
+    }
+
+    /**
+     * Write the changes since the last commit.
+     */
+    public synchronized void commit() {
+        checkOpen();
+        if (pending.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        // Mark the replaced and removed documents as deleted (in copies, the queries may use the old ones).
+        Set<String> deletedPaths = new HashSet<>(removed);
+        deletedPaths.addAll(pending.keySet());
+        List<LiveSegment> newSegments = new ArrayList<>(segments.size() + 1);
+        for (LiveSegment segment : segments) {
+            newSegments.add(segment.delete(deletedPaths));
+        } //
+        if (!pending.isEmpty()) {
+            SegmentWriter writer = new SegmentWriter();
+            for (IndexedDocument document : pending.values()) {
+                writer.addDocument(document);
+            } //
+            newSegments.add(writeSegment(writer));
+        }
+        newSegments.removeIf(s -> s.getLiveCount() == 0);
+        List<LiveSegment> written = new ArrayList<>(newSegments);
+        List<LiveSegment> sources;
+        while ((sources = findMerge(newSegments)) != null) {
+            LiveSegment merged = merge(sources);
+            written.add(merged);
+            newSegments.set(newSegments.indexOf(sources.getFirst()), merged);
+            newSegments.removeAll(sources);
+        } //
+        writeSegments(newSegments);
+        List<LiveSegment> oldSegments = segments;
+        segments = newSegments;
+        pending.clear();
+        removed.clear();
+
+        // Delete the segment files, which are not used anymore.
+        Set<String> used = new HashSet<>();
+        for (LiveSegment segment : newSegments) {
+            used.add(segment.segment.getName());
+        } //
+        written.addAll(oldSegments);
+        for (LiveSegment segment : written) {
+            if (!used.contains(segment.segment.getName())) {
+                // Can fail while mapped (on some systems) - then it is deleted on the next open.
+                new File(dir, segment.segment.getName()).delete();
+            }
+        } //
+    }
+
+    /**
+     * Search the annotations. The query terms are separated with spaces, and all of them must match the
+     * annotation text or the metadata of its document. Term ending with '*' matches all terms with that
+     * prefix. The terms are case insensitive.
+     * @param query The query.
+     * @param limit Maximal number of the returned matches.
+     * @return The matching annotations (in the index order).
+     */
+    public List<QueryMatch> search(String query, int limit) {
+        List<byte[]> terms = new ArrayList<>();
+        List<Boolean> prefixes = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            List<String> tokens = Tokenizer.tokenize(part);
+            for (int i = 0; i < tokens.size(); i++) {
+                terms.add(tokens.get(i).getBytes(StandardCharsets.UTF_8));
+                prefixes.add(part.endsWith("*") && (i == tokens.size() - 1));
+            } //
+        } //
+        List<QueryMatch> matches = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return matches;
+        }
+        for (LiveSegment live : segments) {
+            IndexSegment segment = live.segment;
+            BitSet result = null;
+            for (int i = 0; i < terms.size(); i++) {
+                BitSet termResult = new BitSet();
+                segment.match(terms.get(i), prefixes.get(i), termResult);
+                if (result == null) {
+                    result = termResult;
+                }
+                else {
+                    result.and(termResult);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            } //
+            for (int doc = live.deleted.nextSetBit(0); (doc >= 0) && !result.isEmpty();
+                    doc = live.deleted.nextSetBit(doc + 1)) {
+                result.clear(segment.getFirstAnnotation(doc), segment.getFirstAnnotation(doc + 1));
+            } //
+            for (int a = result.nextSetBit(0); a >= 0; a = result.nextSetBit(a + 1)) {
+                if (matches.size() >= limit) {
+                    return matches;
+                }
+                int doc = segment.getAnnotationDocument(a);
+                matches.add(new QueryMatch(segment.getPath(doc), segment.getTitle(doc),
+                    segment.getAnnotationPage(a), segment.getAnnotationText(a)));
+            } //
+        } //
+        return matches;
+    }
+
+    /**
+     * Get the number of the committed documents.
+     * @return Document count.
+     */
+    public int getDocumentCount() {
+        int count = 0;
+        for (LiveSegment segment : segments) {
+            count += segment.getLiveCount();
+        } //
+        return count;
+    }
+
+    /**
+     * Get the number of the segment files.
+     * @return Segment count.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Commit the pending changes and close the index.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            commit();
+            closed = true;
+        }
+    }
+
+    protected void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Index is closed");
+        }
+    }
+
+    /**
+     * Find segments to merge - {@link #MERGE_FACTOR} segments of the smallest size tier, which has so many.
+     * @param candidates The segments (all with live documents).
+     * @return Segments to merge or null (no merge is needed).
+     */
+    protected List<LiveSegment> findMerge(List<LiveSegment> candidates) {
+        Map<Integer, List<LiveSegment>> tiers = new HashMap<>();
+        for (LiveSegment segment : candidates) {
+            tiers.computeIfAbsent(getTier(segment), k -> new ArrayList<>()).add(segment);
+        } //
+        List<LiveSegment> result = null;
+        int resultTier = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, List<LiveSegment>> e : tiers.entrySet()) {
+            if ((e.getValue().size() >= MERGE_FACTOR) && (e.getKey() < resultTier)) {
+                resultTier = e.getKey();
+                result = e.getValue().subList(0, MERGE_FACTOR);
+            }
+        } //
+        return result;
+    }
+
+    /**
+     * Get the size tier of segment.
+     * @param segment The segment.
+     * @return Logarithm of the live document count (with base {@link #MERGE_FACTOR}).
+     */
+    protected int getTier(LiveSegment segment) {
+        int tier = 0;
+        for (int count = segment.getLiveCount(); count >= MERGE_FACTOR; count /= MERGE_FACTOR) {
+            tier++;
+        } //
+        return tier;
+    }
+
+    /**
+     * Merge segments into one (without the deleted documents).
+     * @param sources The segments.
+     * @return The merged segment.
+     */
+    protected LiveSegment merge(List<LiveSegment> sources) {
+        SegmentWriter writer = new SegmentWriter();
+        for (LiveSegment source : sources) {
+            for (int doc = 0; doc < source.segment.getDocumentCount(); doc++) {
+                if (!source.deleted.get(doc)) {
+                    writer.addDocument(source.segment.getDocument(doc));
+                }
+            } //
+        } //
+        return writeSegment(writer);
+    }
+
+    protected LiveSegment writeSegment(SegmentWriter writer) {
+        File file = new File(dir, String.format("%s%05d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_EXTENSION));
+        writer.write(file);
+        return new LiveSegment(IndexSegment.open(file), new BitSet());
+    }
+
+    /**
+     * Read the segments file. Every line contains segment file name and the deleted document numbers
+     * (separated with tab).
+     * @return The segments.
+     */
+    protected List<LiveSegment> readSegments() {
+        List<LiveSegment> result = new ArrayList<>();
+        File file = new File(dir, SEGMENTS_FILE);
+        if (!file.isFile()) {
+            return result;
+        }
+        segmentsModified = file.lastModified();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts[0].isEmpty()) {
+                    continue;
+                }
+                BitSet deleted = new BitSet();
+                for (int i = 1; i < parts.length; i++) {
+                    deleted.set(Integer.parseInt(parts[i]));
+                } //
+                result.add(new LiveSegment(IndexSegment.open(new File(dir, parts[0])), deleted));
+                int number = Integer.parseInt(parts[0].substring(SEGMENT_PREFIX.length(),
+                    parts[0].length() - SEGMENT_EXTENSION.length()));
+                nextSegment = Math.max(nextSegment, number + 1);
+            } //
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Write the segments file (atomically - the index is never seen in incomplete state).
+     * @param newSegments The segments.
+     */
+    protected void writeSegments(List<LiveSegment> newSegments) {
+        File file = new File(dir, SEGMENTS_FILE);
+        File tempFile = new File(dir, SEGMENTS_FILE + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                for (LiveSegment segment : newSegments) {
+                    writer.write(segment.segment.getName());
+                    for (int doc = segment.deleted.nextSetBit(0); doc >= 0;
+                            doc = segment.deleted.nextSetBit(doc + 1)) {
+                        writer.write("\t" + doc);
+                    } //
+                    writer.write('\n');
+                } //
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete the segment files, which are not used anymore (left by failed commit or delete). Only the files
+     * older than the read segments file are deleted - the newer ones can belong to commit of other process.
+     */
+    protected void deleteUnusedFiles() {
+        Set<String> used = new HashSet<>();
+        for (LiveSegment segment : segments) {
+            used.add(segment.segment.getName());
+        } //
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && !used.contains(name)
+                    && (file.lastModified() < segmentsModified)) {
+                file.delete();
+            }
+        } //
+    }
+
+    /**
+     * Segment with its deleted documents.
+     */
+    protected static class LiveSegment {
+        protected IndexSegment segment;
+        protected BitSet deleted;
+        protected Map<String, Integer> documents;
+
+        protected LiveSegment(IndexSegment segment, BitSet deleted) {
+            this.segment = segment;
+            this.deleted = deleted;
+            this.documents = new HashMap<>();
+            for (int doc = 0; doc < segment.getDocumentCount(); doc++) {
+                if (!deleted.get(doc)) {
+                    documents.put(segment.getPath(doc), doc);
+                }
+            } //
+        }
+
+        /**
+         * Get segment with deleted documents.
+         * @param paths Paths of the deleted documents.
+         * @return This segment, if it has none of the documents. Otherwise its copy.
+         */
+        protected LiveSegment delete(Set<String> paths) {
+            BitSet newDeleted = null;
+            for (String path : paths) {
+                Integer doc = documents.get(path);
+                if (doc != null) {
+                    if (newDeleted == null) {
+                        newDeleted = (BitSet) deleted.clone();
+                    }
+                    newDeleted.set(doc);
+                }
+            } //
+            return (newDeleted == null) ? this : new LiveSegment(segment, newDeleted);
+        }
+
+        protected int getLiveCount() {
+            return documents.size();
+        }
+    }
+}
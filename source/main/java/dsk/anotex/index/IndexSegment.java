@@ -0,0 +1,271 @@
+package dsk.anotex.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable index segment - memory mapped file, which is read in place (nothing is loaded on open).
+ * The file layout (big endian numbers):
+ * <pre>
+ * header:      "DYIX", version, document count, annotation count, term count and the section offsets
+ * documents:   path, title, author, keywords (string offsets), first annotation - plus end sentinel
+ * annotations: document, page, text (string offset)
+ * terms:       term (string offset), annotation postings offset and count, document postings offset
+ *              and count - sorted by the UTF-8 bytes of the term
+ * postings:    ascending numbers as variable length deltas
+ * strings:     variable length byte count and the UTF-8 bytes
+ * </pre>
+ * The annotations of every document are stored together, so the document postings (the metadata
+ * terms) match a range of annotations. The reads are thread safe.
+ */
+public class IndexSegment {
+    protected static final byte[] MAGIC = {'D', 'Y', 'I', 'X'};
+    protected static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 40;
+    protected static final int DOCUMENT_ENTRY_SIZE = 20;
+    protected static final int ANNOTATION_ENTRY_SIZE = 12;
+    protected static final int TERM_ENTRY_SIZE = 20;
+    protected static final int NULL_REFERENCE = -1;
+
+    protected String name;
+    protected ByteBuffer buffer;
+    protected int documentCount;
+    protected int annotationCount;
+    protected int termCount;
+    protected int documentTable;
+    protected int annotationTable;
+    protected int termTable;
+
+    protected IndexSegment(String name, ByteBuffer buffer) {
+        this.name = name;
+        this.buffer = buffer;
+        byte[] magic = new byte[MAGIC.length];
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new IllegalArgumentException(String.format("Invalid index segment '%s'", name));
+        }
+        buffer.get(0, magic);
+        if (!Arrays.equals(MAGIC, magic) || (buffer.getInt(4) != VERSION)) {
+            throw new IllegalArgumentException(String.format("Invalid index segment '%s'", name));
+        }
+        documentCount = buffer.getInt(8);
+        annotationCount = buffer.getInt(12);
+        termCount = buffer.getInt(16);
+        documentTable = buffer.getInt(20);
+        annotationTable = buffer.getInt(24);
+        termTable = buffer.getInt(28);
+    }
+
+    /**
+     * Open segment file.
+     * @param file Segment file.
+     * @return The segment.
+     */
+    public static IndexSegment open(File file) {
+        // The mapping stays valid after the channel is closed.
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new IndexSegment(file.getName(), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getAnnotationCount() {
+        return annotationCount;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    public String getPath(int document) {
+        return getString(buffer.getInt(documentTable + document * DOCUMENT_ENTRY_SIZE));
+    }
+
+    public String getTitle(int document) {
+        return getString(buffer.getInt(documentTable + document * DOCUMENT_ENTRY_SIZE + 4));
+    }
+
+    /**
+     * Get the index of the first annotation of document.
+     * @param document Document number (document count for the end of the last document).
+     * @return The annotation index.
+     */
+    public int getFirstAnnotation(int document) {
+        return buffer.getInt(documentTable + document * DOCUMENT_ENTRY_SIZE + 16);
+    }
+
+    public int getAnnotationDocument(int annotation) {
+        return buffer.getInt(annotationTable + annotation * ANNOTATION_ENTRY_SIZE);
+    }
+
+    public int getAnnotationPage(int annotation) {
+        return buffer.getInt(annotationTable + annotation * ANNOTATION_ENTRY_SIZE + 4);
+    }
+
+    public String getAnnotationText(int annotation) {
+        return getString(buffer.getInt(annotationTable + annotation * ANNOTATION_ENTRY_SIZE + 8));
+    }
+
+    /**
+     * Read the whole document back (for merging of segments).
+     * @param document Document number.
+     * @return The document content.
+     */
+    public IndexedDocument getDocument(int document) {
+        int entry = documentTable + document * DOCUMENT_ENTRY_SIZE;
+        int first = getFirstAnnotation(document);
+        int count = getFirstAnnotation(document + 1) - first;
+        int[] pages = new int[count];
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++) {
+            pages[i] = getAnnotationPage(first + i);
+            texts[i] = getAnnotationText(first + i);
+        } //
+        return new IndexedDocument(getString(buffer.getInt(entry)), getString(buffer.getInt(entry + 4)),
+            getString(buffer.getInt(entry + 8)), getString(buffer.getInt(entry + 12)), pages, texts);
+    }
+
+    /**
+     * Find the annotations, matching term.
+     * @param term UTF-8 bytes of the term.
+     * @param prefix True to match all terms, starting with the given one.
+     * @param result Where to set the numbers of the matching annotations.
+     */
+    public void match(byte[] term, boolean prefix, BitSet result) {
+        int index = findTerm(term);
+        if (!prefix) {
+            if (index >= 0) {
+                addPostings(index, result);
+            }
+            return;
+        }
+        for (int i = (index >= 0) ? index : -index - 1; i < termCount; i++) {
+            if (!startsWith(i, term)) {
+                break;
+            }
+            addPostings(i, result);
+        } //
+    }
+
+    /**
+     * Find term with binary search.
+     * @param term UTF-8 bytes of the term.
+     * @return Index of the term, or (-insertion point - 1) if it is missing.
+     */
+    protected int findTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareTerm(middle, term);
+            if (comparison < 0) {
+                low = middle + 1;
+            }
+            else if (comparison > 0) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        } //
+        return -low - 1;
+    }
+
+    /**
+     * Compare stored term with given one (by unsigned bytes, without decoding).
+     * @param index Index of the stored term.
+     * @param term UTF-8 bytes of the term.
+     * @return Comparison result.
+     */
+    protected int compareTerm(int index, byte[] term) {
+        ByteBuffer input = buffer.duplicate().position(buffer.getInt(termTable + index * TERM_ENTRY_SIZE));
+        int length = readVarInt(input);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(input.get() & 0xFF, term[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        } //
+        return Integer.compare(length, term.length);
+    }
+
+    protected boolean startsWith(int index, byte[] prefix) {
+        ByteBuffer input = buffer.duplicate().position(buffer.getInt(termTable + index * TERM_ENTRY_SIZE));
+        int length = readVarInt(input);
+        if (length < prefix.length) {
+            return false;
+        }
+        for (byte b : prefix) {
+            if (input.get() != b) {
+                return false;
+            }
+        } //
+        return true;
+    }
+
+    /**
+     * Set the annotations of term postings. The document postings match all annotations of the document.
+     * @param index Term index.
+     * @param result Where to set the annotation numbers.
+     */
+    protected void addPostings(int index, BitSet result) {
+        int entry = termTable + index * TERM_ENTRY_SIZE;
+        ByteBuffer input = buffer.duplicate().position(buffer.getInt(entry + 4));
+        int value = 0;
+        for (int i = buffer.getInt(entry + 8); i > 0; i--) {
+            value += readVarInt(input);
+            result.set(value);
+        } //
+        input.position(buffer.getInt(entry + 12));
+        value = 0;
+        for (int i = buffer.getInt(entry + 16); i > 0; i--) {
+            value += readVarInt(input);
+            result.set(getFirstAnnotation(value), getFirstAnnotation(value + 1));
+        } //
+    }
+
+    protected String getString(int offset) {
+        if (offset == NULL_REFERENCE) {
+            return null;
+        }
+        ByteBuffer input = buffer.duplicate().position(offset);
+        int length = readVarInt(input);
+        byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected int readVarInt(ByteBuffer input) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        } //
+        throw new IllegalArgumentException(String.format("Invalid index segment '%s'", name));
+    }
+
+    @Override
+    public String toString() {
+        return "{" + name + '}';
+    }
+}
@@ -0,0 +1,84 @@
+package dsk.anotex.index;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Indexed content of single document - the searchable metadata and the annotation texts with their pages.
+ * Annotations without text are not indexed.
+ */
+public class IndexedDocument {
+    protected String path;
+    protected String title;
+    protected String author;
+    protected String keywords;
+    protected int[] pages;
+    protected String[] texts;
+
+    public IndexedDocument(String path, String title, String author, String keywords, int[] pages,
+            String[] texts) {
+        this.path = path;
+        this.title = title;
+        this.author = author;
+        this.keywords = keywords;
+        this.pages = pages;
+        this.texts = texts;
+    }
+
+    /**
+     * Create indexed content of annotated document.
+     * @param path Document path.
+     * @param document The annotated document.
+     * @return The indexed content.
+     */
+    public static IndexedDocument of(String path, AnnotatedDocument document) {
+        List<Annotation> annotations = document.getAnnotations();
+        List<Integer> pages = new ArrayList<>(annotations.size());
+        List<String> texts = new ArrayList<>(annotations.size());
+        for (Annotation annotation : annotations) {
+            if ((annotation.getText() != null) && !annotation.getText().isBlank()) {
+                pages.add(annotation.getPage());
+                texts.add(annotation.getText());
+            }
+        } //
+        String keywords = document.getKeywords().isEmpty() ? null : String.join(", ", document.getKeywords());
+        return new IndexedDocument(path, document.getTitle(), document.getAuthor(), keywords,
+            pages.stream().mapToInt(Integer::intValue).toArray(), texts.toArray(new String[0]));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public int getAnnotationCount() {
+        return texts.length;
+    }
+
+    public int getPage(int index) {
+        return pages[index];
+    }
+
+    public String getText(int index) {
+        return texts[index];
+    }
+
+    @Override
+    public String toString() {
+        return "{" + path + '}';
+    }
+}
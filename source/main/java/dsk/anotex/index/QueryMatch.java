@@ -0,0 +1,39 @@
+package dsk.anotex.index;
+
+/**
+ * Annotation, matching index query.
+ */
+public class QueryMatch {
+    protected String path;
+    protected String title;
+    protected int page;
+    protected String text;
+
+    public QueryMatch(String path, String title, int page, String text) {
+        this.path = path;
+        this.title = title;
+        this.page = page;
+        this.text = text;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + path + ", page " + page + '}';
+    }
+}
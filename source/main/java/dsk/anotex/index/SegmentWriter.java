@@ -0,0 +1,244 @@
+package dsk.anotex.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer of index segment file (see {@link IndexSegment} for the layout). The documents are collected
+ * in memory and the whole segment is written at once.
+ */
+public class SegmentWriter {
+    protected List<IndexedDocument> documents;
+    protected int annotationCount;
+
+    public SegmentWriter() {
+        super();
+        documents = new ArrayList<>();
+    }
+
+    /**
+     * Add document to the segment.
+     * @param document The document.
+     */
+    public void addDocument(IndexedDocument document) {
+        documents.add(document);
+        annotationCount += document.getAnnotationCount();
+    }
+
+    /**
+     * Get the documents of the segment.
+     * @return The documents (in their segment order).
+     */
+    public List<IndexedDocument> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Write the segment. The file is written under temporary name first, so it never appears incomplete.
+     * @param file Segment file.
+     */
+    public void write(File file) {
+        // Invert the documents.
+        Map<String, Postings> terms = new HashMap<>();
+        int annotation = 0;
+        for (int doc = 0; doc < documents.size(); doc++) {
+            IndexedDocument document = documents.get(doc);
+            for (String field : new String[] {document.getTitle(), document.getAuthor(), document.getKeywords()}) {
+                for (String term : Tokenizer.tokenize(field)) {
+                    terms.computeIfAbsent(term, Postings::new).documents.add(doc);
+                } //
+            } //
+            for (int i = 0; i < document.getAnnotationCount(); i++) {
+                for (String term : Tokenizer.tokenize(document.getText(i))) {
+                    terms.computeIfAbsent(term, Postings::new).annotations.add(annotation);
+                } //
+                annotation++;
+            } //
+        } //
+        Postings[] sortedTerms = terms.values().toArray(new Postings[0]);
+        Arrays.sort(sortedTerms, (a, b) -> Arrays.compareUnsigned(a.bytes, b.bytes));
+
+        // Variable size data, with offsets relative to their sections.
+        Section postings = new Section();
+        Section strings = new Section();
+        int documentTableStart = IndexSegment.HEADER_SIZE;
+        int annotationTableStart = documentTableStart + (documents.size() + 1) * IndexSegment.DOCUMENT_ENTRY_SIZE;
+        int termTableStart = annotationTableStart + annotationCount * IndexSegment.ANNOTATION_ENTRY_SIZE;
+        long postingsStart = termTableStart + (long) sortedTerms.length * IndexSegment.TERM_ENTRY_SIZE;
+        int[] termEntries = new int[sortedTerms.length * 5];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            Postings term = sortedTerms[i];
+            termEntries[i * 5] = strings.writeEncoded(term.bytes);
+            termEntries[i * 5 + 1] = postings.size();
+            termEntries[i * 5 + 2] = term.annotations.write(postings);
+            termEntries[i * 5 + 3] = postings.size();
+            termEntries[i * 5 + 4] = term.documents.write(postings);
+        } //
+        long stringsStart = postingsStart + postings.size();
+        List<int[]> documentEntries = new ArrayList<>(documents.size());
+        List<int[]> annotationEntries = new ArrayList<>(annotationCount);
+        annotation = 0;
+        for (int doc = 0; doc < documents.size(); doc++) {
+            IndexedDocument document = documents.get(doc);
+            documentEntries.add(new int[] {strings.writeString(document.getPath()),
+                strings.writeString(document.getTitle()), strings.writeString(document.getAuthor()),
+                strings.writeString(document.getKeywords()), annotation});
+            for (int i = 0; i < document.getAnnotationCount(); i++) {
+                annotationEntries.add(new int[] {doc, document.getPage(i), strings.writeString(document.getText(i))});
+                annotation++;
+            } //
+        } //
+        if (stringsStart + strings.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index segment is too large");
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(tempFile.toPath());
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 64 * 1024))) {
+                output.write(IndexSegment.MAGIC);
+                output.writeInt(IndexSegment.VERSION);
+                output.writeInt(documents.size());
+                output.writeInt(annotationCount);
+                output.writeInt(sortedTerms.length);
+                output.writeInt(documentTableStart);
+                output.writeInt(annotationTableStart);
+                output.writeInt(termTableStart);
+                output.writeInt((int) postingsStart);
+                output.writeInt((int) stringsStart);
+                for (int[] entry : documentEntries) {
+                    for (int i = 0; i < 4; i++) {
+                        output.writeInt(toAbsolute(entry[i], stringsStart));
+                    } //
+                    output.writeInt(entry[4]);
+                } //
+                // Sentinel with the end of the last document annotations.
+                for (int i = 0; i < 4; i++) {
+                    output.writeInt(IndexSegment.NULL_REFERENCE);
+                } //
+                output.writeInt(annotationCount);
+                for (int[] entry : annotationEntries) {
+                    output.writeInt(entry[0]);
+                    output.writeInt(entry[1]);
+                    output.writeInt(toAbsolute(entry[2], stringsStart));
+                } //
+                for (int i = 0; i < sortedTerms.length; i++) {
+                    output.writeInt(toAbsolute(termEntries[i * 5], stringsStart));
+                    output.writeInt(toAbsolute(termEntries[i * 5 + 1], postingsStart));
+                    output.writeInt(termEntries[i * 5 + 2]);
+                    output.writeInt(toAbsolute(termEntries[i * 5 + 3], postingsStart));
+                    output.writeInt(termEntries[i * 5 + 4]);
+                } //
+                postings.writeTo(output);
+                strings.writeTo(output);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            tempFile.delete();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected int toAbsolute(int offset, long sectionStart) {
+        return (offset == IndexSegment.NULL_REFERENCE) ? offset : (int) (sectionStart + offset);
+    }
+
+    /**
+     * Postings of single term.
+     */
+    protected static class Postings {
+        protected byte[] bytes;
+        protected PostingList annotations;
+        protected PostingList documents;
+
+        protected Postings(String term) {
+            this.bytes = term.getBytes(StandardCharsets.UTF_8);
+            this.annotations = new PostingList();
+            this.documents = new PostingList();
+        }
+    }
+
+    /**
+     * Ascending list of numbers (the repeated numbers are added once).
+     */
+    protected static class PostingList {
+        protected int[] values = new int[2];
+        protected int size;
+
+        protected void add(int value) {
+            if ((size > 0) && (values[size - 1] == value)) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Write the list as deltas of the consecutive numbers.
+         * @param output Where to write.
+         * @return Number of the written numbers.
+         */
+        protected int write(Section output) {
+            int previous = 0;
+            for (int i = 0; i < size; i++) {
+                output.writeVarInt(values[i] - previous);
+                previous = values[i];
+            } //
+            return size;
+        }
+    }
+
+    /**
+     * Section of variable size data.
+     */
+    protected static class Section extends ByteArrayOutputStream {
+
+        protected Section() {
+            super(64 * 1024);
+        }
+
+        protected void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            } //
+            write(value);
+        }
+
+        /**
+         * Write string (length and UTF-8 bytes).
+         * @param value The string (can be null).
+         * @return Offset of the string.
+         */
+        protected int writeString(String value) {
+            if (value == null) {
+                return IndexSegment.NULL_REFERENCE;
+            }
+            return writeEncoded(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        protected int writeEncoded(byte[] bytes) {
+            int offset = size();
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+            return offset;
+        }
+    }
+}
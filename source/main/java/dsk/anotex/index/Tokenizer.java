@@ -0,0 +1,47 @@
+package dsk.anotex.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Split text to index terms. The terms are the lower case runs of letters and digits. Longer terms than
+ * {@link #MAX_TERM_LENGTH} are ignored (they are rarely searched, and only grow the term dictionary).
+ */
+public class Tokenizer {
+    public static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+        // Utility class.
+    }
+
+    /**
+     * Get the terms of text.
+     * @param text The text (can be null).
+     * @return The terms (in the text order, with duplicates).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; ) {
+            int c = (i < length) ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+            }
+            else if (start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+            i += Character.charCount(c);
+        } //
+        return terms;
+    }
+}
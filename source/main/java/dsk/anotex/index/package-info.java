@@ -0,0 +1,4 @@
+/**
+ * Full text index of the extracted annotations.
+ */
+package dsk.anotex.index;
@@ -0,0 +1,46 @@
+package dsk.anotex.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter.
+ */
+public class Counter extends Metric {
+    protected LongAdder value;
+
+    public Counter(String name, String help) {
+        super(name, help);
+        value = new LongAdder();
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long count) {
+        value.add(count);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    @Override
+    public void reset() {
+        value.reset();
+    }
+
+    @Override
+    protected void writePrometheus(Writer output) throws IOException {
+        output.write("# HELP " + name + ' ' + help + '\n');
+        output.write("# TYPE " + name + " counter\n");
+        output.write(name + ' ' + get() + '\n');
+    }
+
+    @Override
+    protected void writeJson(Writer output) throws IOException {
+        output.write("{\"type\": \"counter\", \"value\": " + get() + '}');
+    }
+}
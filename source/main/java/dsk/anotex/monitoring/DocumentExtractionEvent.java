@@ -0,0 +1,33 @@
+package dsk.anotex.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for annotation extraction from single document.
+ */
+@Name("dsk.anotex.DocumentExtraction")
+@Label("Document Extraction")
+@Category("DyAnnotationExtractor")
+@Description("Annotations read from single document")
+public class DocumentExtractionEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Pages")
+    public int pages;
+
+    @Label("Annotations")
+    public int annotations;
+
+    @Label("Cached")
+    @Description("The annotations were taken from the cache")
+    public boolean cached;
+}
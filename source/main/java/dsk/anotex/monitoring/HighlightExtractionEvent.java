@@ -0,0 +1,39 @@
+package dsk.anotex.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for text extraction from highlighted page area.
+ */
+@Name("dsk.anotex.HighlightExtraction")
+@Label("Highlight Text Extraction")
+@Category("DyAnnotationExtractor")
+@Description("Text extracted from highlighted page area")
+public class HighlightExtractionEvent extends jdk.jfr.Event {
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+
+    @Label("Width")
+    public float width;
+
+    @Label("Height")
+    public float height;
+
+    @Label("Area")
+    @Description("Highlighted area (square points)")
+    public float area;
+
+    @Label("Glyphs Scanned")
+    @Description("Glyphs checked against the highlighted area")
+    public int glyphsScanned;
+
+    @Label("Glyphs Accepted")
+    @Description("Glyphs inside the highlighted area")
+    public int glyphsAccepted;
+}
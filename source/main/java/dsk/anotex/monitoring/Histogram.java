@@ -0,0 +1,107 @@
+package dsk.anotex.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of observed values, with fixed bucket boundaries. It is used for latencies (in seconds)
+ * and for sizes (like pages per document).
+ */
+public class Histogram extends Metric {
+    /** Bucket boundaries for latencies (seconds). */
+    public static final double[] LATENCY_BUCKETS = {
+        0.00001, 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 60};
+    /** Bucket boundaries for sizes (counts). */
+    public static final double[] SIZE_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 5000, 10000};
+
+    protected double[] bounds;
+    // Observations per bucket (not cumulative). The last one is for the values above all boundaries.
+    protected LongAdder[] buckets;
+    protected LongAdder count;
+    protected DoubleAdder sum;
+
+    /**
+     * Constructor with specified parameters.
+     * @param name Histogram name.
+     * @param help Histogram description.
+     * @param bounds Upper boundaries of the buckets (inclusive, in ascending order).
+     */
+    public Histogram(String name, String help, double[] bounds) {
+        super(name, help);
+        this.bounds = bounds.clone();
+        buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        } //
+        count = new LongAdder();
+        sum = new DoubleAdder();
+    }
+
+    /**
+     * Record observed value.
+     * @param value The value.
+     */
+    public void record(double value) {
+        int i = 0;
+        while ((i < bounds.length) && (value > bounds[i])) {
+            i++;
+        } //
+        buckets[i].increment();
+        count.increment();
+        sum.add(value);
+    }
+
+    /**
+     * Record the time elapsed from given start time (in seconds).
+     * @param startNanos Start time (from {@link System#nanoTime()}).
+     */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1e9);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        } //
+        count.reset();
+        sum.reset();
+    }
+
+    @Override
+    protected void writePrometheus(Writer output) throws IOException {
+        output.write("# HELP " + name + ' ' + help + '\n');
+        output.write("# TYPE " + name + " histogram\n");
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = (i < bounds.length) ? format(bounds[i]) : "+Inf";
+            output.write(name + "_bucket{le=\"" + bound + "\"} " + cumulative + '\n');
+        } //
+        output.write(name + "_sum " + format(getSum()) + '\n');
+        output.write(name + "_count " + getCount() + '\n');
+    }
+
+    @Override
+    protected void writeJson(Writer output) throws IOException {
+        output.write("{\"type\": \"histogram\", \"count\": " + getCount() + ", \"sum\": " + format(getSum())
+            + ", \"buckets\": {");
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = (i < bounds.length) ? format(bounds[i]) : "+Inf";
+            output.write(((i > 0) ? ", " : "") + '"' + bound + "\": " + cumulative);
+        } //
+        output.write("}}");
+    }
+}
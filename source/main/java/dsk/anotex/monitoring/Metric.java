@@ -0,0 +1,65 @@
+package dsk.anotex.monitoring;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Base class of the metrics.
+ */
+public abstract class Metric {
+    protected String name;
+    protected String help;
+
+    /**
+     * Constructor with specified parameters.
+     * @param name Metric name (like 'anotex_documents_total').
+     * @param help Metric description.
+     */
+    protected Metric(String name, String help) {
+        super();
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    /**
+     * Clear the collected values.
+     */
+    public abstract void reset();
+
+    /**
+     * Write the metric in Prometheus text format.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected abstract void writePrometheus(Writer output) throws IOException;
+
+    /**
+     * Write the metric value as JSON object.
+     * @param output Where to write.
+     * @throws IOException If writing fails.
+     */
+    protected abstract void writeJson(Writer output) throws IOException;
+
+    /**
+     * Format number for the output (without exponent for the usual values).
+     * @param value The number.
+     * @return Formatted number.
+     */
+    protected static String format(double value) {
+        if (Double.isInfinite(value)) {
+            return (value > 0) ? "+Inf" : "-Inf";
+        }
+        if ((value == Math.rint(value)) && (Math.abs(value) < 1e15)) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,59 @@
+package dsk.anotex.monitoring;
+
+/**
+ * Metrics of the extraction phases (registered in the default registry).
+ */
+public class Metrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getDefault();
+
+    // Phase latencies.
+    public static final Histogram DOCUMENT_OPEN = REGISTRY.timer("anotex_document_open_seconds",
+        "Time to open (read the structure of) document.");
+    public static final Histogram PAGE_LOAD = REGISTRY.timer("anotex_page_load_seconds",
+        "Time to load page and its annotations.");
+    public static final Histogram CONTENT_PARSE = REGISTRY.timer("anotex_content_parse_seconds",
+        "Time to parse page content stream (once per page, in per page extraction mode).");
+    public static final Histogram REGION_EXTRACTION = REGISTRY.timer("anotex_region_extraction_seconds",
+        "Time to extract the text of highlighted area (includes the page parsing in per annotation mode).");
+    public static final Histogram NORMALIZATION = REGISTRY.timer("anotex_normalization_seconds",
+        "Time to normalize annotation text.");
+    public static final Histogram EXPORT = REGISTRY.timer("anotex_export_seconds",
+        "Time to convert document annotations to the output format.");
+    public static final Histogram WRITE = REGISTRY.timer("anotex_write_seconds",
+        "Time to open and close (flush) the output file.");
+
+    // Document statistics.
+    public static final Counter DOCUMENTS = REGISTRY.counter("anotex_documents_total",
+        "Number of processed documents.");
+    public static final Counter PAGES = REGISTRY.counter("anotex_pages_total",
+        "Number of pages in the processed documents.");
+    public static final Counter ANNOTATIONS = REGISTRY.counter("anotex_annotations_total",
+        "Number of extracted annotations.");
+    public static final Histogram DOCUMENT_PAGES = REGISTRY.histogram("anotex_document_pages",
+        "Pages per document.", Histogram.SIZE_BUCKETS);
+    public static final Histogram DOCUMENT_ANNOTATIONS = REGISTRY.histogram("anotex_document_annotations",
+        "Annotations per document.", Histogram.SIZE_BUCKETS);
+    public static final Counter CONTENT_TEXTS = REGISTRY.counter("anotex_content_text_total",
+        "Annotations with text stored in the annotation content (/Contents).");
+    public static final Counter HIGHLIGHT_EXTRACTIONS = REGISTRY.counter("anotex_highlight_extraction_total",
+        "Annotations with text extracted from the highlighted page area.");
+    public static final Counter DEGRADED_ANNOTATIONS = REGISTRY.counter("anotex_degraded_annotation_total",
+        "Highlights with text not extracted, because the page parsing exceeded the extraction budget.");
+
+    // Prevent instance creation.
+    private Metrics() {
+    }
+
+    /**
+     * Record processed document.
+     * @param pages Number of document pages.
+     * @param annotations Number of extracted annotations.
+     */
+    public static void recordDocument(int pages, int annotations) {
+        DOCUMENTS.increment();
+        PAGES.add(pages);
+        ANNOTATIONS.add(annotations);
+        DOCUMENT_PAGES.record(pages);
+        DOCUMENT_ANNOTATIONS.record(annotations);
+    }
+}
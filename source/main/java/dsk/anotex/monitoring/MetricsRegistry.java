@@ -0,0 +1,167 @@
+package dsk.anotex.monitoring;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registry of metrics. The metrics are registered once (by name) and then updated concurrently. The
+ * collected values can be written in Prometheus text format or as JSON.
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    protected final Map<String, Metric> metrics;
+
+    public MetricsRegistry() {
+        super();
+        metrics = new LinkedHashMap<>();
+    }
+
+    /**
+     * Get the registry, used by the application.
+     * @return Default registry.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Get (or register) counter.
+     * @param name Counter name.
+     * @param help Counter description.
+     * @return The counter.
+     */
+    public Counter counter(String name, String help) {
+        return register(name, Counter.class, () -> new Counter(name, help));
+    }
+
+    /**
+     * Get (or register) histogram.
+     * @param name Histogram name.
+     * @param help Histogram description.
+     * @param bounds Upper boundaries of the buckets.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String help, double[] bounds) {
+        return register(name, Histogram.class, () -> new Histogram(name, help, bounds));
+    }
+
+    /**
+     * Get (or register) latency histogram (in seconds).
+     * @param name Histogram name.
+     * @param help Histogram description.
+     * @return The histogram.
+     */
+    public Histogram timer(String name, String help) {
+        return histogram(name, help, Histogram.LATENCY_BUCKETS);
+    }
+
+    /**
+     * Get registered metric.
+     * @param name Metric name.
+     * @return The metric or null.
+     */
+    public synchronized Metric get(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Get all registered metrics (in the registration order).
+     * @return The metrics.
+     */
+    public synchronized List<Metric> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    /**
+     * Clear the values of all metrics.
+     */
+    public void reset() {
+        for (Metric metric : getMetrics()) {
+            metric.reset();
+        } //
+    }
+
+    /**
+     * Write all metrics in Prometheus text format.
+     * @param output Where to write.
+     */
+    public void writePrometheus(Writer output) {
+        try {
+            for (Metric metric : getMetrics()) {
+                metric.writePrometheus(output);
+            } //
+            output.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write all metrics as JSON object (metric name to metric value).
+     * @param output Where to write.
+     */
+    public void writeJson(Writer output) {
+        try {
+            output.write("{\n");
+            List<Metric> list = getMetrics();
+            for (int i = 0; i < list.size(); i++) {
+                Metric metric = list.get(i);
+                output.write("  \"" + metric.getName() + "\": ");
+                metric.writeJson(output);
+                output.write((i < list.size() - 1) ? ",\n" : "\n");
+            } //
+            output.write("}\n");
+            output.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write all metrics to file. The format is JSON for files with '.json' extension, Prometheus text
+     * format otherwise.
+     * @param fileName Output file name.
+     */
+    public void dump(String fileName) {
+        try (Writer output = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(fileName)),
+                StandardCharsets.UTF_8))) {
+            if (fileName.toLowerCase().endsWith(".json")) {
+                writeJson(output);
+            }
+            else {
+                writePrometheus(output);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected synchronized <T extends Metric> T register(String name, Class<T> type,
+            Supplier<T> factory) {
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            metric = factory.get();
+            metrics.put(name, metric);
+        }
+        else if (!type.isInstance(metric)) {
+            String message = String.format("Metric '%s' is already registered with other type", name);
+            throw new IllegalArgumentException(message);
+        }
+        return type.cast(metric);
+    }
+}
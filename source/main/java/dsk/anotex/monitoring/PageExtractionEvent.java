@@ -0,0 +1,28 @@
+package dsk.anotex.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for annotation extraction from single page.
+ */
+@Name("dsk.anotex.PageExtraction")
+@Label("Page Extraction")
+@Category("DyAnnotationExtractor")
+@Description("Annotations read from single page")
+public class PageExtractionEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Page")
+    public int page;
+
+    @Label("Annotations")
+    public int annotations;
+
+    @Label("Highlights")
+    @Description("Highlight annotations on the page")
+    public int highlights;
+}
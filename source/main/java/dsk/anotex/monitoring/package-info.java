@@ -0,0 +1,4 @@
+/**
+ * Runtime monitoring (metrics) of the extraction.
+ */
+package dsk.anotex.monitoring;
@@ -0,0 +1,116 @@
+package dsk.anotex.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selection of document pages. Textual form is comma separated list of page numbers and page
+ * intervals, for example:
+ * <pre>1-5,8,12-</pre>
+ * The interval without end (like '12-') means all pages from given page to the end of the document.
+ */
+public class PageRange {
+    // Selected intervals (first and last page, inclusive).
+    protected List<int[]> intervals;
+
+    /**
+     * Create empty page range.
+     */
+    public PageRange() {
+        super();
+        intervals = new ArrayList<>();
+    }
+
+    /**
+     * Parse page range from its textual form.
+     * @param range Page range text (like '1-5,8').
+     * @return The page range.
+     */
+    public static PageRange parse(String range) {
+        PageRange pageRange = new PageRange();
+        for (String part : range.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            try {
+                int idx = part.indexOf('-');
+                if (idx < 0) {
+                    int page = Integer.parseInt(part);
+                    pageRange.add(page, page);
+                }
+                else {
+                    String sTo = part.substring(idx + 1).trim();
+                    int from = Integer.parseInt(part.substring(0, idx).trim());
+                    int to = sTo.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(sTo);
+                    pageRange.add(from, to);
+                }
+            }
+            catch (NumberFormatException e) {
+                String message = String.format("Invalid page range '%s'", range);
+                throw new IllegalArgumentException(message, e);
+            }
+        } //
+        return pageRange;
+    }
+
+    /**
+     * Add interval of pages.
+     * @param from First page number (1 based).
+     * @param to Last page number (inclusive).
+     */
+    public void add(int from, int to) {
+        if ((from < 1) || (to < from)) {
+            String message = String.format("Invalid page interval %d-%d", from, to);
+            throw new IllegalArgumentException(message);
+        }
+        intervals.add(new int[] {from, to});
+    }
+
+    /**
+     * Check if given page is selected.
+     * @param page Page number.
+     * @return True if the page is in the range.
+     */
+    public boolean contains(int page) {
+        for (int[] interval : intervals) {
+            if ((page >= interval[0]) && (page <= interval[1])) {
+                return true;
+            }
+        } //
+        return false;
+    }
+
+    /**
+     * Check if any page from given interval is selected.
+     * @param from First page number.
+     * @param to Last page number (inclusive).
+     * @return True if some of the pages is in the range.
+     */
+    public boolean intersects(int from, int to) {
+        for (int[] interval : intervals) {
+            if ((from <= interval[1]) && (to >= interval[0])) {
+                return true;
+            }
+        } //
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        for (int[] interval : intervals) {
+            if (!buf.isEmpty()) {
+                buf.append(',');
+            }
+            buf.append(interval[0]);
+            if (interval[1] != interval[0]) {
+                buf.append('-');
+                if (interval[1] != Integer.MAX_VALUE) {
+                    buf.append(interval[1]);
+                }
+            }
+        } //
+        return buf.toString();
+    }
+}
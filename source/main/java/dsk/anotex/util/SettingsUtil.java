@@ -0,0 +1,74 @@
+package dsk.anotex.util;
+
+import java.util.Map;
+
+/**
+ * Access to typed values in execution settings (context) map. The values can be given as objects of
+ * the expected type or as strings (for example, when they come from the command line).
+ */
+public class SettingsUtil {
+
+    /*
+     * Prevent instance creation.
+     */
+    private SettingsUtil() {
+    }
+
+    /**
+     * Get integer setting.
+     * @param settings Execution settings.
+     * @param name Setting name.
+     * @param defaultValue Value to use if the setting is missing.
+     * @return Setting value.
+     */
+    public static int getInt(Map<String, Object> settings, String name, int defaultValue) {
+        int ret = defaultValue;
+        Object value = settings.get(name);
+        if (value instanceof Number) {
+            ret = ((Number) value).intValue();
+        }
+        else if (value != null) {
+            try {
+                ret = Integer.parseInt(value.toString().trim());
+            }
+            catch (NumberFormatException e) {
+                String message = String.format("Invalid value of '%s': '%s'", name, value);
+                throw new IllegalArgumentException(message, e);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get boolean setting. Setting without value (for example command line flag) is considered true.
+     * @param settings Execution settings.
+     * @param name Setting name.
+     * @param defaultValue Value to use if the setting is missing.
+     * @return Setting value.
+     */
+    public static boolean getBoolean(Map<String, Object> settings, String name, boolean defaultValue) {
+        boolean ret = defaultValue;
+        if (settings.containsKey(name)) {
+            Object value = settings.get(name);
+            if (value instanceof Boolean) {
+                ret = (Boolean) value;
+            }
+            else {
+                ret = (value == null) || Boolean.parseBoolean(value.toString().trim());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Get string setting.
+     * @param settings Execution settings.
+     * @param name Setting name.
+     * @param defaultValue Value to use if the setting is missing.
+     * @return Setting value.
+     */
+    public static String getString(Map<String, Object> settings, String name, String defaultValue) {
+        Object value = settings.get(name);
+        return (value != null) ? value.toString() : defaultValue;
+    }
+}
@@ -1,13 +1,29 @@
 package dsk.anotex;
 
+import dsk.anotex.cache.AnnotationCache;
 import dsk.anotex.core.AnnotatedDocument;
 import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.importer.SyntheticPdfGenerator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AnnotationExtractorTest extends TestBase {
 
@@ -37,4 +53,242 @@ public class AnnotationExtractorTest extends TestBase {
         assertEquals(1, annotations.size());
     }
 
+    @Test
+    public void testStreamingExtraction() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        Map<String, Object> streaming = new HashMap<>();
+        streaming.put(Constants.STREAMING, true);
+        for (String name : new String[] {"Test_Pdf_1", "Test_Pdf_2", "Test_Pdf_3", "Test_Pdf_5"}) {
+            String inputFile = resDir + "/" + name + ".pdf";
+            String expected = extractor.extractAnnotations(inputFile, new HashMap<>(),
+                tempDir + "/" + name + ".md");
+            String streamed = extractor.extractAnnotations(inputFile, streaming,
+                tempDir + "/" + name + "_streamed.md");
+            assertEquals(readFile(expected), readFile(streamed), name);
+        } //
+    }
+
+    @Test
+    public void testMultipleFormats() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        String inputFile = resDir + "/Test_Pdf_1.pdf";
+        String expected = extractor.extractAnnotations(inputFile, new HashMap<>(), tempDir + "/Single.md");
+        for (boolean streaming : new boolean[] {false, true}) {
+            Map<String, Object> settings = new HashMap<>();
+            settings.put(Constants.EXPORT_FORMAT, "Markdown, JsonLines,Binary");
+            settings.put(Constants.STREAMING, streaming);
+            String outputFile = tempDir + "/Multiple.md";
+            assertEquals(outputFile, extractor.extractAnnotations(inputFile, settings, outputFile));
+            List<String> outputFiles = extractor.getOutputFiles(inputFile, settings, outputFile);
+            assertEquals(List.of(outputFile, tempDir + "/Multiple.jsonl", tempDir + "/Multiple.anotex"),
+                outputFiles);
+            assertEquals(readFile(expected), readFile(outputFile));
+            int annotations = extractor.readAnnotations(inputFile).getAnnotations().size();
+            assertEquals(annotations, readFile(outputFiles.get(1)).lines().count());
+            assertEquals(annotations, extractor.readAnnotations(outputFiles.get(2)).getAnnotations().size());
+        } //
+    }
+
+    @Test
+    public void testUnknownFormat() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(Constants.EXPORT_FORMAT, "Markdown,Unknown");
+        String outputFile = tempDir + "/Unknown.md";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            extractor.extractAnnotations(resDir + "/Test_Pdf_5.pdf", settings, outputFile);
+        });
+        Assertions.assertFalse(new File(outputFile).exists());
+    }
+
+    @Test
+    public void testStreamingUnsupportedFile() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        Map<String, Object> streaming = new HashMap<>();
+        streaming.put(Constants.STREAMING, true);
+        String outputFile = tempDir + "/Test_Pdf_4_streamed.md";
+        Assertions.assertThrows(RuntimeException.class, () -> {
+            extractor.extractAnnotations(resDir + "/Test_Pdf_4.pdf", streaming, outputFile);
+        });
+        Assertions.assertFalse(new File(outputFile).exists());
+    }
+
+    @Test
+    public void testAsyncExtraction() throws Exception {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        String inputFile = resDir + "/Test_Pdf_5.pdf";
+        List<String> expected = texts(extractor.readAnnotations(inputFile).getAnnotations());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<AnnotatedDocument> future = extractor.readAnnotationsAsync(inputFile,
+                new HashMap<>(), executor);
+            assertEquals(expected, texts(future.get(10, TimeUnit.SECONDS).getAnnotations()));
+
+            CompletableFuture<AnnotatedDocument> failed = extractor.readAnnotationsAsync(
+                resDir + "/Test_Pdf_4.pdf", new HashMap<>(), executor);
+            ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> failed.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        }
+    }
+
+    @Test
+    public void testAnnotationPublisher() throws Exception {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        String inputFile = resDir + "/Test_Pdf_5.pdf";
+        List<String> expected = texts(extractor.readAnnotations(inputFile).getAnnotations());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Flow.Publisher<Annotation> publisher = extractor.publishAnnotations(inputFile, new HashMap<>(),
+                executor);
+            // The document is read once, the later subscription gets the read annotations.
+            for (int i = 0; i < 2; i++) {
+                CollectingSubscriber subscriber = new CollectingSubscriber(1, Integer.MAX_VALUE);
+                publisher.subscribe(subscriber);
+                subscriber.done.get(10, TimeUnit.SECONDS);
+                assertEquals(expected, texts(subscriber.annotations));
+            } //
+
+            CollectingSubscriber failed = new CollectingSubscriber(1, Integer.MAX_VALUE);
+            extractor.publishAnnotations(resDir + "/Test_Pdf_4.pdf", new HashMap<>(), executor).subscribe(failed);
+            ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+                () -> failed.done.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> extractor.publishAnnotations(resDir + "/Missing.pdf", new HashMap<>(), Runnable::run));
+    }
+
+    @Test
+    public void testPublisherCancellation() throws Exception {
+        String inputFile = tempDir + "/Publisher.pdf";
+        List<String> expected = new SyntheticPdfGenerator()
+            .setPageCount(80)
+            .setHighlightsPerPage(6)
+            .generate(inputFile);
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        // Single thread is enough - the delivery never waits for the subscriber.
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CollectingSubscriber subscriber = new CollectingSubscriber(5, 10);
+            extractor.publishAnnotations(inputFile, new HashMap<>(), executor).subscribe(subscriber);
+            subscriber.done.get(10, TimeUnit.SECONDS);
+            assertEquals(expected.subList(0, 10), texts(subscriber.annotations));
+
+            CollectingSubscriber all = new CollectingSubscriber(7, Integer.MAX_VALUE);
+            extractor.publishAnnotations(inputFile, new HashMap<>(), executor).subscribe(all);
+            all.done.get(10, TimeUnit.SECONDS);
+            assertEquals(expected, texts(all.annotations));
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPublisherStreaming() throws Exception {
+        String inputFile = tempDir + "/Streaming.pdf";
+        List<String> expected = new SyntheticPdfGenerator()
+            .setPageCount(40)
+            .setHighlightsPerPage(3)
+            .generate(inputFile);
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AnnotationPublisher publisher = (AnnotationPublisher) extractor.publishAnnotations(inputFile,
+                new HashMap<>(), executor);
+            List<Boolean> readingComplete = new ArrayList<>();
+            CollectingSubscriber subscriber = new CollectingSubscriber(1, Integer.MAX_VALUE) {
+                @Override
+                public void onNext(Annotation item) {
+                    synchronized (publisher) {
+                        readingComplete.add(publisher.completed);
+                    }
+                    super.onNext(item);
+                }
+            };
+            publisher.subscribe(subscriber);
+            subscriber.done.get(10, TimeUnit.SECONDS);
+            assertEquals(expected, texts(subscriber.annotations));
+            // The first annotations are delivered before the last page is read.
+            assertEquals(Boolean.FALSE, readingComplete.getFirst());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPublisherErrors() throws Exception {
+        String inputFile = resDir + "/Test_Pdf_5.pdf";
+        AnnotationExtractor failing = new AnnotationExtractor() {
+            @Override
+            public void readAnnotations(String fileName, Map<String, Object> settings,
+                    AnnotationListener listener) {
+                throw new StackOverflowError();
+            }
+        };
+        CollectingSubscriber subscriber = new CollectingSubscriber(1, Integer.MAX_VALUE);
+        failing.publishAnnotations(inputFile, new HashMap<>(), Runnable::run).subscribe(subscriber);
+        ExecutionException error = Assertions.assertThrows(ExecutionException.class,
+            () -> subscriber.done.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, error.getCause());
+
+        // The cache is used.
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        AnnotationCache cache = new AnnotationCache(new File(tempDir, "cache"), 1024 * 1024);
+        extractor.setCache(cache);
+        CollectingSubscriber cached = new CollectingSubscriber(1, Integer.MAX_VALUE);
+        extractor.publishAnnotations(inputFile, new HashMap<>(), Runnable::run).subscribe(cached);
+        cached.done.get(10, TimeUnit.SECONDS);
+        assertNotNull(cache.get(inputFile, new HashMap<>()));
+    }
+
+    protected List<String> texts(List<Annotation> annotations) {
+        return annotations.stream().map(Annotation::getText).toList();
+    }
+
+    /**
+     * Subscriber, which requests the annotations in batches and cancels the subscription after given
+     * number of them.
+     */
+    protected static class CollectingSubscriber implements Flow.Subscriber<Annotation> {
+        protected final List<Annotation> annotations = new ArrayList<>();
+        protected final CompletableFuture<Void> done = new CompletableFuture<>();
+        protected final int batch;
+        protected final int limit;
+        protected Flow.Subscription subscription;
+
+        public CollectingSubscriber(int batch, int limit) {
+            this.batch = batch;
+            this.limit = limit;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(Annotation item) {
+            annotations.add(item);
+            if (annotations.size() == limit) {
+                subscription.cancel();
+                done.complete(null);
+            }
+            else if (annotations.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
 }
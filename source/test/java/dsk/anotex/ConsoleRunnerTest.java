@@ -1,9 +1,21 @@
 package dsk.anotex;
 
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.util.CommandLineParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ConsoleRunnerTest extends TestBase {
 
@@ -21,4 +33,80 @@ public class ConsoleRunnerTest extends TestBase {
         assertEquals("94d6378bf0eacfef6ec05e6b187673ac88f2d6ba4556acba584bb031f79f4ffa",
             calcChecksum(outputContent));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchExtraction() throws IOException {
+        File batchDir = new File(tempDir, "batch/sub");
+        batchDir.mkdirs();
+        for (int i = 1; i <= 7; i++) {
+            String fileName = String.format("Test_Pdf_%d.pdf", i);
+            Files.copy(new File(resDir, fileName).toPath(), new File(batchDir, fileName).toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        } //
+        ConsoleRunner runner = new ConsoleRunner();
+        BatchExtractor.BatchResult result = runner.doBatchExtract(List.of(tempDir + "/batch"),
+            new HashMap<>(), 3);
+        // Test_Pdf_4 is not valid PDF.
+        assertEquals(6, result.getDocuments());
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().keySet().iterator().next().endsWith("Test_Pdf_4.pdf"));
+        assertTrue(result.getPages() >= 6);
+        String outputContent = readFile(batchDir + "/Test_Pdf_2.pdf.md");
+        assertEquals("94d6378bf0eacfef6ec05e6b187673ac88f2d6ba4556acba584bb031f79f4ffa",
+            calcChecksum(outputContent));
+
+        // Glob pattern.
+        BatchExtractor batch = new BatchExtractor(new AnnotationExtractor(), 1);
+        List<String> files = batch.findInputFiles(List.of(tempDir + "/batch/**/Test_Pdf_[12].pdf"));
+        assertEquals(2, files.size());
+
+        // The outputs of the binary format are not extracted again, unless named explicitly.
+        HashMap<String, Object> binary = new HashMap<>();
+        binary.put(Constants.EXPORT_FORMAT, "Binary");
+        runner.doBatchExtract(List.of(tempDir + "/batch"), binary, 3);
+        File output = new File(batchDir, "Test_Pdf_2.pdf.anotex");
+        assertTrue(output.isFile());
+        files = batch.findInputFiles(List.of(tempDir + "/batch"));
+        assertEquals(7, files.size());
+        assertTrue(files.stream().allMatch(file -> file.endsWith(".pdf")));
+        assertEquals(List.of(output.getPath()), batch.findInputFiles(List.of(output.getPath())));
+    }
+
+    @Test
+    public void testInvalidNumbers() {
+        CommandLineParser parser = new CommandLineParser(new String[]{"-threads", "many", "-server", "70000",
+            "-limit", "5"});
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> ConsoleRunner.checkNumber(parser, ConsoleRunner.ARG_THREADS, 1, Integer.MAX_VALUE));
+        assertEquals("Invalid value of -threads: 'many' (expected number from 1 to 2147483647)", e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+            () -> ConsoleRunner.checkNumber(parser, ConsoleRunner.ARG_SERVER, 0, 65535));
+        ConsoleRunner.checkNumber(parser, ConsoleRunner.ARG_LIMIT, 1, Integer.MAX_VALUE);
+        ConsoleRunner.checkNumber(parser, ConsoleRunner.ARG_CONCURRENCY, 1, Integer.MAX_VALUE);
+
+        // Reported as usage error (no exception).
+        ConsoleRunner.main(new String[]{"-batch", tempDir.getPath(), "-threads", "many"});
+    }
+
+    @Test
+    public void testBatchErrors() throws IOException {
+        for (int i = 2; i <= 3; i++) {
+            String fileName = String.format("Test_Pdf_%d.pdf", i);
+            Files.copy(new File(resDir, fileName).toPath(), new File(tempDir, fileName).toPath());
+        } //
+        AnnotationExtractor failing = new AnnotationExtractor() {
+            @Override
+            public AnnotatedDocument readAnnotations(String fileName, Map<String, Object> settings) {
+                if (fileName.endsWith("Test_Pdf_3.pdf")) {
+                    throw new StackOverflowError();
+                }
+                return super.readAnnotations(fileName, settings);
+            }
+        };
+        BatchExtractor batch = new BatchExtractor(failing, 2);
+        BatchExtractor.BatchResult result = batch.extractAnnotations(List.of(tempDir + "/Test_Pdf_2.pdf",
+            tempDir + "/Test_Pdf_3.pdf"), new HashMap<>());
+        assertEquals(1, result.getDocuments());
+        assertEquals("java.lang.StackOverflowError", result.getFailures().get(tempDir + "/Test_Pdf_3.pdf"));
+    }
+}
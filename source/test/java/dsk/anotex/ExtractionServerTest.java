@@ -0,0 +1,108 @@
+package dsk.anotex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExtractionServerTest extends TestBase {
+    protected ExtractionServer server;
+    protected HttpClient client;
+    protected String baseUrl;
+
+    @BeforeEach
+    public void beforeEach() {
+        server = new ExtractionServer(new AnnotationExtractor(), new HashMap<>(), 4);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        byte[] content = Files.readAllBytes(new File(resDir, "Test_Pdf_2.pdf").toPath());
+        HttpResponse<String> response = post("/extract", content);
+        assertEquals(200, response.statusCode());
+        assertEquals("94d6378bf0eacfef6ec05e6b187673ac88f2d6ba4556acba584bb031f79f4ffa",
+            calcChecksum(response.body()));
+
+        String path = URLEncoder.encode(new File(resDir, "Test_Pdf_2.pdf").getPath(), StandardCharsets.UTF_8);
+        server.setRoots(List.of(new File(resDir)));
+        HttpResponse<String> byPath = get("/extract?path=" + path);
+        assertEquals(200, byPath.statusCode());
+        assertEquals(response.body(), byPath.body());
+
+        assertEquals(200, get("/health").statusCode());
+        assertEquals(200, get("/metrics").statusCode());
+    }
+
+    @Test
+    public void testInvalidRequests() throws Exception {
+        byte[] invalid = Files.readAllBytes(new File(resDir, "Test_Pdf_4.pdf").toPath());
+        assertEquals(400, post("/extract", invalid).statusCode());
+        String missing = URLEncoder.encode(new File(resDir, "Missing.pdf").getPath(), StandardCharsets.UTF_8);
+        String outside = URLEncoder.encode(new File(resDir, "../testing/../Test.pdf").getPath(),
+            StandardCharsets.UTF_8);
+        // Extraction by path is not enabled.
+        assertEquals(403, get("/extract?path=" + missing).statusCode());
+        server.setRoots(List.of(new File(resDir)));
+        assertEquals(400, get("/extract?path=" + missing).statusCode());
+        assertEquals(403, get("/extract?path=" + outside).statusCode());
+        assertEquals(403, get("/extract?path=%2Fetc%2Fpasswd").statusCode());
+        assertEquals(400, post("/extract?exportFormat=Unknown", new byte[0]).statusCode());
+        assertEquals(405, get("/extract").statusCode());
+        server.setMaxRequestSize(10);
+        assertEquals(413, post("/extract", invalid).statusCode());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        byte[] content = Files.readAllBytes(new File(resDir, "Test_Pdf_3.pdf").toPath());
+        String expected = post("/extract", content).body();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                responses.add(executor.submit(() -> post("/extract", content)));
+            } //
+            for (Future<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.get().statusCode());
+                assertEquals(expected, response.get().body());
+            } //
+        }
+    }
+
+    protected HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    protected HttpResponse<String> post(String path, byte[] content) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(content)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}
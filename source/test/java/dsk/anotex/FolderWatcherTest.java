@@ -0,0 +1,80 @@
+package dsk.anotex;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FolderWatcherTest extends TestBase {
+
+    @Test
+    public void testWatch() throws Exception {
+        File dir = new File(tempDir, "watched");
+        removeDirectory(dir);
+        new File(dir, "sub").mkdirs();
+        File existing = new File(dir, "Existing.pdf");
+        Files.copy(new File(resDir, "Test_Pdf_1.pdf").toPath(), existing.toPath());
+
+        List<String> extracted = new CopyOnWriteArrayList<>();
+        FolderWatcher watcher = new FolderWatcher(new AnnotationExtractor(), new HashMap<>(), 200) {
+            @Override
+            protected void fileExtracted(String inputFile, String outputFile) {
+                extracted.add(new File(inputFile).getName());
+            }
+
+            @Override
+            protected void fileFailed(String inputFile, Exception error) {
+                extracted.add("Failed: " + new File(inputFile).getName());
+            }
+        };
+        watcher.watch(List.of(dir.getPath()));
+        Thread thread = Thread.ofVirtual().start(watcher::run);
+        try {
+            // New documents (also in subdirectories) are extracted once.
+            File added = new File(dir, "sub/Added.pdf");
+            Files.copy(new File(resDir, "Test_Pdf_2.pdf").toPath(), added.toPath());
+            waitFor(extracted, 1);
+            assertEquals(List.of("Added.pdf"), extracted);
+            assertEquals(readFile(new AnnotationExtractor().extractAnnotations(added.getPath(), new HashMap<>(),
+                tempDir + "/Added.md")), readFile(dir + "/sub/Added.pdf.md"));
+
+            // Directory, created with documents inside.
+            File newDir = new File(tempDir, "newDir");
+            removeDirectory(newDir);
+            newDir.mkdirs();
+            Files.copy(new File(resDir, "Test_Pdf_3.pdf").toPath(), new File(newDir, "Moved.pdf").toPath());
+            Files.move(newDir.toPath(), new File(dir, "moved").toPath());
+            waitFor(extracted, 2);
+            assertEquals("Moved.pdf", extracted.get(1));
+
+            // Changed document.
+            Files.copy(new File(resDir, "Test_Pdf_4.pdf").toPath(), existing.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+            waitFor(extracted, 3);
+            assertEquals("Failed: Existing.pdf", extracted.get(2));
+            assertFalse(new File(dir, "Existing.pdf.md").exists());
+            Thread.sleep(1000);
+            assertEquals(3, extracted.size());
+        }
+        finally {
+            watcher.close();
+            thread.join();
+        }
+    }
+
+    protected void waitFor(List<String> extracted, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while ((extracted.size() < count) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(50);
+        } //
+        assertTrue(extracted.size() >= count, "Not extracted in time: " + extracted);
+    }
+}
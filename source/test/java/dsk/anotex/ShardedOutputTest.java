@@ -0,0 +1,113 @@
+package dsk.anotex;
+
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.exporter.MarkdownExporter;
+import dsk.anotex.importer.BinaryAnnotationImporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShardedOutputTest extends TestBase {
+
+    @BeforeEach
+    public void beforeEach() {
+        cleanTempDirectory();
+    }
+
+    @Test
+    public void testConcurrentWrite() {
+        File dir = new File(tempDir, "shards");
+        int count = 500;
+        long maxSize = 2000;
+        int maxDocuments = 7;
+        ShardedOutput output = new ShardedOutput(dir, "test", FileFormat.MARKDOWN, new HashMap<>(), maxSize,
+            maxDocuments);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < count; i++) {
+                String name = "Document" + i;
+                executor.execute(() -> output.write(name, createDocument(name)));
+            } //
+        }
+        output.close();
+
+        List<ShardedOutput.ManifestEntry> entries = ShardedOutput.readManifest(output.getManifestFile());
+        assertEquals(count, entries.size());
+        Map<String, Integer> shardDocuments = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (ShardedOutput.ManifestEntry entry : entries) {
+            names.add(entry.getInputFile());
+            shardDocuments.merge(entry.getShard(), 1, Integer::sum);
+            byte[] expected = export(createDocument(entry.getInputFile()));
+            assertArrayEquals(expected, ShardedOutput.readDocument(dir, entry), entry.getInputFile());
+            assertEquals(3, entry.getAnnotations());
+        } //
+        assertEquals(count, names.size());
+        for (Map.Entry<String, Integer> shard : shardDocuments.entrySet()) {
+            assertTrue(shard.getValue() <= maxDocuments);
+            assertTrue(new File(dir, shard.getKey()).length() <= maxSize, shard.getKey());
+        } //
+        assertTrue(shardDocuments.size() >= count / maxDocuments);
+    }
+
+    @Test
+    public void testBatchAggregation() {
+        File dir = new File(tempDir, "aggregate");
+        Map<String, Object> settings = new HashMap<>();
+        ShardedOutput output = new ShardedOutput(dir, ShardedOutput.DEFAULT_BASE_NAME, FileFormat.BINARY, settings,
+            ShardedOutput.DEFAULT_MAX_SHARD_SIZE, ShardedOutput.DEFAULT_MAX_SHARD_DOCUMENTS);
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        BatchExtractor batch = new BatchExtractor(extractor, 3);
+        batch.setAggregateOutputs(List.of(output));
+        List<String> inputFiles = new ArrayList<>();
+        for (int i : new int[] {1, 2, 3, 5}) {
+            inputFiles.add(new File(resDir, String.format("Test_Pdf_%d.pdf", i)).getPath());
+        } //
+        assertEquals(inputFiles.size(), batch.extractAnnotations(inputFiles, settings).getDocuments());
+        output.close();
+
+        List<ShardedOutput.ManifestEntry> entries = ShardedOutput.readManifest(output.getManifestFile());
+        assertEquals(inputFiles.size(), entries.size());
+        BinaryAnnotationImporter importer = new BinaryAnnotationImporter();
+        for (ShardedOutput.ManifestEntry entry : entries) {
+            assertTrue(inputFiles.contains(entry.getInputFile()));
+            AnnotatedDocument document = importer.readAnnotations(ShardedOutput.readDocument(dir, entry),
+                new HashMap<>());
+            AnnotatedDocument expected = extractor.readAnnotations(entry.getInputFile());
+            assertEquals(expected.getAnnotations().size(), document.getAnnotations().size());
+            assertEquals(expected.getAnnotations().size(), entry.getAnnotations());
+        } //
+        assertTrue(new File(dir, "annotations-00000.anotex").isFile());
+        assertTrue(!new File(resDir, "Test_Pdf_1.pdf.md").exists());
+    }
+
+    protected AnnotatedDocument createDocument(String name) {
+        AnnotatedDocument document = new AnnotatedDocument();
+        document.setTitle(name);
+        for (int i = 0; i < 3; i++) {
+            document.getAnnotations().add(new Annotation(name + " annotation " + i));
+        } //
+        return document;
+    }
+
+    protected byte[] export(AnnotatedDocument document) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new MarkdownExporter().export(document, new HashMap<>(), output);
+        return output.toByteArray();
+    }
+}
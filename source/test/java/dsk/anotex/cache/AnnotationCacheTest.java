@@ -0,0 +1,121 @@
+package dsk.anotex.cache;
+
+import dsk.anotex.AnnotationExtractor;
+import dsk.anotex.Constants;
+import dsk.anotex.TestBase;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.importer.SyntheticPdfGenerator;
+import dsk.anotex.index.AnnotationIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnnotationCacheTest extends TestBase {
+
+    @BeforeEach
+    public void beforeEach() {
+        cleanTempDirectory();
+    }
+
+    @Test
+    public void testCachedExtraction() throws IOException {
+        File cacheDir = new File(tempDir, "cache");
+        File inputFile = new File(tempDir, "Test.pdf");
+        Files.copy(new File(resDir, "Test_Pdf_2.pdf").toPath(), inputFile.toPath());
+        Map<String, Object> settings = new HashMap<>();
+
+        // Entry of former version (serialized objects) - removed.
+        File oldEntry = new File(cacheDir, "0123.ser");
+        cacheDir.mkdirs();
+        Files.writeString(oldEntry.toPath(), "old");
+
+        AnnotationCache cache = new AnnotationCache(cacheDir, 1024 * 1024);
+        assertNull(cache.get(inputFile.getPath(), settings));
+        assertFalse(oldEntry.exists());
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        extractor.setCache(cache);
+        extractor.readAnnotations(inputFile.getPath(), settings);
+        cache.save();
+
+        // New cache instance (next program run) - the result comes from the cache.
+        cache = new AnnotationCache(cacheDir, 1024 * 1024);
+        AnnotatedDocument document = cache.get(inputFile.getPath(), settings);
+        assertNotNull(document);
+        assertEquals("Title2", document.getTitle());
+        assertEquals("Two", document.getAnnotations().getFirst().getText());
+
+        // Output settings do not matter.
+        settings.put(Constants.EXPORT_FORMAT, "JsonLines");
+        settings.put(Constants.STREAMING, true);
+        assertNotNull(cache.get(inputFile.getPath(), settings));
+
+        // Different extraction settings - not cached.
+        settings.put(Constants.PAGE_RANGE, "2-3");
+        assertNull(cache.get(inputFile.getPath(), settings));
+        settings.clear();
+
+        // Changed content - not cached.
+        Files.copy(new File(resDir, "Test_Pdf_3.pdf").toPath(), inputFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        assertNull(cache.get(inputFile.getPath(), settings));
+    }
+
+    @Test
+    public void testDegradedNotCached() {
+        File cacheDir = new File(tempDir, "cache");
+        String inputFile = new File(tempDir, "Slow.pdf").getPath();
+        new SyntheticPdfGenerator().setPageCount(3).setSlowContent(200000, 0, 2).generate(inputFile);
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(Constants.PAGE_OPERATOR_LIMIT, 50000);
+
+        AnnotationCache cache = new AnnotationCache(cacheDir, 1024 * 1024);
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        extractor.setCache(cache);
+        try (AnnotationIndex index = new AnnotationIndex(new File(tempDir, "index"))) {
+            extractor.setIndex(index);
+            assertTrue(extractor.readAnnotations(inputFile, settings).isDegraded());
+            index.commit();
+            // The incomplete result is neither cached nor indexed.
+            assertNull(cache.get(inputFile, settings));
+            assertEquals(0, index.getDocumentCount());
+
+            settings.put(Constants.PAGE_OPERATOR_LIMIT, 0);
+            assertFalse(extractor.readAnnotations(inputFile, settings).isDegraded());
+            index.commit();
+            assertNotNull(cache.get(inputFile, settings));
+            assertEquals(1, index.getDocumentCount());
+        }
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        File cacheDir = new File(tempDir, "cache");
+        AnnotationCache cache = new AnnotationCache(cacheDir, 100);
+        Map<String, Object> settings = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            File inputFile = new File(tempDir, "Test" + i + ".pdf");
+            Files.writeString(inputFile.toPath(), "content" + i);
+            AnnotatedDocument document = new AnnotatedDocument();
+            document.setAnnotations(List.of(new Annotation("Text" + i)));
+            cache.put(inputFile.getPath(), settings, document);
+            assertTrue(cache.getSize() <= 100);
+        } //
+        // The last one is still there.
+        assertNotNull(cache.get(new File(tempDir, "Test9.pdf").getPath(), settings));
+        assertNull(cache.get(new File(tempDir, "Test0.pdf").getPath(), settings));
+    }
+}
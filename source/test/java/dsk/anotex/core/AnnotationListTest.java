@@ -0,0 +1,136 @@
+package dsk.anotex.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AnnotationListTest {
+
+    @Test
+    public void testModification() {
+        // Compare with ArrayList on random operations.
+        AnnotationList list = new AnnotationList(1);
+        List<Annotation> expected = new ArrayList<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            Annotation annotation = createAnnotation(random, i);
+            int op = random.nextInt(10);
+            if ((op == 0) && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(describe(expected.remove(index)), describe(list.remove(index)));
+            }
+            else if ((op == 1) && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(describe(expected.set(index, annotation)), describe(list.set(index, annotation)));
+            }
+            else if (op == 2) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, annotation);
+                list.add(index, annotation);
+            }
+            else {
+                expected.add(annotation);
+                list.add(annotation);
+            }
+        } //
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(describe(expected.get(i)), describe(list.get(i)));
+        } //
+        assertEquals(expected.toString(), list.toString());
+
+        AnnotationList copy = new AnnotationList();
+        copy.add(new Annotation("First"));
+        copy.addAll(list);
+        assertEquals(list.size() + 1, copy.size());
+        assertEquals(describe(list.getLast()), describe(copy.getLast()));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(list.size()));
+        list.clear();
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void testSortAndGroup() {
+        AnnotationList list = new AnnotationList();
+        list.add(createAnnotation("C", 2, 50, 700));
+        list.add(createAnnotation("B", 1, 300, 500));
+        list.add(createAnnotation("A", 1, 100, 500));
+        list.add(createAnnotation(null, 1, 100, 600));
+        list.sortByPosition();
+        assertEquals("[{null}, {A}, {B}, {C}]", list.toString());
+        assertNull(list.getText(0));
+        Map<Integer, List<Annotation>> pages = list.groupByPage();
+        assertEquals("{1=[{null}, {A}, {B}], 2=[{C}]}", pages.toString());
+    }
+
+    @Test
+    public void testSortStability() {
+        // Compare with stable sort of annotation objects (many equal positions).
+        Random random = new Random(7);
+        AnnotationList list = new AnnotationList();
+        List<Annotation> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Annotation annotation = createAnnotation("T" + i, 1 + random.nextInt(3), 10 * random.nextInt(3),
+                100 * random.nextInt(4));
+            list.add(annotation);
+            expected.add(annotation);
+        } //
+        expected.sort(Comparator.comparingInt(Annotation::getPage)
+            .thenComparing(annotation -> -(annotation.getY() + annotation.getHeight()))
+            .thenComparing(Annotation::getX));
+        list.sortByPosition();
+        assertEquals(expected.toString(), list.toString());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        AnnotationList list = new AnnotationList();
+        list.add(createAnnotation("Пет", 3, 10, 20));
+        list.add(createAnnotation("Two", 4, 30, 40));
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(buf)) {
+            output.writeObject(list);
+        }
+        AnnotationList read;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+            read = (AnnotationList) input.readObject();
+        }
+        assertEquals(describe(list.get(0)), describe(read.get(0)));
+        read.add(new Annotation("Three"));
+        assertEquals("[{Пет}, {Two}, {Three}]", read.toString());
+    }
+
+    protected Annotation createAnnotation(Random random, int i) {
+        String text = (random.nextInt(20) == 0) ? null : "Text éП " + i;
+        Annotation annotation = createAnnotation(text, random.nextInt(5) + 1, random.nextFloat() * 500,
+            random.nextFloat() * 800);
+        annotation.setType(AnnotationType.values()[random.nextInt(AnnotationType.values().length)]);
+        return annotation;
+    }
+
+    protected Annotation createAnnotation(String text, int page, float x, float y) {
+        Annotation annotation = new Annotation(text);
+        annotation.setPage(page);
+        annotation.setRectangle(x, y, 100, 12);
+        annotation.setType(AnnotationType.HIGHLIGHT);
+        return annotation;
+    }
+
+    protected String describe(Annotation annotation) {
+        return String.format("%s %s %d %s %s %s %s", annotation.getText(), annotation.getType(),
+            annotation.getPage(), annotation.getX(), annotation.getY(), annotation.getWidth(),
+            annotation.getHeight());
+    }
+}
@@ -0,0 +1,132 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.AnnotationExtractor;
+import dsk.anotex.Constants;
+import dsk.anotex.TestBase;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import dsk.anotex.core.FileFormat;
+import dsk.anotex.importer.BinaryAnnotationImporter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryExporterTest extends TestBase {
+
+    @Test
+    public void testRoundTrip() {
+        AnnotatedDocument document = createDocument();
+        Map<String, Object> plain = new HashMap<>();
+        plain.put(Constants.BINARY_DICTIONARY, false);
+        byte[] withDictionary = export(document, new HashMap<>());
+        byte[] withoutDictionary = export(document, plain);
+        assertTrue(withDictionary.length < withoutDictionary.length);
+
+        BinaryAnnotationImporter importer = new BinaryAnnotationImporter();
+        for (byte[] content : List.of(withDictionary, withoutDictionary)) {
+            AnnotatedDocument result = importer.readAnnotations(content, new HashMap<>());
+            assertEquals("Title1", result.getTitle());
+            assertNull(result.getSubject());
+            assertEquals("Author é中", result.getAuthor());
+            assertEquals(12, result.getPageCount());
+            assertEquals(List.of("key1", "key2"), result.getKeywords());
+            assertAnnotations(document.getAnnotations(), result.getAnnotations());
+        } //
+    }
+
+    @Test
+    public void testStreamingExport() {
+        BinaryExporter exporter = new BinaryExporter();
+        AnnotatedDocument document = createDocument();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AnnotationListener export = exporter.createStreamingExport(new HashMap<>(), output);
+        export.documentStarted(document);
+        for (Annotation annotation : document.getAnnotations()) {
+            export.annotationFound(annotation);
+        } //
+        export.documentFinished(document);
+        assertArrayEquals(export(document, new HashMap<>()), output.toByteArray());
+    }
+
+    @Test
+    public void testInvalidContent() {
+        BinaryAnnotationImporter importer = new BinaryAnnotationImporter();
+        byte[] content = export(createDocument(), new HashMap<>());
+        assertThrows(IllegalArgumentException.class,
+            () -> importer.readAnnotations(Arrays.copyOf(content, content.length - 3), new HashMap<>()));
+        assertThrows(IllegalArgumentException.class,
+            () -> importer.readAnnotations("%PDF-1.4".getBytes(), new HashMap<>()));
+        // Corrupted keyword count (2^31 - 1).
+        byte[] header = {'D', 'Y', 'A', 'X', 1, 0, 9, 0, 0, 0, 1, -1, -1, -1, -1, 7, 0};
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> importer.readAnnotations(header, new HashMap<>()));
+        assertEquals("Truncated binary annotation file", e.getMessage());
+    }
+
+    @Test
+    public void testExtractedDocument() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        String inputFile = resDir + "/Test_Pdf_5.pdf";
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(Constants.EXPORT_FORMAT, FileFormat.BINARY.getName());
+        String outputFile = new File(tempDir, "Test_Pdf_5.pdf.anotex").getPath();
+        extractor.extractAnnotations(inputFile, settings, outputFile);
+
+        AnnotatedDocument expected = extractor.readAnnotations(inputFile);
+        AnnotatedDocument result = extractor.readAnnotations(outputFile);
+        assertEquals(expected.getTitle(), result.getTitle());
+        assertEquals(expected.getPageCount(), result.getPageCount());
+        assertAnnotations(expected.getAnnotations(), result.getAnnotations());
+    }
+
+    protected void assertAnnotations(List<Annotation> expected, List<Annotation> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Annotation a = expected.get(i);
+            Annotation b = actual.get(i);
+            assertEquals(a.getText(), b.getText());
+            assertEquals(a.getType(), b.getType());
+            assertEquals(a.getPage(), b.getPage());
+            assertEquals(a.getX(), b.getX());
+            assertEquals(a.getY(), b.getY());
+            assertEquals(a.getWidth(), b.getWidth());
+            assertEquals(a.getHeight(), b.getHeight());
+        } //
+    }
+
+    protected byte[] export(AnnotatedDocument document, Map<String, Object> settings) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new BinaryExporter().export(document, settings, output);
+        return output.toByteArray();
+    }
+
+    protected AnnotatedDocument createDocument() {
+        AnnotatedDocument document = new AnnotatedDocument();
+        document.setTitle("Title1");
+        document.setAuthor("Author é中");
+        document.setPageCount(12);
+        document.setKeywords(List.of("key1", "key2"));
+        for (int i = 0; i < 20; i++) {
+            Annotation annotation = new Annotation((i % 2 == 0) ? "Repeated text" : "Text " + i);
+            annotation.setType(AnnotationType.values()[i % AnnotationType.values().length]);
+            annotation.setPage(1 + i / 3);
+            annotation.setRectangle(10.5f * i, 700 - 12.25f * i, 300, 12);
+            document.getAnnotations().add(annotation);
+        } //
+        document.getAnnotations().add(new Annotation(null));
+        return document;
+    }
+}
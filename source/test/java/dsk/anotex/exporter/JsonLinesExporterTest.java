@@ -0,0 +1,65 @@
+package dsk.anotex.exporter;
+
+import dsk.anotex.TestBase;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JsonLinesExporterTest extends TestBase {
+
+    @Test
+    public void testExport() {
+        JsonLinesExporter exporter = new JsonLinesExporter();
+        StringWriter output = new StringWriter(256);
+        exporter.export(createDocument(), new HashMap<>(), output);
+        String prefix = "{\"title\":\"Title \\\"1\\\"\",\"subject\":null,\"author\":\"Author\","
+            + "\"keywords\":[\"key1\",\"key2\"],\"pages\":3";
+        String expected = prefix + ",\"page\":1,\"type\":\"Highlight\",\"x\":10.5,\"y\":-700.25,\"width\":300,"
+            + "\"height\":12.01,\"text\":\"Line1\\nLine2\\ttab \\\\ \\u0001 é\"}\n"
+            + prefix + ",\"page\":2,\"type\":\"Other\",\"x\":0,\"y\":0,\"width\":0,"
+            + "\"height\":0,\"text\":null}\n";
+        assertEquals(expected, output.toString());
+    }
+
+    @Test
+    public void testStreamingExport() {
+        JsonLinesExporter exporter = new JsonLinesExporter();
+        AnnotatedDocument document = createDocument();
+        StringWriter expected = new StringWriter(256);
+        exporter.export(document, new HashMap<>(), expected);
+
+        StringWriter output = new StringWriter(256);
+        AnnotationListener export = exporter.createStreamingExport(new HashMap<>(), output);
+        export.documentStarted(document);
+        for (Annotation annotation : document.getAnnotations()) {
+            export.annotationFound(annotation);
+        } //
+        export.documentFinished(document);
+        assertEquals(expected.toString(), output.toString());
+    }
+
+    protected AnnotatedDocument createDocument() {
+        AnnotatedDocument document = new AnnotatedDocument();
+        document.setTitle("Title \"1\"");
+        document.setAuthor("Author");
+        document.setKeywords(List.of("key1", "key2"));
+        document.setPageCount(3);
+        Annotation annot1 = new Annotation("Line1\nLine2\ttab \\ \u0001 é");
+        annot1.setType(AnnotationType.HIGHLIGHT);
+        annot1.setPage(1);
+        annot1.setRectangle(10.5f, -700.25f, 300.001f, 12.009f);
+        Annotation annot2 = new Annotation(null);
+        annot2.setPage(2);
+        document.setAnnotations(Arrays.asList(annot1, annot2));
+        return document;
+    }
+}
@@ -3,6 +3,7 @@ package dsk.anotex.exporter;
 import dsk.anotex.TestBase;
 import dsk.anotex.core.AnnotatedDocument;
 import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationListener;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringWriter;
@@ -28,6 +29,23 @@ public class MarkdownExporterTest extends TestBase {
         assertEquals(sResult, s);
     }
 
+    @Test
+    public void testStreamingExport() {
+        MarkdownExporter exporter = new MarkdownExporter();
+        AnnotatedDocument document = createDocument();
+        StringWriter expected = new StringWriter(256);
+        exporter.export(document, new HashMap<>(), expected);
+
+        StringWriter output = new StringWriter(256);
+        AnnotationListener export = exporter.createStreamingExport(new HashMap<>(), output);
+        export.documentStarted(document);
+        for (Annotation annotation : document.getAnnotations()) {
+            export.annotationFound(annotation);
+        } //
+        export.documentFinished(document);
+        assertEquals(expected.toString(), output.toString());
+    }
+
     protected AnnotatedDocument createDocument() {
         AnnotatedDocument document = new AnnotatedDocument();
         document.setTitle("Title1");
@@ -0,0 +1,163 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.Constants;
+import dsk.anotex.TestBase;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import dsk.anotex.exporter.BinaryExporter;
+import dsk.anotex.exporter.JsonLinesExporter;
+import dsk.anotex.exporter.MarkdownExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests of the extraction budgets, with crafted slow page content.
+ */
+public class ExtractionBudgetTest extends TestBase {
+    protected static final int PAGES = 5;
+    protected static final int HIGHLIGHTS = 4;
+
+    @BeforeEach
+    public void beforeEach() {
+        cleanTempDirectory();
+    }
+
+    @Test
+    public void testPageOperatorLimit() {
+        SyntheticPdfGenerator generator = createGenerator().setSlowContent(200000, 0, 2, 4);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.PAGE_OPERATOR_LIMIT, 50000);
+        for (String mode : List.of(Constants.EXTRACTION_PER_PAGE, Constants.EXTRACTION_PER_ANNOTATION)) {
+            context.put(Constants.EXTRACTION_MODE, mode);
+            assertDegradedPages(generator, context, 2, 4);
+        } //
+        context.put(Constants.PARALLELISM, 3);
+        assertDegradedPages(generator, context, 2, 4);
+
+        // Within the limit. In the per annotation mode, the page is parsed for every highlight.
+        context.put(Constants.PAGE_OPERATOR_LIMIT, 500000);
+        context.put(Constants.EXTRACTION_MODE, Constants.EXTRACTION_PER_PAGE);
+        assertDegradedPages(generator, context);
+    }
+
+    @Test
+    public void testPageTimeLimit() {
+        // About 2^24 nested form operators - this takes minutes to parse.
+        SyntheticPdfGenerator generator = createGenerator().setSlowContent(0, 24, 3);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.PAGE_TIME_LIMIT, 200);
+        context.put(Constants.PAGE_OPERATOR_LIMIT, 0);
+        context.put(Constants.DOCUMENT_OPERATOR_LIMIT, 0);
+        long startTime = System.nanoTime();
+        assertDegradedPages(generator, context, 3);
+        long millis = (System.nanoTime() - startTime) / 1000000;
+        assertTrue(millis < 5000, "Extraction took " + millis + " ms");
+    }
+
+    @Test
+    public void testDocumentLimits() {
+        // 20000 operators on every page - the document budget is spent on the third page.
+        SyntheticPdfGenerator generator = createGenerator().setSlowContent(20000, 0, 1, 2, 3, 4, 5);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.DOCUMENT_OPERATOR_LIMIT, 50000);
+        assertDegradedPages(generator, context, 3, 4, 5);
+
+        // Time limit of all pages (the nested forms are on the first page).
+        generator.setSlowContent(0, 24, 1);
+        context.clear();
+        context.put(Constants.PAGE_TIME_LIMIT, 0);
+        context.put(Constants.PAGE_OPERATOR_LIMIT, 0);
+        context.put(Constants.DOCUMENT_TIME_LIMIT, 300);
+        long startTime = System.nanoTime();
+        assertDegradedPages(generator, context, 1, 2, 3, 4, 5);
+        assertTrue(System.nanoTime() - startTime < 5000000000L);
+    }
+
+    @Test
+    public void testDegradedExport() {
+        SyntheticPdfGenerator generator = createGenerator().setSlowContent(200000, 0, 1);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.PAGE_OPERATOR_LIMIT, 50000);
+        String fileName = new File(tempDir, "degraded.pdf").getPath();
+        generator.generate(fileName);
+        AnnotatedDocument document = new PdfAnnotationImporter().readAnnotations(fileName, context);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        new BinaryExporter().export(document, context, binary);
+        AnnotatedDocument result = new BinaryAnnotationImporter().readAnnotations(binary.toByteArray(), context);
+        for (int i = 0; i < document.getAnnotations().size(); i++) {
+            assertEquals(document.getAnnotations().get(i).isDegraded(), result.getAnnotations().get(i).isDegraded());
+        } //
+        StringWriter json = new StringWriter();
+        new JsonLinesExporter().export(document, context, json);
+        String[] lines = json.toString().split("\n");
+        assertTrue(document.getAnnotations().stream().anyMatch(Annotation::isDegraded));
+        for (int i = 0; i < lines.length; i++) {
+            Annotation annotation = document.getAnnotations().get(i);
+            assertTrue(!annotation.isDegraded() || (annotation.getPage() == 1));
+            assertEquals(annotation.isDegraded(), lines[i].endsWith(",\"degraded\":true}"), lines[i]);
+        } //
+        StringWriter markdown = new StringWriter();
+        new MarkdownExporter().export(document, context, markdown);
+        long notes = document.getAnnotations().stream().filter(Annotation::isDegraded).count();
+        assertEquals(notes, markdown.toString().lines()
+            .filter(line -> line.equals("*[Highlighted text on page 1 not extracted]*")).count());
+    }
+
+    @Test
+    public void testDefaultLimits() {
+        ExtractionBudget budget = ExtractionBudget.create(new HashMap<>());
+        // No time limits by default (the results would depend on the machine load).
+        assertEquals(Long.MAX_VALUE, budget.pageTimeNanos);
+        assertEquals(Long.MAX_VALUE, budget.documentDeadline);
+        assertEquals(ExtractionBudget.DEFAULT_PAGE_OPERATOR_LIMIT, budget.pageOperatorLimit);
+    }
+
+    /**
+     * Extract the annotations and check the degraded ones. The highlights with content are never degraded
+     * (their page is not parsed), the degraded highlights have no text.
+     * @param generator Document generator.
+     * @param context Import context.
+     * @param degradedPages Pages with the degraded annotations.
+     */
+    protected void assertDegradedPages(SyntheticPdfGenerator generator, Map<String, Object> context,
+            Integer... degradedPages) {
+        String fileName = new File(tempDir, "slow.pdf").getPath();
+        List<String> expected = generator.generate(fileName);
+        AnnotatedDocument document = new PdfAnnotationImporter().readAnnotations(fileName, context);
+        List<Annotation> annotations = document.getAnnotations();
+        assertEquals(expected.size(), annotations.size());
+        Set<Integer> pages = new HashSet<>();
+        for (int i = 0; i < annotations.size(); i++) {
+            Annotation annotation = annotations.get(i);
+            if (annotation.isDegraded()) {
+                assertEquals("", annotation.getText());
+                pages.add(annotation.getPage());
+            }
+            else {
+                assertEquals(expected.get(i), annotation.getText());
+            }
+        } //
+        assertEquals(Set.of(degradedPages), pages);
+    }
+
+    protected SyntheticPdfGenerator createGenerator() {
+        return new SyntheticPdfGenerator()
+            .setPageCount(PAGES)
+            .setLinesPerPage(20)
+            .setHighlightsPerPage(HIGHLIGHTS)
+            .setContentRatio(0.3);
+    }
+}
@@ -0,0 +1,77 @@
+package dsk.anotex.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GlyphIndexTest {
+
+    @Test
+    public void testFindGlyphs() {
+        Random random = new Random(7);
+        int size = 5000;
+        float[] boxes = new float[size * 4];
+        for (int i = 0; i < size; i++) {
+            boxes[i * 4] = random.nextFloat() * 600;
+            boxes[i * 4 + 1] = random.nextFloat() * 800;
+            boxes[i * 4 + 2] = 2 + random.nextFloat() * 6;
+            boxes[i * 4 + 3] = 8 + random.nextFloat() * 4;
+        } //
+        GlyphIndex index = new GlyphIndex(boxes, size);
+        for (int q = 0; q < 200; q++) {
+            float x = random.nextFloat() * 700 - 50;
+            float y = random.nextFloat() * 900 - 50;
+            float width = random.nextFloat() * 300;
+            float height = random.nextFloat() * 100;
+            int[] expected = findGlyphs(boxes, size, x, y, width, height, false);
+            int[] found = index.findGlyphs(x, y, width, height);
+            assertArrayEquals(expected, found);
+            assertArrayEquals(findGlyphs(boxes, size, x, y, width, height, true),
+                index.findGlyphCenters(x, y, width, height));
+        } //
+    }
+
+    @Test
+    public void testEmptyAndInvalidGlyphs() {
+        GlyphIndex empty = new GlyphIndex(new float[0], 0);
+        assertEquals(0, empty.findGlyphs(0, 0, 100, 100).length);
+
+        float[] boxes = {10, 10, 5, 5, Float.NaN, 0, 5, 5, 50, 50, 5, 5};
+        GlyphIndex index = new GlyphIndex(boxes, 3);
+        // The invalid glyph is always returned (the caller decides for it).
+        assertArrayEquals(new int[] {0, 1}, index.findGlyphs(0, 0, 20, 20));
+        assertArrayEquals(new int[] {0, 1, 2}, index.findGlyphs(0, 0, 100, 100));
+        assertArrayEquals(new int[] {0, 1}, index.findGlyphCenters(12, 12, 1, 1));
+    }
+
+    /**
+     * Find glyphs (or glyph centers) inside given area by checking all of them.
+     */
+    protected int[] findGlyphs(float[] boxes, int size, float x, float y, float width, float height,
+            boolean centers) {
+        float tolerance = GlyphIndex.TOLERANCE;
+        int[] found = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int b = i * 4;
+            if (centers) {
+                float cx = boxes[b] + boxes[b + 2] / 2;
+                float cy = boxes[b + 1] + boxes[b + 3] / 2;
+                if ((cx >= x - tolerance) && (cy >= y - tolerance) && (cx <= x + width + tolerance)
+                        && (cy <= y + height + tolerance)) {
+                    found[count++] = i;
+                }
+            }
+            else if ((boxes[b] >= x - tolerance) && (boxes[b + 1] >= y - tolerance)
+                    && (boxes[b] + boxes[b + 2] <= x + width + tolerance)
+                    && (boxes[b + 1] + boxes[b + 3] <= y + height + tolerance)) {
+                found[count++] = i;
+            }
+        } //
+        return Arrays.copyOf(found, count);
+    }
+}
@@ -1,13 +1,26 @@
 package dsk.anotex.importer;
 
+import com.sun.management.UnixOperatingSystemMXBean;
+import dsk.anotex.Constants;
 import dsk.anotex.TestBase;
 import dsk.anotex.core.AnnotatedDocument;
 import dsk.anotex.core.Annotation;
+import dsk.anotex.core.AnnotationList;
+import dsk.anotex.core.AnnotationListener;
+import dsk.anotex.core.AnnotationType;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PdfAnnotationImporterTest extends TestBase {
 
@@ -85,4 +98,142 @@ public class PdfAnnotationImporterTest extends TestBase {
             "word processing and presentation graphics. Today, cloud services, " +
             "web calls and other social", annot1.getText());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPerPageExtraction() {
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        Map<String, Object> perAnnotation = new HashMap<>();
+        perAnnotation.put(Constants.EXTRACTION_MODE, Constants.EXTRACTION_PER_ANNOTATION);
+        Map<String, Object> perPage = new HashMap<>();
+        perPage.put(Constants.EXTRACTION_MODE, Constants.EXTRACTION_PER_PAGE);
+        for (String fileName : new String[] {"Test_Pdf_1.pdf", "Test_Pdf_2.pdf", "Test_Pdf_3.pdf",
+                "Test_Pdf_5.pdf", "Test_Pdf_6.pdf", "Test_Pdf_7.pdf"}) {
+            String file = resDir + "/" + fileName;
+            List<Annotation> expected = importer.readAnnotations(file, perAnnotation).getAnnotations();
+            List<Annotation> actual = importer.readAnnotations(file, perPage).getAnnotations();
+            assertEquals(expected.toString(), actual.toString(), fileName);
+        } //
+    }
+
+    @Test
+    public void testParallelExtraction() {
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        Map<String, Object> parallel = new HashMap<>();
+        parallel.put(Constants.PARALLELISM, 4);
+        for (String fileName : new String[] {"Test_Pdf_1.pdf", "Test_Pdf_2.pdf", "Test_Pdf_3.pdf",
+                "Test_Pdf_5.pdf", "Test_Pdf_6.pdf", "Test_Pdf_7.pdf"}) {
+            String file = resDir + "/" + fileName;
+            AnnotatedDocument expected = importer.readAnnotations(file);
+            AnnotatedDocument actual = importer.readAnnotations(file, parallel);
+            assertEquals(expected.getTitle(), actual.getTitle(), fileName);
+            assertEquals(expected.getAnnotations().toString(), actual.getAnnotations().toString(), fileName);
+        } //
+    }
+
+    @Test
+    public void testPageRange() {
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        String file = resDir + "/Test_Pdf_3.pdf";
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.PAGE_RANGE, "1");
+        assertEquals(3, importer.readAnnotations(file, context).getAnnotations().size());
+        context.put(Constants.PAGE_RANGE, "2-");
+        AnnotatedDocument document = importer.readAnnotations(file, context);
+        assertEquals(0, document.getAnnotations().size());
+        assertEquals(1, document.getPageCount());
+    }
+
+    @Test
+    public void testSyntheticDocument() {
+        String file = tempDir + "/Synthetic.pdf";
+        List<String> expected = new SyntheticPdfGenerator()
+            .setPageCount(30)
+            .setHighlightsPerPage(6)
+            .setContentRatio(0.3)
+            .generate(file);
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        Map<String, Object> perAnnotation = new HashMap<>();
+        perAnnotation.put(Constants.EXTRACTION_MODE, Constants.EXTRACTION_PER_ANNOTATION);
+        Map<String, Object> parallel = new HashMap<>();
+        parallel.put(Constants.PARALLELISM, 4);
+        for (Map<String, Object> context : List.of(new HashMap<String, Object>(), perAnnotation, parallel)) {
+            AnnotatedDocument document = importer.readAnnotations(file, context);
+            assertEquals(30, document.getPageCount());
+            assertEquals(expected, document.getAnnotations().stream().map(Annotation::getText).toList(),
+                context.toString());
+            for (Annotation annotation : document.getAnnotations()) {
+                assertEquals(AnnotationType.HIGHLIGHT, annotation.getType());
+                assertTrue((annotation.getPage() >= 1) && (annotation.getPage() <= 30));
+                assertTrue((annotation.getWidth() > 0) && (annotation.getHeight() > 0));
+            } //
+        } //
+    }
+
+    @Test
+    public void testAnnotationModel() {
+        String file = tempDir + "/Model.pdf";
+        new SyntheticPdfGenerator().setPageCount(2).setHighlightsPerPage(3).generate(file);
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        // The annotations of the document are changeable in place by default.
+        AnnotatedDocument document = importer.readAnnotations(file, new HashMap<>());
+        document.getAnnotations().get(0).setText("Changed");
+        assertEquals("Changed", document.getAnnotations().get(0).getText());
+
+        // The compact list is optional.
+        Map<String, Object> context = new HashMap<>();
+        context.put(Constants.COMPACT_ANNOTATIONS, true);
+        AnnotatedDocument compact = importer.readAnnotations(file, context);
+        assertTrue(compact.getAnnotations() instanceof AnnotationList);
+        assertEquals(document.getAnnotations().subList(1, 6).toString(),
+            compact.getAnnotations().subList(1, 6).toString());
+    }
+
+    @Test
+    public void testQuadPoints() {
+        // The highlights start and end inside their lines - only their quadrilaterals cover the highlighted words.
+        String file = tempDir + "/Partial.pdf";
+        List<String> expected = new SyntheticPdfGenerator()
+            .setPageCount(5)
+            .setHighlightsPerPage(6)
+            .setPartialLines(true)
+            .generate(file);
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        Map<String, Object> perAnnotation = new HashMap<>();
+        perAnnotation.put(Constants.EXTRACTION_MODE, Constants.EXTRACTION_PER_ANNOTATION);
+        for (Map<String, Object> context : List.of(new HashMap<String, Object>(), perAnnotation)) {
+            AnnotatedDocument document = importer.readAnnotations(file, context);
+            assertEquals(expected, document.getAnnotations().stream().map(Annotation::getText).toList(),
+                context.toString());
+        } //
+    }
+
+    @Test
+    public void testResourceRelease() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        Assumptions.assumeTrue(os instanceof UnixOperatingSystemMXBean);
+        UnixOperatingSystemMXBean unix = (UnixOperatingSystemMXBean) os;
+        PdfAnnotationImporter importer = new PdfAnnotationImporter();
+        Map<String, Object> parallel = new HashMap<>();
+        parallel.put(Constants.PARALLELISM, 2);
+        importer.readAnnotations(resDir + "/Test_Pdf_2.pdf");
+        long openFiles = unix.getOpenFileDescriptorCount();
+        for (int i = 0; i < 200; i++) {
+            importer.readAnnotations(resDir + "/Test_Pdf_2.pdf");
+            importer.readAnnotations(resDir + "/Test_Pdf_3.pdf", parallel);
+            importer.readAnnotations(resDir + "/Test_Pdf_5.pdf", new HashMap<>(), new AnnotationListener() {
+                public void documentStarted(AnnotatedDocument document) {
+                }
+
+                public void annotationFound(Annotation annotation) {
+                }
+
+                public void documentFinished(AnnotatedDocument document) {
+                }
+            });
+            assertThrows(IllegalArgumentException.class,
+                () -> importer.readAnnotations(resDir + "/Test_Pdf_4.pdf"));
+        } //
+        // Some tolerance for files, opened by other threads meanwhile.
+        assertTrue(unix.getOpenFileDescriptorCount() - openFiles < 20);
+    }
+}
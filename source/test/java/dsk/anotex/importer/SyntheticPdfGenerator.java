@@ -0,0 +1,375 @@
+package dsk.anotex.importer;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.annot.PdfTextMarkupAnnotation;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of synthetic PDF documents with highlights, for load and scaling tests. The generated pages
+ * contain lines of random words (optionally justified) and highlights, covering one or more whole lines
+ * (or starting and ending inside the line, like the highlights made by PDF readers).
+ * Some highlights can store their text in the annotation content (/Contents), polluted with tabs
+ * (like the justified text is stored by some PDF readers).
+ * <p>
+ * Selected pages can get pathologically slow content before their text (for the extraction budget tests) -
+ * many path operators and deeply nested forms, where every form draws the previous one twice (so the form
+ * of nesting depth n contains about 2^n operators).
+ * </p>
+ * <p>
+ * The generator records the expected extracted text of every highlight. It can be also run from the
+ * command line:
+ * </p>
+ * <pre>SyntheticPdfGenerator &lt;outputFile&gt; [pages] [linesPerPage] [highlightsPerPage] [contentRatio]</pre>
+ */
+public class SyntheticPdfGenerator {
+    protected static final String[] WORDS = {
+        "annotation", "book", "chapter", "document", "extract", "highlight", "idea", "knowledge", "library",
+        "margin", "note", "page", "paragraph", "quote", "reader", "section", "summary", "text", "value",
+        "word", "of", "the", "and", "is", "in", "to", "with", "for", "on", "by",
+    };
+    protected static final float FONT_SIZE = 10;
+    protected static final float LEADING = 14;
+    protected static final float MARGIN = 50;
+    // Highlight boundaries around the line baseline (the glyphs are between -2.1 and 7.2).
+    protected static final float HIGHLIGHT_BOTTOM = 3;
+    protected static final float HIGHLIGHT_TOP = 9;
+    protected static final int MAX_HIGHLIGHTED_LINES = 3;
+
+    protected int pageCount = 10;
+    protected int linesPerPage = 40;
+    protected int highlightsPerPage = 5;
+    protected double contentRatio = 0.2;
+    protected boolean justified = true;
+    protected boolean partialLines;
+    protected long seed = 1;
+    protected Set<Integer> slowPages = Set.of();
+    protected int pathOperators;
+    protected int formNesting;
+
+    /**
+     * Generate PDF document.
+     * @param outputFile Output file name.
+     * @return The expected text of every highlight (in page order).
+     */
+    public List<String> generate(String outputFile) {
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(seed);
+        File file = new File(outputFile).getAbsoluteFile();
+        file.getParentFile().mkdirs();
+        try (PdfDocument document = new PdfDocument(new PdfWriter(file))) {
+            document.getDocumentInfo().setTitle("Synthetic document");
+            PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+            float lineWidth = PageSize.A4.getWidth() - 2 * MARGIN;
+            int lines = Math.min(linesPerPage, (int) ((PageSize.A4.getHeight() - 2 * MARGIN) / LEADING));
+            PdfFormXObject slowForm = createNestedForm(document, formNesting);
+            for (int p = 0; p < pageCount; p++) {
+                PdfPage page = document.addNewPage(PageSize.A4);
+                PdfCanvas canvas = new PdfCanvas(page);
+                if (slowPages.contains(p + 1)) {
+                    addSlowContent(canvas, slowForm);
+                }
+                String[] texts = new String[lines];
+                for (int line = 0; line < lines; line++) {
+                    texts[line] = createLine(random, font, lineWidth);
+                    float wordSpacing = getWordSpacing(font, texts[line], lineWidth);
+                    canvas.beginText()
+                        .setFontAndSize(font, FONT_SIZE)
+                        .setWordSpacing(wordSpacing)
+                        .moveText(MARGIN, getBaseline(line))
+                        .showText(texts[line])
+                        .endText();
+                } //
+                addHighlights(page, random, font, texts, lineWidth, expected);
+                page.flush();
+            } //
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return expected;
+    }
+
+    /**
+     * Generate PDF document and write the expected highlight texts next to it (one per line, in file
+     * with '.expected.txt' extension).
+     * @param outputFile Output file name.
+     * @return The expected text of every highlight.
+     */
+    public List<String> generateWithExpectedText(String outputFile) {
+        List<String> expected = generate(outputFile);
+        try {
+            Files.write(new File(outputFile + ".expected.txt").toPath(), expected, StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return expected;
+    }
+
+    /**
+     * Add highlights to page. Every highlight covers one or more whole lines (the highlights do not
+     * overlap). With partial lines, the highlight starts and ends with random word of its first and last
+     * line. Then its rectangle covers the whole lines, its quadrilaterals only the highlighted words.
+     * @param page The page.
+     * @param random Random generator.
+     * @param font Text font.
+     * @param texts Page lines.
+     * @param lineWidth Width of the lines.
+     * @param expected Where to put the expected highlight texts.
+     */
+    protected void addHighlights(PdfPage page, Random random, PdfFont font, String[] texts, float lineWidth,
+            List<String> expected) {
+        int slots = Math.min(highlightsPerPage, texts.length);
+        if (slots == 0) {
+            return;
+        }
+        int slotSize = texts.length / slots;
+        for (int i = 0; i < slots; i++) {
+            int first = i * slotSize;
+            int last = first + random.nextInt(Math.min(MAX_HIGHLIGHTED_LINES, slotSize));
+            float bottom = getBaseline(last) - HIGHLIGHT_BOTTOM;
+            float top = getBaseline(first) + HIGHLIGHT_TOP;
+            Rectangle area = new Rectangle(MARGIN - 1, bottom, lineWidth + 2, top - bottom);
+            String[] firstWords = texts[first].split(" ");
+            String[] lastWords = texts[last].split(" ");
+            int firstWord = 0;
+            int lastWord = lastWords.length - 1;
+            if (partialLines) {
+                // Words of single letter would be stripped from the text edges.
+                firstWord = chooseWord(random, firstWords, 0, firstWords.length - 1);
+                lastWord = chooseWord(random, lastWords, (first == last) ? firstWord : 0, lastWords.length - 1);
+            }
+            float[] quadPoints = new float[(last - first + 1) * 8];
+            for (int line = first; line <= last; line++) {
+                float qBottom = getBaseline(line) - HIGHLIGHT_BOTTOM;
+                float qTop = getBaseline(line) + HIGHLIGHT_TOP;
+                float qLeft = area.getLeft();
+                float qRight = area.getRight();
+                float wordSpacing = getWordSpacing(font, texts[line], lineWidth);
+                if ((line == first) && (firstWord > 0)) {
+                    String before = String.join(" ", Arrays.copyOfRange(firstWords, 0, firstWord)) + " ";
+                    qLeft = MARGIN + font.getWidth(before, FONT_SIZE) + firstWord * wordSpacing - 1;
+                }
+                if ((line == last) && (lastWord < lastWords.length - 1)) {
+                    String until = String.join(" ", Arrays.copyOfRange(lastWords, 0, lastWord + 1));
+                    qRight = MARGIN + font.getWidth(until, FONT_SIZE) + lastWord * wordSpacing + 1;
+                }
+                System.arraycopy(new float[] {qLeft, qTop, qRight, qTop, qLeft, qBottom, qRight, qBottom}, 0,
+                    quadPoints, (line - first) * 8, 8);
+            } //
+            PdfTextMarkupAnnotation highlight = PdfTextMarkupAnnotation.createHighLight(area, quadPoints);
+            highlight.setColor(ColorConstants.YELLOW);
+            String text = String.join(" ", Arrays.copyOfRange(texts, first, last + 1));
+            if (partialLines) {
+                int from = String.join(" ", Arrays.copyOfRange(firstWords, 0, firstWord)).length()
+                    + ((firstWord > 0) ? 1 : 0);
+                int to = text.length() - texts[last].length()
+                    + String.join(" ", Arrays.copyOfRange(lastWords, 0, lastWord + 1)).length();
+                text = text.substring(from, to);
+            }
+            if (random.nextDouble() < contentRatio) {
+                // Tab pollution - the spaces are stored as tabs.
+                highlight.setContents(new PdfString(text.replace(' ', '\t')));
+            }
+            page.addAnnotation(highlight);
+            expected.add(text);
+        } //
+    }
+
+    /**
+     * Choose random word, longer than single letter.
+     * @param random Random generator.
+     * @param words Words of the line.
+     * @param from Index of the first allowed word.
+     * @param to Index of the last allowed word.
+     * @return Index of the chosen word (or the first allowed word, if all are single letter).
+     */
+    protected int chooseWord(Random random, String[] words, int from, int to) {
+        int start = from + random.nextInt(to - from + 1);
+        for (int i = start; i <= to; i++) {
+            if (words[i].length() > 1) {
+                return i;
+            }
+        } //
+        return from;
+    }
+
+    /**
+     * Get the word spacing of line (the spacing, which makes it justified).
+     * @param font Text font.
+     * @param text Line text.
+     * @param lineWidth Line width.
+     * @return The word spacing (0 if the text is not justified).
+     */
+    protected float getWordSpacing(PdfFont font, String text, float lineWidth) {
+        int spaces = text.split(" ").length - 1;
+        if (!justified || (spaces == 0)) {
+            return 0;
+        }
+        return (lineWidth - font.getWidth(text, FONT_SIZE)) / spaces;
+    }
+
+    /**
+     * Create form, which contains nested forms.
+     * @param document The document.
+     * @param depth Nesting depth.
+     * @return The form (null for zero depth).
+     */
+    protected PdfFormXObject createNestedForm(PdfDocument document, int depth) {
+        PdfFormXObject form = null;
+        for (int i = 0; i < depth; i++) {
+            PdfFormXObject nested = new PdfFormXObject(new Rectangle(10, 10));
+            PdfCanvas canvas = new PdfCanvas(nested, document);
+            if (form == null) {
+                canvas.moveTo(0, 0).lineTo(10, 10).stroke();
+            }
+            else {
+                canvas.addXObject(form).addXObject(form);
+            }
+            form = nested;
+        } //
+        return form;
+    }
+
+    /**
+     * Add slow content to page (before its text).
+     * @param canvas Page canvas.
+     * @param form Nested form (can be null).
+     */
+    protected void addSlowContent(PdfCanvas canvas, PdfFormXObject form) {
+        canvas.saveState();
+        for (int i = 0; i < pathOperators / 2; i++) {
+            canvas.moveTo(i % 500, 0).lineTo(0, i % 500);
+        } //
+        canvas.endPath();
+        if (form != null) {
+            canvas.addXObject(form);
+        }
+        canvas.restoreState();
+    }
+
+    /**
+     * Create line of random words, starting with capital letter and ending with full stop.
+     * @param random Random generator.
+     * @param font Text font.
+     * @param lineWidth Maximal line width.
+     * @return The line text.
+     */
+    protected String createLine(Random random, PdfFont font, float lineWidth) {
+        StringBuilder buf = new StringBuilder();
+        while (true) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (buf.isEmpty()) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            String candidate = buf.isEmpty() ? word : buf + " " + word;
+            if (font.getWidth(candidate + ".", FONT_SIZE) > lineWidth) {
+                break;
+            }
+            buf.setLength(0);
+            buf.append(candidate);
+        } //
+        return buf.append('.').toString();
+    }
+
+    protected float getBaseline(int line) {
+        return PageSize.A4.getHeight() - MARGIN - FONT_SIZE - line * LEADING;
+    }
+
+    public SyntheticPdfGenerator setPageCount(int pageCount) {
+        this.pageCount = pageCount;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setLinesPerPage(int linesPerPage) {
+        this.linesPerPage = linesPerPage;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setHighlightsPerPage(int highlightsPerPage) {
+        this.highlightsPerPage = highlightsPerPage;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setContentRatio(double contentRatio) {
+        this.contentRatio = contentRatio;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setJustified(boolean justified) {
+        this.justified = justified;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setPartialLines(boolean partialLines) {
+        this.partialLines = partialLines;
+        return this;
+    }
+
+    public SyntheticPdfGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Add slow content to pages.
+     * @param pathOperators Number of path operators.
+     * @param formNesting Depth of the nested forms (0 for none).
+     * @param pages Numbers of the slow pages (1 based).
+     * @return This generator.
+     */
+    public SyntheticPdfGenerator setSlowContent(int pathOperators, int formNesting, Integer... pages) {
+        this.pathOperators = pathOperators;
+        this.formNesting = formNesting;
+        this.slowPages = Set.of(pages);
+        return this;
+    }
+
+    /**
+     * Execution entry point.
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: SyntheticPdfGenerator <outputFile> [pages] [linesPerPage]"
+                + " [highlightsPerPage] [contentRatio]");
+            return;
+        }
+        SyntheticPdfGenerator generator = new SyntheticPdfGenerator();
+        if (args.length > 1) {
+            generator.setPageCount(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setLinesPerPage(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setHighlightsPerPage(Integer.parseInt(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setContentRatio(Double.parseDouble(args[4]));
+        }
+        List<String> expected = generator.generateWithExpectedText(args[0]);
+        System.out.printf("Generated '%s' with %d highlights%n", args[0], expected.size());
+    }
+}
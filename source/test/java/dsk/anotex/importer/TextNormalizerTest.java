@@ -0,0 +1,86 @@
+package dsk.anotex.importer;
+
+import dsk.anotex.TestBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextNormalizerTest extends TestBase {
+
+    @Test
+    public void testNormalize() {
+        TextNormalizer highlight = TextNormalizer.createHighlightNormalizer();
+        assertEquals("One Two", highlight.normalize("a. One \t\n Two b"));
+        assertEquals("Quoted \"text\"", highlight.normalize("“ Quoted “text” ”"));
+        TextNormalizer content = TextNormalizer.createContentNormalizer();
+        assertEquals("One  Two", content.normalize("One \tTwo"));
+        assertEquals("\"", content.normalize("\""));
+        String unchanged = "Nothing to change.";
+        assertSame(unchanged, content.normalize(unchanged));
+    }
+
+    @Test
+    public void testDifferentialRandom() {
+        ReferenceImporter reference = new ReferenceImporter();
+        int[] alphabet = "aZb.?!\" \t\n\r\u000B\f“”\u0085\u2028\u2029x𝐚𝐀é".codePoints().toArray();
+        Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder buf = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                buf.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+            } //
+            reference.check(buf.toString());
+        } //
+    }
+
+    @Test
+    public void testDifferentialDocuments() {
+        ReferenceImporter reference = new ReferenceImporter();
+        for (int i : new int[] {1, 2, 3, 5, 6, 7}) {
+            reference.readAnnotations(resDir + "/Test_Pdf_" + i + ".pdf", new HashMap<>());
+        } //
+        assertTrue(reference.compared > 0);
+    }
+
+    /**
+     * Importer, comparing the normalized text with the result of the reference implementation.
+     */
+    protected static class ReferenceImporter extends PdfAnnotationImporter {
+        protected int compared;
+
+        @Override
+        protected String normalizeText(String text, boolean highlighted) {
+            String actual = super.normalizeText(text, highlighted);
+            assertEquals(normalizeReference(text, highlighted), actual, text);
+            compared++;
+            return actual;
+        }
+
+        protected void check(String text) {
+            for (boolean highlighted : new boolean[] {true, false}) {
+                String expected;
+                try {
+                    expected = normalizeReference(text, highlighted);
+                }
+                catch (StringIndexOutOfBoundsException e) {
+                    // The reference implementation fails on single double quote.
+                    continue;
+                }
+                assertEquals(expected, super.normalizeText(text, highlighted), text);
+            } //
+        }
+
+        protected String normalizeReference(String text, boolean highlighted) {
+            if (highlighted) {
+                text = normalizeHighlightedText(text);
+            }
+            return removePollutionChars(stripUnwantedChunks(text));
+        }
+    }
+}
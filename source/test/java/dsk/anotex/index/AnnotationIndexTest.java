@@ -0,0 +1,188 @@
+package dsk.anotex.index;
+
+import dsk.anotex.AnnotationExtractor;
+import dsk.anotex.TestBase;
+import dsk.anotex.core.AnnotatedDocument;
+import dsk.anotex.core.Annotation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AnnotationIndexTest extends TestBase {
+    protected File indexDir;
+
+    @BeforeEach
+    public void beforeEach() {
+        cleanTempDirectory();
+        indexDir = new File(tempDir, "index");
+    }
+
+    @Test
+    public void testSearch() {
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            index.addDocument("doc1.pdf", createDocument("Quantum Physics", "Ann Smith", "Wave function collapse",
+                "Entangled particles", "Über große Wellen"));
+            index.addDocument("doc2.pdf", createDocument("Cooking", "Bob Jones", "Wave of flavour", "Boiled eggs"));
+            assertTrue(index.search("wave", 10).isEmpty());
+            index.commit();
+
+            assertEquals(2, index.search("wave", 10).size());
+            assertEquals(1, index.search("WAVE function", 10).size());
+            assertEquals(0, index.search("wave eggs", 10).size());
+            assertEquals(1, index.search("wave-function", 10).size());
+            assertEquals(List.of(3), pages(index.search("GROẞE wellen", 10)));
+            assertEquals(1, index.search("wave", 1).size());
+            assertTrue(index.search("  ", 10).isEmpty());
+            assertTrue(index.search("unknown", 10).isEmpty());
+
+            // Prefix.
+            assertEquals(2, index.search("wa*", 10).size());
+            assertEquals(List.of(2), pages(index.search("entang*", 10)));
+            assertEquals(List.of(3), pages(index.search("Ü*", 10)));
+            assertTrue(index.search("flavours*", 10).isEmpty());
+
+            // Metadata matches all annotations of the document.
+            List<QueryMatch> matches = index.search("smith", 10);
+            assertEquals(List.of(1, 2, 3), pages(matches));
+            assertEquals("doc1.pdf", matches.getFirst().getPath());
+            assertEquals("Quantum Physics", matches.getFirst().getTitle());
+            assertEquals("Wave function collapse", matches.getFirst().getText());
+            assertEquals(List.of(2), pages(index.search("jones boiled", 10)));
+            assertEquals(5, index.search("keyword2", 10).size());
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() {
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            index.addDocument("doc1.pdf", createDocument("Title", "Author", "Old text"));
+            index.addDocument("doc2.pdf", createDocument("Title", "Author", "Other text"));
+            index.commit();
+            // Re-extracted document.
+            index.addDocument("doc1.pdf", createDocument("Title", "Author", "New text"));
+            index.commit();
+            assertTrue(index.search("old", 10).isEmpty());
+            assertEquals(1, index.search("new", 10).size());
+            assertEquals(2, index.search("text", 10).size());
+            assertEquals(2, index.getDocumentCount());
+
+            index.removeDocument("doc2.pdf");
+            index.commit();
+            assertTrue(index.search("other", 10).isEmpty());
+            assertEquals(1, index.getDocumentCount());
+        }
+
+        // Reopen.
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            assertEquals(1, index.getDocumentCount());
+            assertTrue(index.search("old", 10).isEmpty());
+            assertEquals("doc1.pdf", index.search("new text", 10).getFirst().getPath());
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        int count = AnnotationIndex.MERGE_FACTOR * 3;
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            for (int i = 0; i < count; i++) {
+                // Every document is re-added once.
+                index.addDocument("doc" + i / 2 + ".pdf", createDocument("Title", "Author", "Text " + i));
+                index.commit();
+                assertTrue(index.getSegmentCount() < AnnotationIndex.MERGE_FACTOR * 2);
+            } //
+            assertEquals(count / 2, index.getDocumentCount());
+            assertEquals(count / 2, index.search("text", count).size());
+            assertTrue(index.search("0", 10).isEmpty());
+            assertEquals("doc0.pdf", index.search("1", 10).getFirst().getPath());
+        }
+        File[] files = indexDir.listFiles((dir, name) -> name.endsWith(AnnotationIndex.SEGMENT_EXTENSION));
+        assertTrue(files.length < AnnotationIndex.MERGE_FACTOR * 2);
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            assertEquals(count / 2, index.search("text", count).size());
+        }
+    }
+
+    @Test
+    public void testTieredMerge() {
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            for (int i = 0; i < 200; i++) {
+                index.addDocument("large" + i + ".pdf", createDocument("Title", "Author", "Large"));
+            } //
+            index.commit();
+            String large = index.segments.getFirst().segment.getName();
+            for (int i = 0; i < AnnotationIndex.MERGE_FACTOR * 3; i++) {
+                index.addDocument("small" + i + ".pdf", createDocument("Title", "Author", "Small"));
+                index.commit();
+                // The small segments are merged together, the large one is not rewritten.
+                assertEquals(large, index.segments.getFirst().segment.getName());
+                // At most MERGE_FACTOR - 1 segments in each of the three tiers.
+                assertTrue(index.getSegmentCount() <= (AnnotationIndex.MERGE_FACTOR - 1) * 3);
+            } //
+            assertEquals(230, index.getDocumentCount());
+        }
+    }
+
+    @Test
+    public void testUncommittedFiles() throws Exception {
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            index.addDocument("doc.pdf", createDocument("Title", "Author", "Text"));
+            index.commit();
+        }
+        // Left by failed commit (older than the segments file) and written by other process (newer).
+        File segments = new File(indexDir, AnnotationIndex.SEGMENTS_FILE);
+        File failed = new File(indexDir, "seg-00100.idx");
+        File other = new File(indexDir, "seg-00101.idx");
+        Files.writeString(failed.toPath(), "");
+        Files.writeString(other.toPath(), "");
+        failed.setLastModified(segments.lastModified() - 10000);
+        other.setLastModified(segments.lastModified() + 10000);
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            assertEquals(1, index.getDocumentCount());
+        }
+        assertFalse(failed.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void testExtractedDocuments() {
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        String inputFile = new File(resDir, "Test_Pdf_5.pdf").getPath();
+        try (AnnotationIndex index = new AnnotationIndex(indexDir)) {
+            extractor.setIndex(index);
+            AnnotatedDocument document = extractor.readAnnotations(inputFile, new HashMap<>());
+            index.commit();
+            Annotation annotation = document.getAnnotations().stream()
+                .filter(a -> !Tokenizer.tokenize(a.getText()).isEmpty()).findFirst().orElseThrow();
+            List<QueryMatch> matches = index.search(String.join(" ", Tokenizer.tokenize(annotation.getText())),
+                100);
+            assertTrue(matches.stream().anyMatch(m -> (m.getPage() == annotation.getPage())
+                && m.getText().equals(annotation.getText())));
+            assertEquals(new File(inputFile).getAbsolutePath(), matches.getFirst().getPath());
+        }
+    }
+
+    protected List<Integer> pages(List<QueryMatch> matches) {
+        return matches.stream().map(QueryMatch::getPage).toList();
+    }
+
+    protected AnnotatedDocument createDocument(String title, String author, String... texts) {
+        AnnotatedDocument document = new AnnotatedDocument();
+        document.setTitle(title);
+        document.setAuthor(author);
+        document.setKeywords(List.of("keyword1", "keyword2"));
+        for (int i = 0; i < texts.length; i++) {
+            Annotation annotation = new Annotation(texts[i]);
+            annotation.setPage(i + 1);
+            document.getAnnotations().add(annotation);
+        } //
+        return document;
+    }
+}
@@ -0,0 +1,57 @@
+package dsk.anotex.monitoring;
+
+import dsk.anotex.AnnotationExtractor;
+import dsk.anotex.TestBase;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExtractionEventsTest extends TestBase {
+
+    @Test
+    public void testEvents() throws IOException {
+        Path recordingFile = tempDir.toPath().resolve("extraction.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(DocumentExtractionEvent.class);
+            recording.enable(PageExtractionEvent.class);
+            recording.enable(HighlightExtractionEvent.class);
+            recording.start();
+            new AnnotationExtractor().readAnnotations(resDir + "/Test_Pdf_6.pdf", new HashMap<>());
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        List<RecordedEvent> documents = filter(events, "dsk.anotex.DocumentExtraction");
+        assertEquals(1, documents.size());
+        RecordedEvent document = documents.getFirst();
+        assertTrue(document.getString("file").endsWith("Test_Pdf_6.pdf"));
+        assertTrue(document.getLong("size") > 0);
+        assertEquals(1, document.getInt("annotations"));
+
+        List<RecordedEvent> pages = filter(events, "dsk.anotex.PageExtraction");
+        assertEquals(1, pages.size());
+        assertTrue(pages.getFirst().getString("file").endsWith("Test_Pdf_6.pdf"));
+        assertEquals(1, pages.getFirst().getInt("annotations"));
+
+        List<RecordedEvent> highlights = filter(events, "dsk.anotex.HighlightExtraction");
+        assertEquals(1, highlights.size());
+        RecordedEvent highlight = highlights.getFirst();
+        assertTrue(highlight.getFloat("area") > 0);
+        assertTrue(highlight.getInt("glyphsAccepted") > 0);
+        assertTrue(highlight.getInt("glyphsScanned") >= highlight.getInt("glyphsAccepted"));
+    }
+
+    protected List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+    }
+}
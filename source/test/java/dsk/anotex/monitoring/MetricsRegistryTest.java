@@ -0,0 +1,68 @@
+package dsk.anotex.monitoring;
+
+import dsk.anotex.AnnotationExtractor;
+import dsk.anotex.TestBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsRegistryTest extends TestBase {
+
+    @Test
+    public void testFormats() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("test_total", "Test counter.");
+        counter.add(3);
+        Histogram histogram = registry.histogram("test_size", "Test histogram.", new double[] {1, 10});
+        histogram.record(1);
+        histogram.record(5);
+        histogram.record(50);
+        assertEquals(counter, registry.counter("test_total", "Test counter."));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            registry.timer("test_total", "Other type.");
+        });
+
+        StringWriter prometheus = new StringWriter();
+        registry.writePrometheus(prometheus);
+        assertEquals("# HELP test_total Test counter.\n"
+            + "# TYPE test_total counter\n"
+            + "test_total 3\n"
+            + "# HELP test_size Test histogram.\n"
+            + "# TYPE test_size histogram\n"
+            + "test_size_bucket{le=\"1\"} 1\n"
+            + "test_size_bucket{le=\"10\"} 2\n"
+            + "test_size_bucket{le=\"+Inf\"} 3\n"
+            + "test_size_sum 56\n"
+            + "test_size_count 3\n", prometheus.toString());
+
+        StringWriter json = new StringWriter();
+        registry.writeJson(json);
+        assertEquals("{\n"
+            + "  \"test_total\": {\"type\": \"counter\", \"value\": 3},\n"
+            + "  \"test_size\": {\"type\": \"histogram\", \"count\": 3, \"sum\": 56, \"buckets\": "
+            + "{\"1\": 1, \"10\": 2, \"+Inf\": 3}}\n"
+            + "}\n", json.toString());
+    }
+
+    @Test
+    public void testExtractionMetrics() {
+        long documents = Metrics.DOCUMENTS.get();
+        long contentTexts = Metrics.CONTENT_TEXTS.get();
+        long highlights = Metrics.HIGHLIGHT_EXTRACTIONS.get();
+        long parsed = Metrics.CONTENT_PARSE.getCount();
+        AnnotationExtractor extractor = new AnnotationExtractor();
+        extractor.extractAnnotations(resDir + "/Test_Pdf_7.pdf", new HashMap<>(),
+            tempDir + "/Test_Pdf_7.md");
+        assertEquals(documents + 1, Metrics.DOCUMENTS.get());
+        assertTrue(Metrics.CONTENT_TEXTS.get() + Metrics.HIGHLIGHT_EXTRACTIONS.get() > contentTexts + highlights);
+        assertTrue(Metrics.CONTENT_PARSE.getCount() >= parsed);
+        assertTrue(Metrics.DOCUMENT_OPEN.getCount() > 0);
+        assertTrue(Metrics.EXPORT.getCount() > 0);
+        assertTrue(Metrics.WRITE.getCount() > 0);
+    }
+}
@@ -0,0 +1,31 @@
+package dsk.anotex.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageRangeTest {
+
+    @Test
+    public void testParse() {
+        PageRange range = PageRange.parse("1-5, 8,12-");
+        assertTrue(range.contains(1));
+        assertTrue(range.contains(5));
+        assertFalse(range.contains(6));
+        assertTrue(range.contains(8));
+        assertTrue(range.contains(1000));
+        assertTrue(range.intersects(6, 8));
+        assertFalse(range.intersects(9, 11));
+        assertEquals("1-5,8,12-", range.toString());
+    }
+
+    @Test
+    public void testInvalidRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("1-x"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("5-2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PageRange.parse("0"));
+    }
+}
@@ -1,2 +1,8 @@
 @echo off
-java -cp program;library/* dsk.anotex.ConsoleRunner %1 %2 %3 %4
\ No newline at end of file
+rem Use the class data sharing archive of the distribution (faster startup), if it exists.
+rem Other Java builds cannot use it - they start without it, and the warning about it is not printed.
+if exist library\DyAnnotationExtractor.jsa (
+    java -XX:SharedArchiveFile=library\DyAnnotationExtractor.jsa -Xshare:auto -Xlog:cds=off -Xlog:cds+dynamic=off -cp library/* dsk.anotex.ConsoleRunner %*
+) else (
+    java -cp program;library/* dsk.anotex.ConsoleRunner %*
+)